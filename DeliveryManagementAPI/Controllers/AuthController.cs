@@ -15,11 +15,13 @@ namespace DeliveryManagementAPI.Controllers
     public class AuthController : ControllerBase
     {
         private readonly UserAccountService _userService;
+        private readonly DeliveryStaffService _staffService;
         private readonly IConfiguration _config;
 
-        public AuthController(UserAccountService userService, IConfiguration config)
+        public AuthController(UserAccountService userService, DeliveryStaffService staffService, IConfiguration config)
         {
             _userService = userService;
+            _staffService = staffService;
             _config = config;
         }
 
@@ -29,7 +31,45 @@ namespace DeliveryManagementAPI.Controllers
             var user = await _userService.AuthenticateAsync(req.Username!, req.Password!);
             if (user == null)
                 return Unauthorized(new { message = "Sai tài khoản hoặc mật khẩu" });
-            var token = GenerateJwtToken(user);
+            var token = GenerateJwtToken(user, await ResolveStaffIdAsync(user));
+            return Ok(new { token, user = new { user.UserId, user.Username, user.FullName, user.Email, user.Role } });
+        }
+
+        // Token hết hạn quá khoảng này thì không đổi được nữa, phải đăng nhập lại
+        private static readonly TimeSpan RefreshGrace = TimeSpan.FromDays(7);
+
+        /// <summary>
+        /// Đổi token hiện tại (còn hạn, hoặc hết hạn chưa quá 7 ngày) lấy token mới, để app shipper
+        /// không bị đăng xuất giữa ca giao hàng. Token gửi trong header Authorization như các request khác
+        /// </summary>
+        [HttpPost("refresh")]
+        [AllowAnonymous]
+        public async Task<IActionResult> Refresh()
+        {
+            var header = Request.Headers.Authorization.ToString();
+            if (!header.StartsWith("Bearer ", StringComparison.OrdinalIgnoreCase))
+                return Unauthorized(new { message = "Thiếu token" });
+
+            ClaimsPrincipal principal;
+            SecurityToken validated;
+            try
+            {
+                principal = new JwtSecurityTokenHandler().ValidateToken(header.Substring(7).Trim(), RefreshValidationParameters(), out validated);
+            }
+            catch (Exception)
+            {
+                return Unauthorized(new { message = "Token không hợp lệ" });
+            }
+            if (validated.ValidTo < DateTime.UtcNow - RefreshGrace)
+                return Unauthorized(new { message = "Phiên đăng nhập đã hết hạn, vui lòng đăng nhập lại" });
+
+            if (!int.TryParse(principal.FindFirst(ClaimTypes.NameIdentifier)?.Value, out var userId))
+                return Unauthorized(new { message = "Token không hợp lệ" });
+            var user = await _userService.GetByIdAsync(userId);
+            if (user == null)
+                return Unauthorized(new { message = "Tài khoản không còn tồn tại" });
+
+            var token = GenerateJwtToken(user, await ResolveStaffIdAsync(user));
             return Ok(new { token, user = new { user.UserId, user.Username, user.FullName, user.Email, user.Role } });
         }
 
@@ -119,7 +159,7 @@ namespace DeliveryManagementAPI.Controllers
                     }
                 }
 
-                var token = GenerateJwtToken(user);
+                var token = GenerateJwtToken(user, await ResolveStaffIdAsync(user));
                 return Ok(new { token, user = new { user.UserId, user.Username, user.FullName, user.Email, user.Role } });
             }
             catch (Exception ex)
@@ -128,13 +168,41 @@ namespace DeliveryManagementAPI.Controllers
             }
         }
 
-        private string GenerateJwtToken(UserAccount user)
+        // Shipper được gắn StaffId vào token để app biết mình là nhân viên nào mà không phải gọi deliverystaff/me
+        private async Task<int?> ResolveStaffIdAsync(UserAccount user)
+        {
+            if (user.Role != "shipper")
+            {
+                return null;
+            }
+            var staff = await _staffService.FindByPhoneOrNameAsync(user.PhoneNumber, user.FullName);
+            return staff?.StaffId;
+        }
+
+        // Giống cấu hình JwtBearer trong Program.cs nhưng bỏ kiểm tra hạn; hạn được xét riêng theo RefreshGrace
+        private TokenValidationParameters RefreshValidationParameters()
+        {
+            var jwtSettings = _config.GetSection("JwtSettings");
+            var secretKey = jwtSettings["SecretKey"] ?? "YourSuperSecretKeyForJWT12345678901234567890";
+            return new TokenValidationParameters
+            {
+                ValidateIssuer = true,
+                ValidateAudience = true,
+                ValidateLifetime = false,
+                ValidateIssuerSigningKey = true,
+                ValidIssuer = jwtSettings["Issuer"] ?? "DeliveryManagementAPI",
+                ValidAudience = jwtSettings["Audience"] ?? "DeliveryManagementClients",
+                IssuerSigningKey = new SymmetricSecurityKey(Encoding.UTF8.GetBytes(secretKey))
+            };
+        }
+
+        private string GenerateJwtToken(UserAccount user, int? staffId)
         {
             var jwtSettings = _config.GetSection("JwtSettings");
             var secretKey = jwtSettings["SecretKey"] ?? "YourSuperSecretKeyForJWT12345678901234567890";
             var expiryMinutes = int.Parse(jwtSettings["ExpiryMinutes"] ?? "60");
 
-            var claims = new[]
+            var claims = new List<Claim>
             {
                 new Claim(ClaimTypes.NameIdentifier, user.UserId.ToString()),
                 new Claim(ClaimTypes.Name, user.Username),
@@ -142,6 +210,10 @@ namespace DeliveryManagementAPI.Controllers
                 new Claim(ClaimTypes.Email, user.Email),
                 new Claim("FullName", user.FullName)
             };
+            if (staffId.HasValue)
+            {
+                claims.Add(new Claim(DeliveryStaffService.StaffIdClaim, staffId.Value.ToString()));
+            }
 
             var key = new SymmetricSecurityKey(Encoding.UTF8.GetBytes(secretKey));
             var creds = new SigningCredentials(key, SecurityAlgorithms.HmacSha256);
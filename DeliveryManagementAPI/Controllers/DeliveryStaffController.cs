@@ -93,21 +93,7 @@ namespace DeliveryManagementAPI.Controllers
         {
             try
             {
-                var fullName = User.Claims.FirstOrDefault(c => c.Type == "FullName")?.Value
-                               ?? User.Claims.FirstOrDefault(c => c.Type.Contains("/name"))?.Value;
-                var email = User.Claims.FirstOrDefault(c => c.Type.Contains("/email"))?.Value;
-                var phone = User.Claims.FirstOrDefault(c => c.Type.Contains("phone"))?.Value; // tuỳ claim
-
-                DeliveryStaff? staff = null;
-                if (!string.IsNullOrEmpty(phone))
-                {
-                    staff = await _staffService.GetByPhoneAsync(phone);
-                }
-                if (staff == null && !string.IsNullOrEmpty(fullName))
-                {
-                    staff = await _staffService.GetByFullNameAsync(fullName);
-                }
-
+                var staff = await _staffService.GetForUserAsync(User);
                 if (staff == null)
                 {
                     return NotFound(new { message = "Không tìm thấy nhân viên tương ứng với tài khoản hiện tại" });
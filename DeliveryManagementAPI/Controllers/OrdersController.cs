@@ -1,4 +1,5 @@
 using Microsoft.AspNetCore.Mvc;
+using DeliveryManagementAPI.Filters;
 using DeliveryManagementAPI.Models;
 using DeliveryManagementAPI.Services;
 using Microsoft.AspNetCore.Authorization;
@@ -52,6 +53,7 @@ namespace DeliveryManagementAPI.Controllers
         /// Lấy danh sách "đơn của tôi" theo UserId trong JWT
         /// </summary>
         [HttpGet("my")]
+        [ETag]
         [Authorize(Roles = "customer,admin,shipper")] // Bất kỳ ai đăng nhập đều có thể gọi để lấy đơn của chính mình
         public async Task<ActionResult<List<Order>>> GetMyOrders()
         {
@@ -78,10 +80,49 @@ namespace DeliveryManagementAPI.Controllers
             }
         }
 
+        /// <summary>
+        /// Lấy "đơn của tôi" theo trang, mới nhất trước.
+        /// Truyền afterId (OrderId cuối của trang trước) để phân trang keyset, hoặc offset khi nhảy tới trang bất kỳ
+        /// </summary>
+        [HttpGet("my/page")]
+        [Authorize(Roles = "customer,admin,shipper")]
+        public async Task<ActionResult<OrderPageDto>> GetMyOrdersPage([FromQuery] int? afterId, [FromQuery] int offset = 0, [FromQuery] int limit = DefaultPageSize)
+        {
+            try
+            {
+                var userIdClaim = User.Claims.FirstOrDefault(c => c.Type == System.Security.Claims.ClaimTypes.NameIdentifier)?.Value;
+                if (string.IsNullOrEmpty(userIdClaim) || !int.TryParse(userIdClaim, out var userId))
+                {
+                    return Unauthorized(new { message = "Không xác định được người dùng từ token" });
+                }
+                if (offset < 0 || limit < 1 || limit > MaxPageSize)
+                {
+                    return BadRequest($"offset phải >= 0 và limit trong khoảng 1..{MaxPageSize}");
+                }
+
+                var items = await _orderService.GetOrdersByCreatorPageAsync(userId, afterId, offset, limit);
+                return Ok(new OrderPageDto
+                {
+                    Items = items,
+                    TotalCount = await _orderService.CountOrdersByCreatorAsync(userId),
+                    NextAfterId = items.Count == limit ? items[^1].OrderId : null
+                });
+            }
+            catch (Exception ex)
+            {
+                _logger.LogError(ex, "Error getting my orders page");
+                return StatusCode(500, "Lỗi khi lấy danh sách đơn hàng của tôi");
+            }
+        }
+
+        private const int DefaultPageSize = 50;
+        private const int MaxPageSize = 200;
+
         /// <summary>
         /// Lấy đơn hàng theo ID
         /// </summary>
         [HttpGet("{id}")]
+        [ETag]
         public async Task<ActionResult<Order>> GetOrderById(int id)
         {
             try
@@ -171,6 +212,8 @@ namespace DeliveryManagementAPI.Controllers
                              orderDto.PaymentMethod == PaymentMethod.ThanhToanTrucTuyen,
                     
                     DeliveryType = orderDto.DeliveryType,
+                    DeliveryLatitude = orderDto.DeliveryLatitude,
+                    DeliveryLongitude = orderDto.DeliveryLongitude,
                     Status = OrderStatus.ChuaNhan,
                     Notes = orderDto.Notes
                 };
@@ -191,9 +234,11 @@ namespace DeliveryManagementAPI.Controllers
 
         /// <summary>
         /// Cập nhật trạng thái đơn hàng
+        /// App gửi kèm header Idempotency-Key để gửi lại an toàn khi mất mạng
         /// </summary>
         [HttpPatch("{id}/status")]
         [Authorize(Roles = "admin,shipper")] // Chỉ admin và shipper được cập nhật trạng thái
+        [Idempotent]
         public async Task<ActionResult<Order>> UpdateOrderStatus(
             int id, 
             [FromBody] UpdateOrderStatusDto statusDto)
@@ -335,6 +380,7 @@ namespace DeliveryManagementAPI.Controllers
         /// Lấy đơn hàng theo nhân viên giao hàng
         /// </summary>
         [HttpGet("staff/{staffId}")]
+        [ETag]
         public async Task<ActionResult<List<Order>>> GetOrdersByStaff(int staffId)
         {
             try
@@ -349,6 +395,157 @@ namespace DeliveryManagementAPI.Controllers
             }
         }
 
+        /// <summary>
+        /// Delta sync: chỉ trả về đơn hàng của nhân viên đã thay đổi kể từ cursor lần trước,
+        /// cùng OrderId các đơn đã bị xoá hoặc gỡ khỏi nhân viên (Removed) để client xoá khỏi danh sách.
+        /// Không có since thì trả toàn bộ danh sách kèm cursor mới (có limit thì trả theo trang, xem NextAfterId).
+        /// Cursor không hợp lệ hoặc quá cũ thì trả 410 để client tải lại toàn bộ.
+        /// </summary>
+        [HttpGet("staff/{staffId}/changes")]
+        public async Task<ActionResult<OrderChangesDto>> GetOrderChangesByStaff(int staffId, [FromQuery] string? since,
+            [FromQuery] int? afterId, [FromQuery] int? limit)
+        {
+            try
+            {
+                if (string.IsNullOrEmpty(since) && limit.HasValue)
+                {
+                    // Snapshot đầy đủ theo từng trang để lần đồng bộ đầu không phải tải cả lịch sử trong một response
+                    if (limit.Value < 1 || limit.Value > MaxPageSize)
+                    {
+                        return BadRequest($"limit phải trong khoảng 1..{MaxPageSize}");
+                    }
+                    return Ok(await GetSnapshotPageAsync(staffId, afterId, limit.Value));
+                }
+
+                DateTime? sinceTime = null;
+                if (!string.IsNullOrEmpty(since))
+                {
+                    sinceTime = ParseSyncCursor(since);
+                    if (sinceTime == null)
+                    {
+                        return StatusCode(StatusCodes.Status410Gone, "Cursor không hợp lệ hoặc đã hết hạn, cần đồng bộ lại toàn bộ");
+                    }
+                }
+
+                // Lùi lại một khoảng nhỏ để không bỏ sót đơn được ghi cùng lúc với lần sync trước;
+                // client gộp theo OrderId nên nhận trùng không sao
+                var changed = await _orderService.GetOrdersByStaffChangedSinceAsync(
+                    staffId, sinceTime?.Subtract(SyncCursorOverlap));
+                var removals = sinceTime.HasValue
+                    ? await _orderService.GetOrderRemovalsByStaffSinceAsync(staffId, sinceTime.Value.Subtract(SyncCursorOverlap))
+                    : new List<OrderRemoval>();
+                var highWater = changed.Count > 0 ? changed.Max(o => o.LastModified) : (sinceTime ?? DateTime.Now);
+                foreach (var removal in removals)
+                {
+                    if (removal.RemovedAt > highWater) highWater = removal.RemovedAt;
+                }
+                if (sinceTime.HasValue && sinceTime.Value > highWater)
+                {
+                    highWater = sinceTime.Value;
+                }
+
+                return Ok(new OrderChangesDto
+                {
+                    Cursor = "1." + highWater.Ticks,
+                    FullSnapshot = sinceTime == null,
+                    Changed = changed,
+                    Removed = removals.Select(r => r.OrderId).Distinct().ToList(),
+                    ActiveCount = sinceTime == null
+                        ? changed.Count
+                        : await _orderService.CountOrdersByStaffIdAsync(staffId)
+                });
+            }
+            catch (Exception ex)
+            {
+                _logger.LogError(ex, "Error getting order changes by staff: {StaffId}", staffId);
+                return StatusCode(500, "Lỗi khi lấy danh sách đơn hàng");
+            }
+        }
+
+        /// <summary>
+        /// Dữ liệu mở màn hình danh sách đơn trong một request: hồ sơ nhân viên kèm trang đầu snapshot đơn được gán
+        /// (các trang sau lấy qua staff/{staffId}/changes với afterId), hoặc trang đầu "đơn của tôi" nếu không phải nhân viên.
+        /// App gọi khi chưa biết StaffId (token cũ không có claim, chưa lưu hồ sơ nhân viên)
+        /// </summary>
+        [HttpGet("bootstrap")]
+        [Authorize(Roles = "customer,admin,shipper")]
+        public async Task<ActionResult<OrderBootstrapDto>> GetBootstrap([FromQuery] int limit = DefaultPageSize)
+        {
+            try
+            {
+                if (limit < 1 || limit > MaxPageSize)
+                {
+                    return BadRequest($"limit phải trong khoảng 1..{MaxPageSize}");
+                }
+
+                var result = new OrderBootstrapDto();
+                if (User.IsInRole("shipper") || User.IsInRole("admin"))
+                {
+                    result.Staff = await _staffService.GetForUserAsync(User);
+                }
+                if (result.Staff != null)
+                {
+                    result.OrderChanges = await GetSnapshotPageAsync(result.Staff.StaffId, null, limit);
+                    return Ok(result);
+                }
+
+                var userIdClaim = User.Claims.FirstOrDefault(c => c.Type == System.Security.Claims.ClaimTypes.NameIdentifier)?.Value;
+                if (string.IsNullOrEmpty(userIdClaim) || !int.TryParse(userIdClaim, out var userId))
+                {
+                    return Unauthorized(new { message = "Không xác định được người dùng từ token" });
+                }
+                var items = await _orderService.GetOrdersByCreatorPageAsync(userId, null, 0, limit);
+                result.MyOrders = new OrderPageDto
+                {
+                    Items = items,
+                    TotalCount = await _orderService.CountOrdersByCreatorAsync(userId),
+                    NextAfterId = items.Count == limit ? items[^1].OrderId : null
+                };
+                return Ok(result);
+            }
+            catch (Exception ex)
+            {
+                _logger.LogError(ex, "Error getting order list bootstrap");
+                return StatusCode(500, "Lỗi khi lấy danh sách đơn hàng");
+            }
+        }
+
+        // Một trang snapshot đầy đủ (keyset theo OrderId). Cursor lấy trước khi đọc trang nên đơn đổi trong lúc
+        // client đang tải các trang sau vẫn được lần delta sync kế tiếp trả về
+        private async Task<OrderChangesDto> GetSnapshotPageAsync(int staffId, int? afterId, int limit)
+        {
+            var cursorTime = DateTime.Now;
+            var page = await _orderService.GetOrdersByStaffPageAsync(staffId, afterId, limit);
+            return new OrderChangesDto
+            {
+                Cursor = "1." + cursorTime.Ticks,
+                FullSnapshot = true,
+                Changed = page,
+                ActiveCount = await _orderService.CountOrdersByStaffIdAsync(staffId),
+                NextAfterId = page.Count == limit ? page[^1].OrderId : null
+            };
+        }
+
+        private static readonly TimeSpan SyncCursorOverlap = TimeSpan.FromSeconds(5);
+        private static readonly TimeSpan SyncCursorMaxAge = TimeSpan.FromDays(30);
+
+        // Cursor dạng "1.<ticks>"; trả null nếu sai định dạng, ở tương lai hoặc quá cũ
+        private static DateTime? ParseSyncCursor(string cursor)
+        {
+            if (!cursor.StartsWith("1.") || !long.TryParse(cursor.Substring(2), out var ticks)
+                || ticks < DateTime.MinValue.Ticks || ticks > DateTime.MaxValue.Ticks)
+            {
+                return null;
+            }
+            var time = new DateTime(ticks);
+            var now = DateTime.Now;
+            if (time > now.AddMinutes(1) || time < now - SyncCursorMaxAge)
+            {
+                return null;
+            }
+            return time;
+        }
+
         /// <summary>
         /// Xóa đơn hàng
         /// </summary>
@@ -1,4 +1,5 @@
 using Microsoft.AspNetCore.Mvc;
+using DeliveryManagementAPI.Filters;
 using DeliveryManagementAPI.Models;
 using DeliveryManagementAPI.Services;
 using Microsoft.AspNetCore.Authorization;
@@ -13,6 +14,10 @@ namespace DeliveryManagementAPI.Controllers
         private readonly CheckpointService _checkpointService;
         private readonly ILogger<TrackingController> _logger;
 
+        private const int MaxBatchCheckIns = 500;
+        private const int MaxMultiOrderCheckIns = 10000; // tổng số cặp (vị trí, đơn hàng) mỗi request
+        private const int MaxCheckpointPage = 1000;
+
         public TrackingController(
             OrderService orderService,
             CheckpointService checkpointService,
@@ -24,14 +29,22 @@ namespace DeliveryManagementAPI.Controllers
         }
 
         /// <summary>
-        /// Lấy lịch sử check-in của đơn hàng
+        /// Lấy lịch sử check-in của đơn hàng.
+        /// Có limit thì trả theo trang, tăng dần theo CheckpointId; truyền afterId (CheckpointId cuối của trang trước) để lấy trang tiếp
         /// </summary>
         [HttpGet("order/{orderId}")]
+        [ETag]
         [Authorize] // Tất cả user đã đăng nhập có thể xem
-        public async Task<ActionResult<List<LocationCheckpoint>>> GetOrderCheckpoints(int orderId)
+        public async Task<ActionResult<List<LocationCheckpoint>>> GetOrderCheckpoints(
+            int orderId, [FromQuery] int? afterId, [FromQuery] int? limit)
         {
             try
             {
+                if (limit.HasValue && (limit.Value < 1 || limit.Value > MaxCheckpointPage))
+                {
+                    return BadRequest($"limit phải trong khoảng 1..{MaxCheckpointPage}");
+                }
+
                 var order = await _orderService.GetOrderByIdAsync(orderId);
                 
                 if (order == null)
@@ -39,7 +52,9 @@ namespace DeliveryManagementAPI.Controllers
                     return NotFound($"Không tìm thấy đơn hàng với ID: {orderId}");
                 }
 
-                var checkpoints = await _checkpointService.GetCheckpointsByOrderIdAsync(orderId);
+                var checkpoints = limit.HasValue
+                    ? await _checkpointService.GetCheckpointsPageAsync(orderId, afterId, limit.Value)
+                    : await _checkpointService.GetCheckpointsByOrderIdAsync(orderId);
                 return Ok(checkpoints);
             }
             catch (Exception ex)
@@ -78,6 +93,65 @@ namespace DeliveryManagementAPI.Controllers
             }
         }
 
+        /// <summary>
+        /// Check-in nhiều vị trí trong một request (app shipper gửi theo batch thay vì từng điểm)
+        /// </summary>
+        [HttpPost("checkin/batch")]
+        [Authorize(Roles = "admin,shipper")]
+        public async Task<ActionResult<BatchCheckInResult>> CheckInBatch(
+            [FromBody] List<LocationCheckpoint> checkpoints)
+        {
+            try
+            {
+                if (checkpoints.Count > MaxBatchCheckIns)
+                {
+                    return BadRequest($"Tối đa {MaxBatchCheckIns} vị trí mỗi lần check-in");
+                }
+
+                var result = await _checkpointService.AddCheckpointsBatchAsync(checkpoints);
+                return Ok(result);
+            }
+            catch (Exception ex)
+            {
+                _logger.LogError(ex, "Error creating checkpoint batch");
+                return StatusCode(500, "Lỗi khi check-in vị trí");
+            }
+        }
+
+        /// <summary>
+        /// Check-in nhiều vị trí, mỗi vị trí cho nhiều đơn hàng (app shipper theo dõi cả ca: một lần định vị
+        /// áp cho mọi đơn đang giao). Kết quả đếm theo từng đơn
+        /// </summary>
+        [HttpPost("checkin/multi")]
+        [Authorize(Roles = "admin,shipper")]
+        public async Task<ActionResult<BatchCheckInResult>> CheckInMulti(
+            [FromBody] List<MultiOrderCheckInDto> fixes)
+        {
+            try
+            {
+                if (fixes.Count > MaxBatchCheckIns)
+                {
+                    return BadRequest($"Tối đa {MaxBatchCheckIns} vị trí mỗi lần check-in");
+                }
+                if (fixes.Sum(f => f.OrderIds?.Count ?? 0) > MaxMultiOrderCheckIns)
+                {
+                    return BadRequest($"Tối đa {MaxMultiOrderCheckIns} lượt check-in đơn hàng mỗi lần");
+                }
+                if (fixes.Any(f => f.OrderIds == null || f.OrderIds.Count == 0))
+                {
+                    return BadRequest("Mỗi vị trí phải có ít nhất một đơn hàng");
+                }
+
+                var result = await _checkpointService.AddMultiOrderCheckInsAsync(fixes);
+                return Ok(result);
+            }
+            catch (Exception ex)
+            {
+                _logger.LogError(ex, "Error creating multi-order checkpoints");
+                return StatusCode(500, "Lỗi khi check-in vị trí");
+            }
+        }
+
         /// <summary>
         /// Theo dõi đơn hàng theo mã đơn hàng
         /// </summary>
@@ -12,6 +12,7 @@ namespace DeliveryManagementAPI
         public DbSet<DeliveryStaff> DeliveryStaffs { get; set; }
         public DbSet<LocationCheckpoint> LocationCheckpoints { get; set; }
         public DbSet<Customer> Customers { get; set; }
+        public DbSet<OrderRemoval> OrderRemovals { get; set; }
 
     public DbSet<Feedback> Feedbacks { get; set; }
 
@@ -27,6 +28,58 @@ namespace DeliveryManagementAPI
             modelBuilder.Entity<Order>()
                 .Property(o => o.CollectionAmount)
                 .HasPrecision(18, 2);
+
+            modelBuilder.Entity<Order>()
+                .HasIndex(o => o.LastModified);
+
+            modelBuilder.Entity<OrderRemoval>()
+                .HasIndex(r => new { r.StaffId, r.RemovedAt });
+        }
+
+        public override int SaveChanges(bool acceptAllChangesOnSuccess)
+        {
+            StampOrders();
+            return base.SaveChanges(acceptAllChangesOnSuccess);
+        }
+
+        public override Task<int> SaveChangesAsync(bool acceptAllChangesOnSuccess, CancellationToken cancellationToken = default)
+        {
+            StampOrders();
+            return base.SaveChangesAsync(acceptAllChangesOnSuccess, cancellationToken);
+        }
+
+        // Mọi thay đổi đơn hàng (tạo, đổi trạng thái, gán nhân viên...) đều cập nhật LastModified;
+        // đơn bị xoá hoặc gỡ khỏi nhân viên để lại dấu xoá cho delta sync của nhân viên cũ
+        private void StampOrders()
+        {
+            var now = DateTime.Now;
+            var removals = new List<OrderRemoval>();
+            foreach (var entry in ChangeTracker.Entries<Order>())
+            {
+                if (entry.State == EntityState.Added || entry.State == EntityState.Modified)
+                {
+                    entry.Entity.LastModified = now;
+                }
+
+                string? previousStaff = null;
+                if (entry.State == EntityState.Deleted)
+                {
+                    previousStaff = entry.Property(o => o.AssignedStaffId).OriginalValue;
+                }
+                else if (entry.State == EntityState.Modified)
+                {
+                    var staff = entry.Property(o => o.AssignedStaffId);
+                    if (staff.IsModified && staff.OriginalValue != staff.CurrentValue)
+                    {
+                        previousStaff = staff.OriginalValue;
+                    }
+                }
+                if (!string.IsNullOrEmpty(previousStaff))
+                {
+                    removals.Add(new OrderRemoval { OrderId = entry.Entity.OrderId, StaffId = previousStaff, RemovedAt = now });
+                }
+            }
+            OrderRemovals.AddRange(removals);
         }
     }
 }
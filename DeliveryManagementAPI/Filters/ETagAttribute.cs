@@ -0,0 +1,49 @@
+using System.Security.Cryptography;
+using System.Text.Json;
+using Microsoft.AspNetCore.Mvc;
+using Microsoft.AspNetCore.Mvc.Filters;
+using Microsoft.Extensions.Options;
+using Microsoft.Net.Http.Headers;
+
+namespace DeliveryManagementAPI.Filters
+{
+    /// <summary>
+    /// Gắn ETag cho response GET và trả 304 Not Modified khi client gửi If-None-Match trùng khớp.
+    /// App shipper dùng để không phải tải lại danh sách/chi tiết đơn hàng khi dữ liệu không đổi.
+    /// </summary>
+    [AttributeUsage(AttributeTargets.Method | AttributeTargets.Class)]
+    public class ETagAttribute : ActionFilterAttribute
+    {
+        public override async Task OnResultExecutionAsync(ResultExecutingContext context, ResultExecutionDelegate next)
+        {
+            var request = context.HttpContext.Request;
+            if (HttpMethods.IsGet(request.Method)
+                && context.Result is ObjectResult { Value: not null } result
+                && (result.StatusCode ?? StatusCodes.Status200OK) == StatusCodes.Status200OK)
+            {
+                var jsonOptions = context.HttpContext.RequestServices
+                    .GetRequiredService<IOptions<Microsoft.AspNetCore.Mvc.JsonOptions>>().Value.JsonSerializerOptions;
+                var body = JsonSerializer.SerializeToUtf8Bytes(result.Value, result.Value.GetType(), jsonOptions);
+                var etag = "\"" + Convert.ToHexString(SHA256.HashData(body), 0, 16) + "\"";
+
+                var response = context.HttpContext.Response;
+                response.Headers[HeaderNames.ETag] = etag;
+                // Cho phép client lưu cache nhưng luôn phải hỏi lại server (revalidate) trước khi dùng
+                response.Headers[HeaderNames.CacheControl] = "private, no-cache";
+
+                var ifNoneMatch = request.Headers[HeaderNames.IfNoneMatch];
+                if (ifNoneMatch.Any(v => v != null && v.Split(',').Any(t => t.Trim() == etag || t.Trim() == "*")))
+                {
+                    context.Result = new StatusCodeResult(StatusCodes.Status304NotModified);
+                }
+                else
+                {
+                    // Body đã được serialize để tính hash, ghi thẳng ra để không serialize lần hai
+                    context.Result = new FileContentResult(body, "application/json; charset=utf-8");
+                }
+            }
+
+            await next();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+using System.Security.Claims;
+using System.Text.Json;
+using Microsoft.AspNetCore.Mvc;
+using Microsoft.AspNetCore.Mvc.Filters;
+using Microsoft.Extensions.Caching.Memory;
+using Microsoft.Extensions.Options;
+
+namespace DeliveryManagementAPI.Filters
+{
+    /// <summary>
+    /// Chống xử lý trùng request có header Idempotency-Key.
+    /// App shipper tự gửi lại cập nhật trạng thái khi mạng chập chờn; request lặp lại cùng key
+    /// sẽ nhận lại đúng response lần đầu thay vì cập nhật đơn hàng thêm một lần nữa.
+    /// </summary>
+    [AttributeUsage(AttributeTargets.Method)]
+    public class IdempotentAttribute : ActionFilterAttribute
+    {
+        public const string HeaderName = "Idempotency-Key";
+        private static readonly TimeSpan Retention = TimeSpan.FromHours(24);
+        private static readonly object Gate = new();
+
+        private sealed class StoredResponse
+        {
+            public TaskCompletionSource<bool> Completed { get; } =
+                new(TaskCreationOptions.RunContinuationsAsynchronously);
+            public int StatusCode { get; set; }
+            public string? Body { get; set; }
+        }
+
+        public override async Task OnActionExecutionAsync(ActionExecutingContext context, ActionExecutionDelegate next)
+        {
+            var http = context.HttpContext;
+            var key = http.Request.Headers[HeaderName].ToString();
+            if (string.IsNullOrWhiteSpace(key) || key.Length > 100)
+            {
+                await next();
+                return;
+            }
+
+            var cache = http.RequestServices.GetRequiredService<IMemoryCache>();
+            var userId = http.User.FindFirst(ClaimTypes.NameIdentifier)?.Value ?? "";
+            var cacheKey = $"idem:{userId}:{http.Request.Path}:{key}";
+
+            StoredResponse? stored;
+            bool owner = false;
+            lock (Gate)
+            {
+                if (!cache.TryGetValue(cacheKey, out stored) || stored == null)
+                {
+                    stored = new StoredResponse();
+                    cache.Set(cacheKey, stored, Retention);
+                    owner = true;
+                }
+            }
+
+            if (!owner)
+            {
+                // Request trùng: chờ lần xử lý đầu tiên (nếu còn đang chạy) rồi trả lại kết quả của nó
+                var succeeded = await stored.Completed.Task;
+                if (!succeeded)
+                {
+                    context.Result = new ConflictObjectResult("Request trước với cùng Idempotency-Key chưa thành công, vui lòng thử lại");
+                    return;
+                }
+                http.Response.Headers["Idempotent-Replayed"] = "true";
+                context.Result = new ContentResult
+                {
+                    StatusCode = stored.StatusCode,
+                    Content = stored.Body,
+                    ContentType = "application/json; charset=utf-8"
+                };
+                return;
+            }
+
+            var executed = await next();
+            if (executed.Exception == null
+                && executed.Result is ObjectResult result
+                && (result.StatusCode ?? StatusCodes.Status200OK) is >= 200 and < 300)
+            {
+                var jsonOptions = http.RequestServices
+                    .GetRequiredService<IOptions<Microsoft.AspNetCore.Mvc.JsonOptions>>().Value.JsonSerializerOptions;
+                stored.StatusCode = result.StatusCode ?? StatusCodes.Status200OK;
+                stored.Body = result.Value == null
+                    ? null
+                    : JsonSerializer.Serialize(result.Value, result.Value.GetType(), jsonOptions);
+                stored.Completed.TrySetResult(true);
+            }
+            else
+            {
+                // Lỗi thì không ghi nhớ, để client gửi lại cùng key vẫn được xử lý
+                cache.Remove(cacheKey);
+                stored.Completed.TrySetResult(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+﻿using System;
+using Microsoft.EntityFrameworkCore.Migrations;
+
+#nullable disable
+
+namespace DeliveryManagementAPI.Migrations
+{
+    /// <inheritdoc />
+    public partial class AddLastModifiedToOrders : Migration
+    {
+        /// <inheritdoc />
+        protected override void Up(MigrationBuilder migrationBuilder)
+        {
+            migrationBuilder.AddColumn<DateTime>(
+                name: "LastModified",
+                table: "Orders",
+                type: "datetime2",
+                nullable: false,
+                defaultValue: new DateTime(1, 1, 1, 0, 0, 0, 0, DateTimeKind.Unspecified));
+
+            // Đơn hàng cũ: lấy mốc thay đổi gần nhất đã biết
+            migrationBuilder.Sql(
+                "UPDATE Orders SET LastModified = COALESCE(DeliveredDate, DeliveryStartDate, ReceivedDate, CreatedDate)");
+
+            migrationBuilder.CreateIndex(
+                name: "IX_Orders_LastModified",
+                table: "Orders",
+                column: "LastModified");
+        }
+
+        /// <inheritdoc />
+        protected override void Down(MigrationBuilder migrationBuilder)
+        {
+            migrationBuilder.DropIndex(
+                name: "IX_Orders_LastModified",
+                table: "Orders");
+
+            migrationBuilder.DropColumn(
+                name: "LastModified",
+                table: "Orders");
+        }
+    }
+}
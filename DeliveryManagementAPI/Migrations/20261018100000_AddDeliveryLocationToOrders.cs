@@ -0,0 +1,38 @@
+﻿using Microsoft.EntityFrameworkCore.Migrations;
+
+#nullable disable
+
+namespace DeliveryManagementAPI.Migrations
+{
+    /// <inheritdoc />
+    public partial class AddDeliveryLocationToOrders : Migration
+    {
+        /// <inheritdoc />
+        protected override void Up(MigrationBuilder migrationBuilder)
+        {
+            migrationBuilder.AddColumn<double>(
+                name: "DeliveryLatitude",
+                table: "Orders",
+                type: "float",
+                nullable: true);
+
+            migrationBuilder.AddColumn<double>(
+                name: "DeliveryLongitude",
+                table: "Orders",
+                type: "float",
+                nullable: true);
+        }
+
+        /// <inheritdoc />
+        protected override void Down(MigrationBuilder migrationBuilder)
+        {
+            migrationBuilder.DropColumn(
+                name: "DeliveryLatitude",
+                table: "Orders");
+
+            migrationBuilder.DropColumn(
+                name: "DeliveryLongitude",
+                table: "Orders");
+        }
+    }
+}
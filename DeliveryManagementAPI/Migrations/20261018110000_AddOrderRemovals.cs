@@ -0,0 +1,42 @@
+﻿using System;
+using Microsoft.EntityFrameworkCore.Migrations;
+
+#nullable disable
+
+namespace DeliveryManagementAPI.Migrations
+{
+    /// <inheritdoc />
+    public partial class AddOrderRemovals : Migration
+    {
+        /// <inheritdoc />
+        protected override void Up(MigrationBuilder migrationBuilder)
+        {
+            migrationBuilder.CreateTable(
+                name: "OrderRemovals",
+                columns: table => new
+                {
+                    OrderRemovalId = table.Column<int>(type: "int", nullable: false)
+                        .Annotation("SqlServer:Identity", "1, 1"),
+                    OrderId = table.Column<int>(type: "int", nullable: false),
+                    StaffId = table.Column<string>(type: "nvarchar(450)", nullable: false),
+                    RemovedAt = table.Column<DateTime>(type: "datetime2", nullable: false)
+                },
+                constraints: table =>
+                {
+                    table.PrimaryKey("PK_OrderRemovals", x => x.OrderRemovalId);
+                });
+
+            migrationBuilder.CreateIndex(
+                name: "IX_OrderRemovals_StaffId_RemovedAt",
+                table: "OrderRemovals",
+                columns: new[] { "StaffId", "RemovedAt" });
+        }
+
+        /// <inheritdoc />
+        protected override void Down(MigrationBuilder migrationBuilder)
+        {
+            migrationBuilder.DropTable(
+                name: "OrderRemovals");
+        }
+    }
+}
@@ -194,6 +194,12 @@ namespace DeliveryManagementAPI.Migrations
                     b.Property<DateTime?>("DeliveredDate")
                         .HasColumnType("datetime2");
 
+                    b.Property<double?>("DeliveryLatitude")
+                        .HasColumnType("float");
+
+                    b.Property<double?>("DeliveryLongitude")
+                        .HasColumnType("float");
+
                     b.Property<DateTime?>("DeliveryStartDate")
                         .HasColumnType("datetime2");
 
@@ -215,6 +221,9 @@ namespace DeliveryManagementAPI.Migrations
                     b.Property<bool>("IsVehicle")
                         .HasColumnType("bit");
 
+                    b.Property<DateTime>("LastModified")
+                        .HasColumnType("datetime2");
+
                     b.Property<string>("Notes")
                         .IsRequired()
                         .HasColumnType("nvarchar(max)");
@@ -262,9 +271,36 @@ namespace DeliveryManagementAPI.Migrations
 
                     b.HasIndex("CustomerId");
 
+                    b.HasIndex("LastModified");
+
                     b.ToTable("Orders");
                 });
 
+            modelBuilder.Entity("DeliveryManagementAPI.Models.OrderRemoval", b =>
+                {
+                    b.Property<int>("OrderRemovalId")
+                        .ValueGeneratedOnAdd()
+                        .HasColumnType("int");
+
+                    SqlServerPropertyBuilderExtensions.UseIdentityColumn(b.Property<int>("OrderRemovalId"));
+
+                    b.Property<int>("OrderId")
+                        .HasColumnType("int");
+
+                    b.Property<DateTime>("RemovedAt")
+                        .HasColumnType("datetime2");
+
+                    b.Property<string>("StaffId")
+                        .IsRequired()
+                        .HasColumnType("nvarchar(450)");
+
+                    b.HasKey("OrderRemovalId");
+
+                    b.HasIndex("StaffId", "RemovedAt");
+
+                    b.ToTable("OrderRemovals");
+                });
+
             modelBuilder.Entity("DeliveryManagementAPI.Models.UserAccount", b =>
                 {
                     b.Property<int>("UserId")
@@ -0,0 +1,12 @@
+namespace DeliveryManagementAPI.Models
+{
+    /// <summary>
+    /// Kết quả check-in hàng loạt (app shipper gửi nhiều vị trí trong một request)
+    /// </summary>
+    public class BatchCheckInResult
+    {
+        public int Accepted { get; set; }   // Số vị trí đã lưu
+        public int Duplicates { get; set; } // Đã lưu từ lần gửi trước (client gửi lại khi mất mạng)
+        public int Rejected { get; set; }   // Đơn hàng không tồn tại
+    }
+}
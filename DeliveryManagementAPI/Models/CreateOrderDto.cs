@@ -14,6 +14,8 @@ namespace DeliveryManagementAPI.Models
         public string Ward { get; set; } = string.Empty;
         public string District { get; set; } = string.Empty;
         public string City { get; set; } = string.Empty;
+        public double? DeliveryLatitude { get; set; }
+        public double? DeliveryLongitude { get; set; }
         
         // Thông tin hàng hóa
         public string ProductCode { get; set; } = string.Empty;
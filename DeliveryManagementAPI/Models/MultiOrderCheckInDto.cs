@@ -0,0 +1,14 @@
+namespace DeliveryManagementAPI.Models
+{
+    /// <summary>
+    /// Một vị trí check-in cho nhiều đơn hàng cùng lúc (shipper đang chở nhiều đơn, mỗi lần định vị gửi một lần)
+    /// </summary>
+    public class MultiOrderCheckInDto
+    {
+        public List<int> OrderIds { get; set; } = new List<int>();
+        public double Latitude { get; set; }  // Vĩ độ
+        public double Longitude { get; set; } // Kinh độ
+        public DateTime CheckInTime { get; set; }
+        public string Notes { get; set; } = string.Empty;
+    }
+}
@@ -45,6 +45,10 @@ namespace DeliveryManagementAPI.Models
         public OrderStatus Status { get; set; } = OrderStatus.ChuaNhan;
         public string? AssignedStaffId { get; set; } // Nhân viên được gán
         public DeliveryStaff? AssignedStaff { get; set; }
+
+        // Toạ độ điểm giao (nếu có); app shipper dùng để tự check-in khi đến nơi
+        public double? DeliveryLatitude { get; set; }
+        public double? DeliveryLongitude { get; set; }
         
         // Thông tin giao hàng thực tế
         public DateTime? ReceivedDate { get; set; } // Ngày nhận hàng
@@ -60,5 +64,8 @@ namespace DeliveryManagementAPI.Models
         // Xác nhận đã nhận hàng bởi khách
         public bool ConfirmedReceived { get; set; } // Đã xác nhận nhận hàng
         public DateTime? ConfirmedAt { get; set; } // Thời điểm xác nhận
+
+        // Lần thay đổi gần nhất, tự cập nhật trong DeliveryDbContext.SaveChanges (dùng cho delta sync của app shipper)
+        public DateTime LastModified { get; set; } = DateTime.Now;
     }
 }
@@ -0,0 +1,12 @@
+namespace DeliveryManagementAPI.Models
+{
+    /// <summary>
+    /// Dữ liệu mở màn hình danh sách đơn của app shipper, gộp trong một request
+    /// </summary>
+    public class OrderBootstrapDto
+    {
+        public DeliveryStaff? Staff { get; set; }            // null: người dùng không phải nhân viên giao hàng
+        public OrderChangesDto? OrderChanges { get; set; }   // Khi là nhân viên: trang đầu snapshot đơn được gán
+        public OrderPageDto? MyOrders { get; set; }          // Khi không phải nhân viên: trang đầu "đơn của tôi"
+    }
+}
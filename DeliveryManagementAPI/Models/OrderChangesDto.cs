@@ -0,0 +1,15 @@
+namespace DeliveryManagementAPI.Models
+{
+    /// <summary>
+    /// Kết quả delta sync đơn hàng của nhân viên (app shipper chỉ tải những đơn đã thay đổi)
+    /// </summary>
+    public class OrderChangesDto
+    {
+        public string Cursor { get; set; } = string.Empty;   // Gửi lại ở lần sync sau (tham số since)
+        public bool FullSnapshot { get; set; }               // true: Changed là toàn bộ danh sách
+        public List<Order> Changed { get; set; } = new List<Order>();
+        public int ActiveCount { get; set; }                 // Tổng số đơn đang gán, để client kiểm tra lại danh sách
+        public List<int> Removed { get; set; } = new List<int>(); // Đơn bị xoá/gỡ khỏi nhân viên kể từ cursor (rỗng khi FullSnapshot)
+        public int? NextAfterId { get; set; }                // Snapshot theo trang: afterId của trang sau, null khi hết
+    }
+}
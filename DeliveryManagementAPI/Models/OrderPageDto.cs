@@ -0,0 +1,12 @@
+namespace DeliveryManagementAPI.Models
+{
+    /// <summary>
+    /// Một trang danh sách đơn hàng (app shipper tải dần khi cuộn)
+    /// </summary>
+    public class OrderPageDto
+    {
+        public List<Order> Items { get; set; } = new List<Order>();
+        public int TotalCount { get; set; }       // Tổng số đơn của cả danh sách
+        public int? NextAfterId { get; set; }     // Gửi lại làm afterId để lấy trang sau; null khi hết
+    }
+}
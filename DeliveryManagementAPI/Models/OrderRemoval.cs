@@ -0,0 +1,15 @@
+namespace DeliveryManagementAPI.Models
+{
+    /// <summary>
+    /// Dấu xoá: đơn hàng đã bị xoá hoặc gỡ khỏi một nhân viên (gán cho người khác / bỏ gán).
+    /// Delta sync trả các OrderId này để app shipper xoá đơn khỏi danh sách đã lưu
+    /// </summary>
+    public class OrderRemoval
+    {
+        [System.ComponentModel.DataAnnotations.Key]
+        public int OrderRemovalId { get; set; }
+        public int OrderId { get; set; }
+        public string StaffId { get; set; } = string.Empty; // Nhân viên trước đó được gán (như Order.AssignedStaffId)
+        public DateTime RemovedAt { get; set; }
+    }
+}
@@ -7,6 +7,8 @@ using Microsoft.AspNetCore.Authentication.JwtBearer;
 using Microsoft.IdentityModel.Tokens;
 using System.Text;
 using Microsoft.OpenApi.Models;
+using Microsoft.AspNetCore.ResponseCompression;
+using System.IO.Compression;
 
 var builder = WebApplication.CreateBuilder(args);
 
@@ -24,6 +26,21 @@ builder.Services.AddScoped<CheckpointService>();
 builder.Services.AddScoped<UserAccountService>();
 builder.Services.AddSingleton<ShippingFeeService>();
 
+// Ghi nhớ Idempotency-Key của các request cập nhật trạng thái (xem IdempotentAttribute)
+builder.Services.AddMemoryCache();
+
+// Nén gzip response JSON (danh sách đơn, lịch sử check-in) khi client gửi Accept-Encoding: gzip.
+// Token JWT đi qua header Authorization, không dùng cookie, nên bật nén cả trên HTTPS.
+builder.Services.AddResponseCompression(options =>
+{
+    options.EnableForHttps = true;
+    options.Providers.Add<GzipCompressionProvider>();
+});
+builder.Services.Configure<GzipCompressionProviderOptions>(options => options.Level = CompressionLevel.Fastest);
+
+// Giải nén body request có Content-Encoding: gzip (app shipper nén các lô check-in lớn)
+builder.Services.AddRequestDecompression();
+
 // Giữ lại JsonDataService cho việc migration dữ liệu (có thể xóa sau)
 builder.Services.AddSingleton<JsonDataService>();
 
@@ -152,6 +169,9 @@ if (app.Environment.IsDevelopment())
 
 app.UseHttpsRedirection();
 
+app.UseResponseCompression();
+app.UseRequestDecompression();
+
 app.UseCors("AllowAll");
 
 app.UseAuthentication();
@@ -24,15 +24,110 @@ namespace DeliveryManagementAPI.Services
                 .ToListAsync();
         }
 
-        // Thêm checkpoint mới
+        // Một trang checkpoint của đơn hàng theo keyset (CheckpointId tăng dần), cho màn xem lộ trình
+        public async Task<List<LocationCheckpoint>> GetCheckpointsPageAsync(int orderId, int? afterId, int limit)
+        {
+            var query = _context.LocationCheckpoints
+                .AsNoTracking()
+                .Where(c => c.OrderId == orderId);
+            if (afterId.HasValue)
+            {
+                query = query.Where(c => c.CheckpointId > afterId.Value);
+            }
+            return await query
+                .OrderBy(c => c.CheckpointId)
+                .Take(limit)
+                .ToListAsync();
+        }
+
+        // Thêm checkpoint mới. Giữ thời gian client gửi (nếu có) để khi client gửi lại cùng vị trí
+        // qua check-in hàng loạt (request trước bị timeout nhưng server đã lưu) thì được nhận là trùng
         public async Task<LocationCheckpoint> AddCheckpointAsync(LocationCheckpoint checkpoint)
         {
-            checkpoint.CheckInTime = DateTime.Now;
+            if (checkpoint.CheckInTime == default)
+            {
+                checkpoint.CheckInTime = DateTime.Now;
+            }
             _context.LocationCheckpoints.Add(checkpoint);
             await _context.SaveChangesAsync();
             return checkpoint;
         }
 
+        // Thêm nhiều checkpoint một lần (check-in hàng loạt từ app shipper).
+        // Giữ thời gian client ghi nhận vị trí; bỏ qua các điểm đã lưu (cùng đơn, thời gian, toạ độ)
+        // để client gửi lại một batch khi mất mạng không tạo bản ghi trùng.
+        public async Task<BatchCheckInResult> AddCheckpointsBatchAsync(List<LocationCheckpoint> checkpoints)
+        {
+            var result = new BatchCheckInResult();
+            if (checkpoints.Count == 0)
+            {
+                return result;
+            }
+
+            var now = DateTime.Now;
+            foreach (var cp in checkpoints)
+            {
+                cp.CheckpointId = 0;
+                if (cp.CheckInTime == default)
+                {
+                    cp.CheckInTime = now;
+                }
+            }
+
+            var orderIds = checkpoints.Select(c => c.OrderId).Distinct().ToList();
+            var existingOrderIds = await _context.Orders
+                .Where(o => orderIds.Contains(o.OrderId))
+                .Select(o => o.OrderId)
+                .ToListAsync();
+
+            var minTime = checkpoints.Min(c => c.CheckInTime);
+            var maxTime = checkpoints.Max(c => c.CheckInTime);
+            var stored = await _context.LocationCheckpoints
+                .Where(c => orderIds.Contains(c.OrderId) && c.CheckInTime >= minTime && c.CheckInTime <= maxTime)
+                .Select(c => new { c.OrderId, c.CheckInTime, c.Latitude, c.Longitude })
+                .ToListAsync();
+            var seen = stored
+                .Select(c => (c.OrderId, c.CheckInTime, c.Latitude, c.Longitude))
+                .ToHashSet();
+
+            foreach (var cp in checkpoints)
+            {
+                if (!existingOrderIds.Contains(cp.OrderId))
+                {
+                    result.Rejected++;
+                }
+                else if (!seen.Add((cp.OrderId, cp.CheckInTime, cp.Latitude, cp.Longitude)))
+                {
+                    result.Duplicates++;
+                }
+                else
+                {
+                    _context.LocationCheckpoints.Add(cp);
+                    result.Accepted++;
+                }
+            }
+
+            await _context.SaveChangesAsync();
+            return result;
+        }
+
+        // Check-in nhiều đơn từ một vị trí: mỗi đơn trong OrderIds nhận một checkpoint riêng,
+        // sau đó lưu như check-in hàng loạt (kết quả đếm theo đơn, bỏ qua bản ghi đã lưu)
+        public Task<BatchCheckInResult> AddMultiOrderCheckInsAsync(List<MultiOrderCheckInDto> fixes)
+        {
+            var checkpoints = fixes
+                .SelectMany(f => f.OrderIds.Distinct().Select(orderId => new LocationCheckpoint
+                {
+                    OrderId = orderId,
+                    Latitude = f.Latitude,
+                    Longitude = f.Longitude,
+                    CheckInTime = f.CheckInTime,
+                    Notes = f.Notes ?? string.Empty
+                }))
+                .ToList();
+            return AddCheckpointsBatchAsync(checkpoints);
+        }
+
         // Lấy checkpoint mới nhất của đơn hàng
         public async Task<LocationCheckpoint?> GetLatestCheckpointAsync(int orderId)
         {
@@ -1,3 +1,4 @@
+using System.Security.Claims;
 using DeliveryManagementAPI.Models;
 using Microsoft.EntityFrameworkCore;
 
@@ -8,6 +9,9 @@ namespace DeliveryManagementAPI.Services
     /// </summary>
     public class DeliveryStaffService
     {
+        // Claim trong JWT của shipper, xem AuthController.GenerateJwtToken
+        public const string StaffIdClaim = "StaffId";
+
         private readonly DeliveryDbContext _context;
 
         public DeliveryStaffService(DeliveryDbContext context)
@@ -108,5 +112,33 @@ namespace DeliveryManagementAPI.Services
         {
             return await _context.DeliveryStaffs.FirstOrDefaultAsync(s => s.PhoneNumber == phoneNumber);
         }
+
+        // Tìm nhân viên theo số điện thoại trước, không có thì theo họ tên
+        public async Task<DeliveryStaff?> FindByPhoneOrNameAsync(string? phoneNumber, string? fullName)
+        {
+            DeliveryStaff? staff = null;
+            if (!string.IsNullOrEmpty(phoneNumber))
+            {
+                staff = await GetByPhoneAsync(phoneNumber);
+            }
+            if (staff == null && !string.IsNullOrEmpty(fullName))
+            {
+                staff = await GetByFullNameAsync(fullName);
+            }
+            return staff;
+        }
+
+        // Tìm hồ sơ nhân viên của người dùng đang đăng nhập: theo claim StaffId nếu token có, không thì theo SĐT / họ tên
+        public async Task<DeliveryStaff?> GetForUserAsync(ClaimsPrincipal user)
+        {
+            if (int.TryParse(user.FindFirst(StaffIdClaim)?.Value, out var staffId))
+            {
+                return await GetStaffByIdAsync(staffId);
+            }
+            var fullName = user.Claims.FirstOrDefault(c => c.Type == "FullName")?.Value
+                           ?? user.Claims.FirstOrDefault(c => c.Type.Contains("/name"))?.Value;
+            var phone = user.Claims.FirstOrDefault(c => c.Type.Contains("phone"))?.Value; // tuỳ claim
+            return await FindByPhoneOrNameAsync(phone, fullName);
+        }
     }
 }
@@ -136,6 +136,56 @@ namespace DeliveryManagementAPI.Services
                 .ToListAsync();
         }
 
+        // Lấy đơn hàng của nhân viên thay đổi sau thời điểm since (null = tất cả)
+        public async Task<List<Order>> GetOrdersByStaffChangedSinceAsync(int staffId, DateTime? since)
+        {
+            var query = _context.Orders
+                .Include(o => o.Customer)
+                .Include(o => o.AssignedStaff)
+                .Where(o => o.AssignedStaffId == staffId.ToString());
+            if (since.HasValue)
+            {
+                query = query.Where(o => o.LastModified > since.Value);
+            }
+            return await query
+                .OrderByDescending(o => o.CreatedDate)
+                .ToListAsync();
+        }
+
+        // Lấy một trang đơn hàng của nhân viên, mới nhất trước; afterId là OrderId cuối của trang trước (keyset)
+        public async Task<List<Order>> GetOrdersByStaffPageAsync(int staffId, int? afterId, int limit)
+        {
+            var query = _context.Orders
+                .Include(o => o.Customer)
+                .Include(o => o.AssignedStaff)
+                .Where(o => o.AssignedStaffId == staffId.ToString());
+            if (afterId.HasValue)
+            {
+                query = query.Where(o => o.OrderId < afterId.Value);
+            }
+            return await query
+                .OrderByDescending(o => o.OrderId)
+                .Take(limit)
+                .ToListAsync();
+        }
+
+        // Dấu xoá của các đơn bị xoá hoặc gỡ khỏi nhân viên sau since, trừ đơn đã được gán lại cho chính nhân viên đó
+        public async Task<List<OrderRemoval>> GetOrderRemovalsByStaffSinceAsync(int staffId, DateTime since)
+        {
+            var staff = staffId.ToString();
+            return await _context.OrderRemovals
+                .Where(r => r.StaffId == staff && r.RemovedAt > since)
+                .Where(r => !_context.Orders.Any(o => o.OrderId == r.OrderId && o.AssignedStaffId == staff))
+                .ToListAsync();
+        }
+
+        // Đếm số đơn hàng đang gán cho nhân viên
+        public async Task<int> CountOrdersByStaffIdAsync(int staffId)
+        {
+            return await _context.Orders
+                .CountAsync(o => o.AssignedStaffId == staffId.ToString());
+        }
+
         // Lấy đơn hàng theo trạng thái
         public async Task<List<Order>> GetOrdersByStatusAsync(OrderStatus status)
         {
@@ -158,6 +208,30 @@ namespace DeliveryManagementAPI.Services
                 .ToListAsync();
         }
 
+        // Lấy một trang đơn hàng do user tạo, mới nhất trước.
+        // Có afterId thì phân trang keyset theo OrderId (không phụ thuộc số trang), không thì dùng offset
+        public async Task<List<Order>> GetOrdersByCreatorPageAsync(int userId, int? afterId, int offset, int limit)
+        {
+            var query = _context.Orders
+                .Include(o => o.Customer)
+                .Include(o => o.AssignedStaff)
+                .Where(o => o.CreatedByUserId == userId);
+            if (afterId.HasValue)
+            {
+                query = query.Where(o => o.OrderId < afterId.Value);
+            }
+            var ordered = query.OrderByDescending(o => o.OrderId);
+            return await (afterId.HasValue ? ordered : ordered.Skip(offset))
+                .Take(limit)
+                .ToListAsync();
+        }
+
+        // Đếm số đơn hàng do một user tạo
+        public async Task<int> CountOrdersByCreatorAsync(int userId)
+        {
+            return await _context.Orders.CountAsync(o => o.CreatedByUserId == userId);
+        }
+
         // Đếm số đơn hàng theo trạng thái
         public async Task<int> CountOrdersByStatusAsync(OrderStatus status)
         {
@@ -0,0 +1,129 @@
+package com.example.shipperapp;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.tracking.CheckpointPathView;
+import com.example.shipperapp.tracking.CheckpointTrack;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Route of one order, drawn from its check-in history. Pages are downloaded and parsed into a
+ * {@link CheckpointTrack} on a background thread; the view gets the track once it is complete.
+ */
+public class CheckpointHistoryActivity extends AppCompatActivity {
+    private static final String TAG = "CheckpointHistory";
+    private final String BASE_URL = "http://10.0.2.2:5221/";
+    private static final int PAGE_SIZE = 500;
+    // Keeps memory bounded for an order tracked for days
+    private static final int MAX_POINTS = 50_000;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor();
+    private volatile Call<ResponseBody> currentCall;
+    private volatile boolean destroyed = false;
+
+    private TextView tvSummary;
+    private CheckpointPathView pathView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_checkpoint_history);
+
+        tvSummary = findViewById(R.id.tvTrackSummary);
+        pathView = findViewById(R.id.pathView);
+
+        final int orderId = getIntent().getIntExtra("orderId", -1);
+        setTitle("Lộ trình đơn #" + orderId);
+        tvSummary.setText("Đang tải lộ trình...");
+        final ApiService api = RetrofitClient.getApiServiceWithAuth(this, BASE_URL);
+        loader.execute(() -> load(api, orderId));
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        destroyed = true;
+        Call<ResponseBody> call = currentCall;
+        if (call != null) call.cancel();
+        loader.shutdownNow();
+    }
+
+    // Loader thread: pages until a short one, streaming each straight into the track's columns
+    private void load(ApiService api, int orderId) {
+        final CheckpointTrack track = new CheckpointTrack();
+        TimeZone zone = TimeZone.getDefault();
+        long started = System.nanoTime();
+        try {
+            while (!destroyed && track.size() < MAX_POINTS) {
+                Integer afterId = track.lastCheckpointId() >= 0 ? track.lastCheckpointId() : null;
+                Call<ResponseBody> call = api.getOrderCheckpointsPage(orderId, afterId, PAGE_SIZE);
+                currentCall = call;
+                Response<ResponseBody> response = call.execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    Log.e(TAG, "Checkpoint page failed: " + response.code());
+                    showMessage("Không tải được lộ trình (mã " + response.code() + ")");
+                    return;
+                }
+                int read;
+                try (ResponseBody body = response.body(); JsonReader reader = new JsonReader(body.charStream())) {
+                    read = track.readPage(reader, zone);
+                }
+                if (read < PAGE_SIZE) break;
+                final int loaded = track.size();
+                showMessage("Đang tải lộ trình... " + loaded + " điểm");
+            }
+        } catch (IOException e) {
+            if (!destroyed) {
+                Log.e(TAG, "Checkpoint load failed", e);
+                showMessage("Không có kết nối, không tải được lộ trình");
+            }
+            return;
+        }
+        if (destroyed) return;
+        track.finish();
+        Log.d(TAG, "Loaded " + track.size() + " checkpoints in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        final String summary = summarize(track);
+        runOnUiThread(() -> {
+            if (destroyed) return;
+            tvSummary.setText(summary);
+            pathView.setTrack(track);
+        });
+    }
+
+    private void showMessage(final String text) {
+        runOnUiThread(() -> {
+            if (!destroyed) tvSummary.setText(text);
+        });
+    }
+
+    private static String summarize(CheckpointTrack track) {
+        if (track.size() == 0) {
+            return "Đơn hàng chưa có điểm check-in nào";
+        }
+        String text = String.format(Locale.US, "%d điểm · %.1f km", track.size(), track.lengthMeters() / 1000);
+        long first = track.timeMillis(0);
+        long last = track.timeMillis(track.size() - 1);
+        if (first > 0 && last > first) {
+            long minutes = (last - first) / 60_000;
+            text += minutes >= 60
+                    ? " · " + minutes / 60 + " giờ " + minutes % 60 + " phút"
+                    : " · " + minutes + " phút";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.shipperapp;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.auth.AuthManager;
+
+/**
+ * Launcher: opens the order list when a saved session can be resumed, the login screen
+ * otherwise. It has no layout (the theme's window background stands in until the next screen
+ * draws) and plain {@link Activity} keeps AppCompat off this path. The session is read off the
+ * main thread; a token that turns out to be refused is handled like any expiry, by
+ * ShipperApp's session listener.
+ */
+public class LaunchActivity extends Activity {
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace.begin();
+        super.onCreate(savedInstanceState);
+        final Context app = getApplicationContext();
+        final Handler main = new Handler(Looper.getMainLooper());
+        ShipperApp.background().execute(() -> {
+            final boolean signedIn = AuthManager.session(app).canResume(System.currentTimeMillis());
+            main.post(() -> open(signedIn ? OrderListActivity.class : LoginActivity.class));
+            if (signedIn) {
+                // The list's first request needs the client; built here instead of on the main thread
+                RetrofitClient.getApiServiceWithAuth(app, RetrofitClient.DEFAULT_BASE_URL);
+            }
+        });
+    }
+
+    private void open(Class<? extends Activity> screen) {
+        if (isFinishing()) return;
+        StartupTrace.routed();
+        startActivity(new Intent(this, screen));
+        finish();
+        overridePendingTransition(0, 0);
+    }
+}
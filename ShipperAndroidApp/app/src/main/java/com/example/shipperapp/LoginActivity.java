@@ -10,13 +10,18 @@ import androidx.appcompat.app.AppCompatActivity;
 import android.util.Log;
 
 import com.example.shipperapp.api.AuthService;
+import com.example.shipperapp.api.RequestScope;
+import com.example.shipperapp.api.RequestScopes;
 import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.api.Task;
 import com.example.shipperapp.models.LoginRequest;
 import com.example.shipperapp.models.LoginResponse;
 import com.example.shipperapp.auth.AuthManager;
+import com.example.shipperapp.data.OrderStore;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import retrofit2.Call;
-import retrofit2.Callback;
 import retrofit2.Response;
 
 public class LoginActivity extends AppCompatActivity {
@@ -25,11 +30,14 @@ public class LoginActivity extends AppCompatActivity {
     private TextView tvMessage;
 
     private final String BASE_URL = "http://10.0.2.2:5221/";
+    private static final long LOGIN_TIMEOUT_S = 20;
+    private RequestScope calls;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
+        calls = RequestScopes.bind(this);
 
         etUsername = findViewById(R.id.etUsername);
         etPassword = findViewById(R.id.etPassword);
@@ -42,6 +50,8 @@ public class LoginActivity extends AppCompatActivity {
                 performLogin();
             }
         });
+        // Opened by the launcher: the form is usable as soon as it is drawn
+        StartupTrace.interactive();
     }
 
     private void performLogin() {
@@ -56,13 +66,15 @@ public class LoginActivity extends AppCompatActivity {
 
         AuthService auth = RetrofitClient.getRetrofit(BASE_URL).create(AuthService.class);
         LoginRequest req = new LoginRequest(username, password);
-        Call<LoginResponse> call = auth.login(req);
-        call.enqueue(new Callback<LoginResponse>() {
+        calls.send(auth.login(req)).timeout(LOGIN_TIMEOUT_S, TimeUnit.SECONDS).observe(new Task.Callback<Response<LoginResponse>>() {
             @Override
-            public void onResponse(Call<LoginResponse> call, Response<LoginResponse> response) {
+            public void onSuccess(Response<LoginResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     String token = response.body().token;
                     AuthManager.saveToken(LoginActivity.this, token);
+                    // Orders cached for a previous account must not show up for this one
+                    OrderStore.get(LoginActivity.this).clearAsync();
+                    RetrofitClient.clearHttpCache();
                     // open orders list
                     Intent i = new Intent(LoginActivity.this, OrderListActivity.class);
                     startActivity(i);
@@ -74,8 +86,10 @@ public class LoginActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onFailure(Call<LoginResponse> call, Throwable t) {
-                tvMessage.setText("Lỗi: " + t.getMessage());
+            public void onFailure(Throwable t) {
+                tvMessage.setText(t instanceof TimeoutException
+                        ? "Máy chủ không phản hồi, vui lòng thử lại"
+                        : "Lỗi: " + t.getMessage());
                 tvMessage.setVisibility(View.VISIBLE);
                 Log.e("Login", "Error", t);
             }
@@ -5,11 +5,11 @@ import androidx.appcompat.app.AppCompatActivity;
 import android.util.Log;
 
 import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.RequestScopes;
 import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.api.Task;
 import com.example.shipperapp.models.DeliveryStaff;
 
-import retrofit2.Call;
-import retrofit2.Callback;
 import retrofit2.Response;
 
 public class MainActivity extends AppCompatActivity {
@@ -20,11 +20,11 @@ public class MainActivity extends AppCompatActivity {
 
         ApiService api = RetrofitClient.getApiServiceWithAuth(this, "http://10.0.2.2:5221/");
 
-        // Example: get current shipper info (requires Authorization header saved by Login)
-        Call<DeliveryStaff> call = api.getMyStaff();
-        call.enqueue(new Callback<DeliveryStaff>() {
+        // Example: get current shipper info (requires Authorization header saved by Login);
+        // cancelled if the screen is closed first
+        RequestScopes.bind(this).send(api.getMyStaff()).observe(new Task.Callback<Response<DeliveryStaff>>() {
             @Override
-            public void onResponse(Call<DeliveryStaff> call, Response<DeliveryStaff> response) {
+            public void onSuccess(Response<DeliveryStaff> response) {
                 if (response.isSuccessful()) {
                     DeliveryStaff staff = response.body();
                     Log.i("ShipperApp", "My staff: " + (staff != null ? staff.fullName : "null"));
@@ -34,7 +34,7 @@ public class MainActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onFailure(Call<DeliveryStaff> call, Throwable t) {
+            public void onFailure(Throwable t) {
                 Log.e("ShipperApp", "Error: " + t.getMessage());
             }
         });
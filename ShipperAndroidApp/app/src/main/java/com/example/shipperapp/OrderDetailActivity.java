@@ -4,6 +4,7 @@ import android.Manifest;
 import android.content.pm.PackageManager;
 import android.location.Location;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
@@ -18,113 +19,106 @@ import androidx.core.content.ContextCompat;
 
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
-import android.os.Handler;
 import android.widget.Switch;
 
+import com.example.shipperapp.api.RequestScope;
+import com.example.shipperapp.api.RequestScopes;
 import com.example.shipperapp.api.RetrofitClient;
 import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.Task;
+import com.example.shipperapp.auth.AuthManager;
+import com.example.shipperapp.auth.AuthSession;
+import com.example.shipperapp.data.OrderCache;
+import com.example.shipperapp.data.OrderStore;
+import com.example.shipperapp.data.StatusOutbox;
 import com.example.shipperapp.models.LocationCheckpoint;
 import com.example.shipperapp.models.Order;
-import com.example.shipperapp.models.UpdateOrderStatusDto;
+import com.example.shipperapp.models.OrderStatus;
+import com.example.shipperapp.telemetry.PerfTelemetry;
+import com.example.shipperapp.tracking.CheckpointSpool;
+import com.example.shipperapp.tracking.CheckpointUploader;
+import com.example.shipperapp.tracking.LocationTrackingService;
 
-import retrofit2.Call;
-import retrofit2.Callback;
 import retrofit2.Response;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import android.util.Base64;
-import org.json.JSONObject;
 
 public class OrderDetailActivity extends AppCompatActivity {
+    /** Status to preselect by {@link OrderStatus} name, e.g. "DaGiao" from the arrival notification. */
+    public static final String EXTRA_SUGGEST_STATUS = "suggestStatus";
     private final String BASE_URL = "http://10.0.2.2:5221/";
     private int orderId;
+    private OrderStore store;
+    private StatusOutbox outbox;
+    private boolean showingNetworkOrder = false;
+    private RequestScope calls;
 
     private TextView tvOrderCode, tvStatus;
     private Spinner spinnerStatus;
     private Button btnUpdateStatus, btnCheckIn;
     private EditText etLat, etLng, etNote;
 
-    private final List<String> statuses = Arrays.asList("ChuaNhan", "DaNhanChuaGiao", "DaNhanDangGiao", "DaGiao");
+    private final List<OrderStatus> statuses = Arrays.asList(OrderStatus.values());
+    // As last shown, pending change included; null until the order is loaded
+    private OrderStatus shownStatus;
     private FusedLocationProviderClient fusedLocationClient;
     private static final int REQ_LOCATION = 1001;
     private Switch switchAutoTrack;
-    private Handler trackHandler = new Handler();
     private Location currentLocation = null;
-    private final long TRACK_INTERVAL_MS = 2 * 60 * 1000; // 2 minutes
-    private final Runnable trackRunnable = new Runnable() {
-        @Override
-        public void run() {
-            // get location and post
-            try {
-                if (ContextCompat.checkSelfPermission(OrderDetailActivity.this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
-                    fusedLocationClient.getLastLocation().addOnSuccessListener(location -> {
-                        if (location != null) {
-                            // store current location and update UI fields
-                            currentLocation = location;
-                            runOnUiThread(() -> {
-                                etLat.setText(String.valueOf(location.getLatitude()));
-                                etLng.setText(String.valueOf(location.getLongitude()));
-                            });
-                            postCheckInWithLocation(location);
-                        } else {
-                            Log.d("OrderDetail", "trackRunnable: lastLocation null");
-                        }
-                        // schedule next
-                        trackHandler.postDelayed(trackRunnable, TRACK_INTERVAL_MS);
-                    }).addOnFailureListener(e -> {
-                        Log.e("OrderDetail", "trackRunnable getLastLocation failed", e);
-                        trackHandler.postDelayed(trackRunnable, TRACK_INTERVAL_MS);
-                    });
-                } else {
-                    // request permission
-                    ActivityCompat.requestPermissions(OrderDetailActivity.this, new String[]{Manifest.permission.ACCESS_FINE_LOCATION}, REQ_LOCATION);
-                }
-            } catch (SecurityException ex) {
-                Log.e("OrderDetail", "trackRunnable SecurityException", ex);
-            }
-        }
+    // Fixes accepted by the tracking service while this screen is visible
+    private final LocationTrackingService.FixListener fixListener = location -> {
+        currentLocation = location;
+        etLat.setText(String.valueOf(location.getLatitude()));
+        etLng.setText(String.valueOf(location.getLongitude()));
     };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_order_detail);
+        calls = RequestScopes.bind(this);
 
-        // Log decoded JWT payload to help debug roles/claims
-        try {
-            String token = com.example.shipperapp.auth.AuthManager.getToken(this);
-            if (token != null) {
-                String[] parts = token.split("\\.");
-                if (parts.length >= 2) {
-                    String payload = parts[1];
-                    byte[] decoded = Base64.decode(payload, Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
-                    String json = new String(decoded);
-                    Log.d("OrderDetail", "JWT payload: " + json);
-                }
-            }
-        } catch (Exception ex) {
-            Log.e("OrderDetail", "Failed decode token", ex);
-        }
+        // Claims are parsed once per process by AuthSession
+        AuthSession session = AuthManager.session(this);
+        Log.d("OrderDetail", "Session: staffId=" + session.staffId() + ", expiresAt=" + session.expiresAtMillis());
 
         orderId = getIntent().getIntExtra("orderId", -1);
+        store = OrderStore.get(this);
+        outbox = StatusOutbox.get(this);
 
         tvOrderCode = findViewById(R.id.tvOrderCode);
         tvStatus = findViewById(R.id.tvStatus);
         spinnerStatus = findViewById(R.id.spinnerStatus);
         btnUpdateStatus = findViewById(R.id.btnUpdateStatus);
+        btnUpdateStatus.setEnabled(false); // until the current status is known
 
         etLat = findViewById(R.id.etLat);
         etLng = findViewById(R.id.etLng);
         etNote = findViewById(R.id.etNote);
         btnCheckIn = findViewById(R.id.btnCheckIn);
 
-        ArrayAdapter<String> spinnerAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, statuses);
+        List<String> labels = new ArrayList<>();
+        for (OrderStatus s : statuses) labels.add(s.label);
+        ArrayAdapter<String> spinnerAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, labels);
         spinnerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerStatus.setAdapter(spinnerAdapter);
+        OrderStatus suggested = OrderStatus.parse(getIntent().getStringExtra(EXTRA_SUGGEST_STATUS));
+        if (suggested != null) {
+            spinnerStatus.setSelection(suggested.ordinal());
+        }
 
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
         switchAutoTrack = findViewById(R.id.switchAutoTrack);
+        // Tracking outlives this screen; reflect a service that is already running for this order.
+        // Shift tracking covers every order out for delivery and is switched from the list
+        boolean shift = LocationTrackingService.isTrackingShift();
+        boolean tracking = shift || LocationTrackingService.isTracking(orderId);
+        switchAutoTrack.setChecked(tracking);
+        switchAutoTrack.setEnabled(!shift);
+        etLat.setEnabled(!tracking);
+        etLng.setEnabled(!tracking);
         switchAutoTrack.setOnCheckedChangeListener((buttonView, isChecked) -> {
             if (isChecked) {
                 // disable manual inputs while auto tracking
@@ -142,6 +136,11 @@ public class OrderDetailActivity extends AppCompatActivity {
 
         btnUpdateStatus.setOnClickListener(v -> updateStatus());
         btnCheckIn.setOnClickListener(v -> doCheckIn());
+        findViewById(R.id.btnViewRoute).setOnClickListener(v -> {
+            android.content.Intent i = new android.content.Intent(this, CheckpointHistoryActivity.class);
+            i.putExtra("orderId", orderId);
+            startActivity(i);
+        });
     }
 
     private void startTracking() {
@@ -152,7 +151,9 @@ public class OrderDetailActivity extends AppCompatActivity {
         }
         // get last known location immediately and update fields
         try {
+            final long asked = SystemClock.elapsedRealtime();
             fusedLocationClient.getLastLocation().addOnSuccessListener(location -> {
+                PerfTelemetry.lastLocation(asked, location);
                 if (location != null) {
                     currentLocation = location;
                     runOnUiThread(() -> {
@@ -165,77 +166,147 @@ public class OrderDetailActivity extends AppCompatActivity {
             Log.e("OrderDetail", "startTracking SecurityException", ex);
         }
 
-        trackHandler.removeCallbacks(trackRunnable);
-        trackHandler.post(trackRunnable);
+        LocationTrackingService.start(this, orderId);
         Toast.makeText(this, "Bắt đầu tự động theo dõi vị trí", Toast.LENGTH_SHORT).show();
     }
 
     private void stopTracking() {
-        trackHandler.removeCallbacks(trackRunnable);
+        LocationTrackingService.stop(this);
         Toast.makeText(this, "Dừng theo dõi vị trí", Toast.LENGTH_SHORT).show();
     }
 
+    private final StatusOutbox.Listener outboxListener = new StatusOutbox.Listener() {
+        @Override
+        public void onDelivered(Order order) {
+            if (order.orderId == orderId) {
+                bindOrder(order);
+            }
+        }
+
+        @Override
+        public void onRejected(int rejectedOrderId, int status, int httpCode) {
+            if (rejectedOrderId != orderId) return;
+            Toast.makeText(OrderDetailActivity.this, "Không cập nhật được trạng thái: " + httpCode, Toast.LENGTH_LONG).show();
+            // Show what the server actually has
+            showingNetworkOrder = false;
+            store.memory().invalidate(orderId);
+            loadOrder();
+        }
+    };
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        LocationTrackingService.addFixListener(fixListener);
+        outbox.addListener(outboxListener);
+    }
+
+    @Override
+    protected void onStop() {
+        LocationTrackingService.removeFixListener(fixListener);
+        outbox.removeListener(outboxListener);
+        super.onStop();
+    }
+
     private void loadOrder() {
-        ApiService api = RetrofitClient.getApiServiceWithAuth(this, BASE_URL);
-        Call<Order> call = api.getOrderById(orderId);
-        call.enqueue(new Callback<Order>() {
+        // Listed, synced or opened in the last couple of minutes: shown without a request
+        Order fresh = store.memory().getIfFresh(orderId);
+        if (fresh != null) {
+            showingNetworkOrder = true;
+            bindOrder(fresh);
+            return;
+        }
+
+        // Show the cached copy immediately (works offline), then revalidate
+        store.loadOrder(orderId, cached -> {
+            if (cached != null && !showingNetworkOrder) {
+                bindOrder(cached);
+            }
+        });
+
+        // Opening the same order again while it loads waits for that request instead of sending another
+        store.memory().load(orderId, this::fetchOrder, new OrderCache.Callback() {
             @Override
-            public void onResponse(Call<Order> call, Response<Order> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    Order o = response.body();
-                    tvOrderCode.setText(o.orderCode != null ? o.orderCode : String.valueOf(o.orderId));
-                    tvStatus.setText(o.status != null ? o.status : "");
-                } else {
-                    Log.e("OrderDetail", "Failed load order: " + response.code());
-                }
+            public void onLoaded(Order o) {
+                if (o == null || calls.isCancelled()) return;
+                showingNetworkOrder = true;
+                bindOrder(o);
             }
 
             @Override
-            public void onFailure(Call<Order> call, Throwable t) {
+            public void onFailed(Throwable t) {
                 Log.e("OrderDetail", "Error", t);
             }
         });
     }
 
-    private void updateStatus() {
-        int selPos = spinnerStatus.getSelectedItemPosition();
-        UpdateOrderStatusDto dto = new UpdateOrderStatusDto();
-        dto.orderId = String.valueOf(orderId);
-        dto.status = selPos; // send numeric enum value matching server OrderStatus
-        dto.staffId = "";
-        dto.notes = "Cập nhật từ app";
-
+    // Loader of the shared cache entry, which the list's prefetcher may be waiting on too, so it
+    // runs in the app scope: closing this screen does not cancel it, the result is stored
+    private void fetchOrder(final int id, final OrderCache.Callback callback) {
         ApiService api = RetrofitClient.getApiServiceWithAuth(this, BASE_URL);
-        Call<Order> call = api.updateOrderStatus(orderId, dto);
-        call.enqueue(new Callback<Order>() {
+        RequestScopes.app().send(api.getOrderById(id)).observe(new Task.Callback<Response<Order>>() {
             @Override
-            public void onResponse(Call<Order> call, Response<Order> response) {
+            public void onSuccess(Response<Order> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    tvStatus.setText(response.body().status != null ? response.body().status : "");
-                    // If status changed to "DaNhanDangGiao" -> attempt auto check-in
-                    if ("DaNhanDangGiao".equals(response.body().status)) {
-                        attemptAutoCheckIn();
-                    }
+                    store.saveOrder(response.body());
+                    callback.onLoaded(response.body());
                 } else {
-                    Log.e("OrderDetail", "Failed update status: " + response.code());
-                    try {
-                        if (response.errorBody() != null) {
-                            String err = response.errorBody().string();
-                            Log.e("OrderDetail", "updateStatus error body: " + err);
-                        }
-                    } catch (java.io.IOException ex) {
-                        Log.e("OrderDetail", "Error reading updateStatus errorBody", ex);
-                    }
+                    Log.e("OrderDetail", "Failed load order: " + response.code());
+                    callback.onLoaded(null);
                 }
             }
 
             @Override
-            public void onFailure(Call<Order> call, Throwable t) {
-                Log.e("OrderDetail", "Error", t);
+            public void onFailure(Throwable t) {
+                callback.onFailed(t);
             }
         });
     }
 
+    private void bindOrder(Order o) {
+        tvOrderCode.setText(o.orderCode != null ? o.orderCode : String.valueOf(o.orderId));
+        // A change still in the outbox wins over the copy being shown
+        String status = store.pendingStatus(o.orderId, o.status);
+        showStatus(OrderStatus.parse(status), status);
+    }
+
+    private void showStatus(OrderStatus status, String raw) {
+        shownStatus = status;
+        tvStatus.setText(status != null ? status.label : raw != null ? raw : "");
+        OrderStatus next = status != null ? status.next() : null;
+        btnUpdateStatus.setEnabled(next != null);
+        // Preselect the one step allowed from here
+        if (next != null && statuses.get(spinnerStatus.getSelectedItemPosition()) != next) {
+            spinnerStatus.setSelection(next.ordinal());
+        }
+    }
+
+    private void updateStatus() {
+        OrderStatus target = statuses.get(spinnerStatus.getSelectedItemPosition());
+        OrderStatus current = shownStatus;
+        if (current == null || !current.canMoveTo(target)) {
+            // Refused here instead of by a round trip; nothing is sent
+            Toast.makeText(this, "Không thể chuyển từ '" + (current != null ? current.label : tvStatus.getText())
+                    + "' sang '" + target.label + "'", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        // Queued durably and sent in the background; the screen shows the new status in this
+        // frame and goes back to the current one if the server refuses it
+        outbox.enqueue(orderId, target.code(), current.stored(), "", "Cập nhật từ app");
+        store.saveOrderStatus(orderId, target.stored());
+        showStatus(target, null);
+        // Delivered orders stop being watched; newly started ones start
+        LocationTrackingService.refreshTargets();
+        if (target == OrderStatus.DaNhanDangGiao) {
+            // Check in where the shipper is now, not where they are when the server acknowledges
+            attemptAutoCheckIn();
+        } else if (target == OrderStatus.DaGiao && switchAutoTrack.isChecked()
+                && !LocationTrackingService.isTrackingShift()) {
+            // Delivered: nothing left to track for this order
+            switchAutoTrack.setChecked(false);
+        }
+    }
+
     private void doCheckIn() {
         String note = etNote.getText().toString().trim();
         double lat, lng;
@@ -259,17 +330,51 @@ public class OrderDetailActivity extends AppCompatActivity {
             }
         }
 
+        // The same capture time goes with the direct call and with the spooled retry, so a call
+        // that timed out after the server stored it is not stored twice
+        final long capturedAt = System.currentTimeMillis();
         LocationCheckpoint cp = new LocationCheckpoint();
         cp.orderId = orderId;
         cp.latitude = lat;
         cp.longitude = lng;
+        cp.checkInTime = CheckpointUploader.checkInTime(capturedAt);
         cp.notes = note;
 
+        // Sent in the app scope so the check-in is stored, or queued, even if the shipper leaves
+        // the screen before the response; the screen only joins it to show the outcome
         ApiService api = RetrofitClient.getApiServiceWithAuth(this, BASE_URL);
-        Call<LocationCheckpoint> call = api.checkIn(cp);
-        call.enqueue(new Callback<LocationCheckpoint>() {
+        final CheckpointUploader uploader = CheckpointUploader.get(this);
+        Task<Response<LocationCheckpoint>> sent = RequestScopes.app().send(api.checkIn(cp));
+        sent.observe(new Task.Callback<Response<LocationCheckpoint>>() {
+            @Override
+            public void onSuccess(Response<LocationCheckpoint> response) {
+                if (response.isSuccessful()) {
+                    if (response.body() != null) {
+                        store.saveCheckpoint(response.body());
+                    }
+                } else if (!CheckpointUploader.isPermanentFailure(response.code())) {
+                    // Server error, expired token or throttling: the check-in may still go through later
+                    spool();
+                }
+            }
+
             @Override
-            public void onResponse(Call<LocationCheckpoint> call, Response<LocationCheckpoint> response) {
+            public void onFailure(Throwable t) {
+                // No connection: keep the check-in and let the uploader send it once the network is back
+                spool();
+            }
+
+            private void spool() {
+                boolean queued = uploader.enqueue(cp.orderId, cp.latitude, cp.longitude, capturedAt, -1f,
+                        CheckpointSpool.FLAG_MANUAL, cp.notes, false);
+                if (!queued) {
+                    Log.e("OrderDetail", "Manual check-in could not be queued");
+                }
+            }
+        });
+        calls.join(sent).observe(new Task.Callback<Response<LocationCheckpoint>>() {
+            @Override
+            public void onSuccess(Response<LocationCheckpoint> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     android.widget.Toast.makeText(OrderDetailActivity.this, "Check-in thành công", android.widget.Toast.LENGTH_SHORT).show();
                 } else {
@@ -290,8 +395,9 @@ public class OrderDetailActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onFailure(Call<LocationCheckpoint> call, Throwable t) {
+            public void onFailure(Throwable t) {
                 Log.e("OrderDetail", "Error", t);
+                Toast.makeText(OrderDetailActivity.this, "Chưa có mạng, check-in sẽ tự gửi lại sau", Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -309,9 +415,11 @@ public class OrderDetailActivity extends AppCompatActivity {
 
     private void sendAutoCheckIn() {
         try {
+            final long asked = SystemClock.elapsedRealtime();
             fusedLocationClient.getLastLocation().addOnSuccessListener(location -> {
+                PerfTelemetry.lastLocation(asked, location);
                 if (location != null) {
-                    postCheckInWithLocation(location);
+                    postCheckInWithLocation(location, true);
                 } else {
                     Toast.makeText(this, "Không lấy được vị trí để check-in", Toast.LENGTH_SHORT).show();
                 }
@@ -324,38 +432,19 @@ public class OrderDetailActivity extends AppCompatActivity {
         }
     }
 
-    private void postCheckInWithLocation(Location location) {
-        LocationCheckpoint cp = new LocationCheckpoint();
-        cp.orderId = orderId;
-        cp.latitude = location.getLatitude();
-        cp.longitude = location.getLongitude();
-        cp.notes = "Auto check-in on status change";
-
-        ApiService api = RetrofitClient.getApiServiceWithAuth(this, BASE_URL);
-        Call<LocationCheckpoint> call = api.checkIn(cp);
-        call.enqueue(new Callback<LocationCheckpoint>() {
-            @Override
-            public void onResponse(Call<LocationCheckpoint> call, Response<LocationCheckpoint> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    Toast.makeText(OrderDetailActivity.this, "Auto check-in thành công", Toast.LENGTH_SHORT).show();
-                } else {
-                    Log.e("OrderDetail", "Auto check-in failed: " + response.code());
-                    try {
-                        if (response.errorBody() != null) {
-                            String err = response.errorBody().string();
-                            Log.e("OrderDetail", "auto check-in error body: " + err);
-                        }
-                    } catch (java.io.IOException ex) {
-                        Log.e("OrderDetail", "Error reading auto check-in errorBody", ex);
-                    }
-                }
-            }
-
-            @Override
-            public void onFailure(Call<LocationCheckpoint> call, Throwable t) {
-                Log.e("OrderDetail", "Auto check-in error", t);
-            }
-        });
+    // Fixes go through the crash-safe spool and are uploaded in batches; status-change check-ins are sent right away
+    private void postCheckInWithLocation(Location location, boolean statusChange) {
+        boolean queued = CheckpointUploader.get(this).enqueue(orderId,
+                location.getLatitude(), location.getLongitude(), location.getTime(),
+                location.hasAccuracy() ? location.getAccuracy() : -1f,
+                statusChange ? CheckpointSpool.FLAG_STATUS_CHANGE : 0,
+                statusChange ? "Auto check-in on status change" : "Auto tracking",
+                statusChange);
+        if (!queued) {
+            Log.e("OrderDetail", "Auto check-in could not be queued");
+        } else if (statusChange) {
+            Toast.makeText(OrderDetailActivity.this, "Đã ghi nhận auto check-in", Toast.LENGTH_SHORT).show();
+        }
     }
 
     @Override
@@ -363,8 +452,12 @@ public class OrderDetailActivity extends AppCompatActivity {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         if (requestCode == REQ_LOCATION) {
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
-                // permission granted, retry auto check-in
-                sendAutoCheckIn();
+                // permission granted, retry whatever asked for it
+                if (switchAutoTrack.isChecked()) {
+                    startTracking();
+                } else {
+                    sendAutoCheckIn();
+                }
             } else {
                 Toast.makeText(this, "Quyền vị trí bị từ chối", Toast.LENGTH_SHORT).show();
             }
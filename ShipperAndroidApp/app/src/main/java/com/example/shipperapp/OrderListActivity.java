@@ -1,41 +1,120 @@
 package com.example.shipperapp;
 
+import android.Manifest;
+import android.content.pm.PackageManager;
 import android.os.Bundle;
+import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import android.util.Log;
 import android.view.View;
 import android.widget.ProgressBar;
+import android.widget.Switch;
 import android.widget.TextView;
+import android.widget.Toast;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.example.shipperapp.auth.AuthManager;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.ContextCompat;
 
+import com.example.shipperapp.adapter.OrderAdapter;
+import com.example.shipperapp.api.RequestScope;
+import com.example.shipperapp.api.RequestScopes;
 import com.example.shipperapp.api.RetrofitClient;
 import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.Task;
+import com.example.shipperapp.data.DetailPrefetcher;
+import com.example.shipperapp.data.OrderStore;
+import com.example.shipperapp.data.OrderSync;
+import com.example.shipperapp.models.DeliveryStaff;
 import com.example.shipperapp.models.Order;
+import com.example.shipperapp.models.OrderBootstrap;
+import com.example.shipperapp.models.OrderPage;
+import com.example.shipperapp.paging.PagedOrderList;
+import com.example.shipperapp.telemetry.PerfTelemetry;
+import com.example.shipperapp.tracking.LocationTrackingService;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-import retrofit2.Call;
-import retrofit2.Callback;
 import retrofit2.Response;
 
 public class OrderListActivity extends AppCompatActivity {
     private final String BASE_URL = "http://10.0.2.2:5221/";
+    // Rows are loaded a page at a time; at most MAX_PAGES pages are kept around the viewport
+    private static final int PAGE_SIZE = 50;
+    private static final int MAX_PAGES = 6;
+    private static final int PREFETCH_DISTANCE = 25;
+    // Staff/bootstrap lookups give up after this, so the spinner does not wait on a dead link forever
+    private static final long LOOKUP_TIMEOUT_S = 20;
+    private static final int REQ_LOCATION = 1002;
+
     private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
+    private OrderAdapter adapter;
+    private PagedOrderList orders;
+    // True while the list pages come from the local store (kept current by OrderSync)
+    private boolean ordersFromStore = true;
     private SwipeRefreshLayout swipeRefresh;
     private ProgressBar progressLoading;
     private TextView tvEmpty;
+    private Switch switchShiftTrack;
+    private OrderStore store;
+    private OrderSync orderSync;
+    private boolean fetchInFlight = false;
+    private DetailPrefetcher detailPrefetcher;
+    private boolean prefetchUpdatePosted = false;
+    private boolean firstPageShown = false;
+    // Every call of this screen, cancelled when it is destroyed; "refresh" holds the calls of
+    // the latest fetchOrders, which a new pull-to-refresh cancels as a unit
+    private RequestScope calls;
+    private RequestScope refresh;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_order_list);
+        calls = RequestScopes.bind(this);
+        refresh = calls.child();
 
         recyclerView = findViewById(R.id.recyclerViewOrders);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setHasFixedSize(true);
+        adapter = new OrderAdapter(order -> {
+            // open OrderDetailActivity
+            android.content.Intent i = new android.content.Intent(OrderListActivity.this, OrderDetailActivity.class);
+            i.putExtra("orderId", order.orderId);
+            startActivity(i);
+        });
+        recyclerView.setAdapter(adapter);
+        // Pages near the viewport are requested as the user scrolls
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                reportVisibleRange();
+            }
+        });
+        PerfTelemetry.watchScrollFrames(this, recyclerView);
+        // Rows filled in after a page load change what is worth prefetching; posted so the
+        // paged list is not re-entered from its own notification
+        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                postPrefetchUpdate();
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                postPrefetchUpdate();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                postPrefetchUpdate();
+            }
+        });
 
         // Log current saved token for debugging (truncated)
         String _token = AuthManager.getToken(OrderListActivity.this);
@@ -50,138 +129,331 @@ public class OrderListActivity extends AppCompatActivity {
         progressLoading = findViewById(R.id.progressLoading);
         tvEmpty = findViewById(R.id.tvEmpty);
 
-        ApiService api = RetrofitClient.getApiServiceWithAuth(this, BASE_URL);
+        // One fix checks in every order out for delivery; the service outlives this screen
+        switchShiftTrack = findViewById(R.id.switchShiftTrack);
+        switchShiftTrack.setChecked(LocationTrackingService.isTrackingShift());
+        switchShiftTrack.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (isChecked) {
+                startShiftTracking();
+            } else if (LocationTrackingService.isTrackingShift()) {
+                LocationTrackingService.stop(this);
+                Toast.makeText(this, "Dừng theo dõi vị trí", Toast.LENGTH_SHORT).show();
+            }
+        });
 
         // Pull-to-refresh handler
         swipeRefresh.setOnRefreshListener(() -> fetchOrders());
 
-        // Initial load
-        fetchOrders();
+        // Render the first page of the last known list right away; the API is asked once it is bound
+        store = OrderStore.get(this);
+        orderSync = new OrderSync(this);
+        detailPrefetcher = new DetailPrefetcher(this, RetrofitClient.getApiServiceWithAuth(this, BASE_URL));
+        showOrders(new PagedOrderList(PAGE_SIZE, MAX_PAGES, PREFETCH_DISTANCE, this::loadStorePage, adapter), true);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        detailPrefetcher.refreshNetworkPolicy();
+        detailPrefetcher.resume();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        detailPrefetcher.pause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        detailPrefetcher.cancelAll();
+    }
+
+    @Override
+    protected void onRestart() {
+        super.onRestart();
+        // Back from the detail screen: statuses may have changed in the store
+        if (ordersFromStore) {
+            orders.invalidate();
+        }
+    }
+
+    private void startShiftTracking() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.ACCESS_FINE_LOCATION}, REQ_LOCATION);
+            return;
+        }
+        LocationTrackingService.startShift(this);
+        Toast.makeText(this, "Bắt đầu theo dõi vị trí cả ca", Toast.LENGTH_SHORT).show();
+    }
+
+    @Override
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode == REQ_LOCATION) {
+            if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+                startShiftTracking();
+            } else {
+                Toast.makeText(this, "Quyền vị trí bị từ chối", Toast.LENGTH_SHORT).show();
+                switchShiftTrack.setChecked(false);
+            }
+        }
     }
 
     private void setLoading(boolean loading) {
         runOnUiThread(() -> {
+            fetchInFlight = loading;
             if (loading) {
                 progressLoading.setVisibility(View.VISIBLE);
             } else {
                 progressLoading.setVisibility(View.GONE);
                 swipeRefresh.setRefreshing(false);
             }
+            updateEmptyState();
         });
     }
 
+    // One round trip to the list: the staff id comes from the token or the stored staff record,
+    // so the order sync goes out at once; only a user not known locally needs the bootstrap call
     private void fetchOrders() {
+        refresh.cancel();
+        refresh = calls.child();
+        final RequestScope scope = refresh;
         setLoading(true);
-        ApiService api = RetrofitClient.getApiServiceWithAuth(this, BASE_URL);
+        final ApiService api = RetrofitClient.getApiServiceWithAuth(this, BASE_URL);
+        int tokenStaffId = AuthManager.getStaffId(this);
+        if (tokenStaffId > 0) {
+            orderSync.sync(tokenStaffId, syncListener);
+            refreshMyStaff(api, tokenStaffId);
+            return;
+        }
+        store.loadMyStaff(staff -> {
+            if (scope.isCancelled()) return;
+            if (staff != null) {
+                orderSync.sync(staff.staffId, syncListener);
+                refreshMyStaff(api, staff.staffId);
+            } else {
+                bootstrap(api);
+            }
+        });
+    }
+
+    // Only orders changed since the last sync are downloaded; the visible pages are then re-read
+    private final OrderSync.Listener syncListener = new OrderSync.Listener() {
+        @Override
+        public void onUpdated(boolean complete) {
+            // The sync itself outlives the screen: what it downloads is stored
+            if (calls.isCancelled()) return;
+            if (complete) {
+                setLoading(false);
+                LocationTrackingService.refreshTargets();
+            }
+            orders.invalidate();
+        }
 
-        Call<com.example.shipperapp.models.DeliveryStaff> staffCall = api.getMyStaff();
-        staffCall.enqueue(new Callback<com.example.shipperapp.models.DeliveryStaff>() {
+        @Override
+        public void onFailed() {
+            if (calls.isCancelled()) return;
+            setLoading(false);
+        }
+    };
+
+    // Keeps the stored staff record current, off the path to the list
+    private void refreshMyStaff(final ApiService api, final int syncedStaffId) {
+        refresh.send(api.getMyStaff()).timeout(LOOKUP_TIMEOUT_S, TimeUnit.SECONDS).observe(new Task.Callback<Response<DeliveryStaff>>() {
             @Override
-            public void onResponse(Call<com.example.shipperapp.models.DeliveryStaff> call, Response<com.example.shipperapp.models.DeliveryStaff> response) {
+            public void onSuccess(Response<DeliveryStaff> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    int staffId = response.body().staffId;
-                    Log.d("OrderList", "deliverystaff/me successful - StaffId=" + staffId + ", FullName=" + response.body().fullName);
-                    // fetch orders by staff
-                    Call<List<Order>> ordersCall = api.getOrdersByStaff(staffId);
-                    ordersCall.enqueue(new Callback<List<Order>>() {
-                        @Override
-                        public void onResponse(Call<List<Order>> call, Response<List<Order>> response) {
-                            setLoading(false);
-                            if (response.isSuccessful() && response.body() != null) {
-                                populateList(response.body());
-                            } else {
-                                try {
-                                    String err = response.errorBody() != null ? response.errorBody().string() : "<no body>";
-                                    Log.e("OrderList", "Failed to get orders by staff: code=" + response.code() + ", body=" + err);
-                                } catch (Exception ex) {
-                                    Log.e("OrderList", "Failed to get orders by staff: " + response.code(), ex);
-                                }
-                                populateList(new java.util.ArrayList<>());
-                            }
-                        }
+                    store.saveMyStaff(response.body());
+                    if (response.body().staffId != syncedStaffId) {
+                        Log.w("OrderList", "Staff id changed from " + syncedStaffId + " to " + response.body().staffId);
+                        setLoading(true);
+                        orderSync.sync(response.body().staffId, syncListener);
+                    }
+                } else if (response.code() == 404) {
+                    // No longer a staff member - fallback to "my orders" (creator)
+                    showMyOrders(api, null);
+                }
+            }
 
-                        @Override
-                        public void onFailure(Call<List<Order>> call, Throwable t) {
-                            setLoading(false);
-                            Log.e("OrderList", "Error getting orders by staff", t);
-                            populateList(new java.util.ArrayList<>());
-                        }
-                    });
-                } else {
-                    // Not a staff (or not found) - fallback to "my orders" (creator)
-                    Call<List<Order>> myCall = api.getMyOrders();
-                    myCall.enqueue(new Callback<List<Order>>() {
-                        @Override
-                        public void onResponse(Call<List<Order>> call, Response<List<Order>> response) {
-                            setLoading(false);
-                            if (response.isSuccessful() && response.body() != null) {
-                                populateList(response.body());
-                            } else {
-                                Log.e("OrderList", "Failed to get my orders: " + response.code());
-                                populateList(new java.util.ArrayList<>());
-                            }
-                        }
+            @Override
+            public void onFailure(Throwable t) {
+                Log.d("OrderList", "Staff record refresh failed: " + t.getMessage());
+            }
+        });
+    }
 
-                        @Override
-                        public void onFailure(Call<List<Order>> call, Throwable t) {
-                            setLoading(false);
-                            Log.e("OrderList", "Error getting my orders", t);
-                            populateList(new java.util.ArrayList<>());
-                        }
-                    });
+    // Staff id not known locally: the staff record and the first page come back in one call
+    private void bootstrap(final ApiService api) {
+        refresh.send(api.getBootstrap(PAGE_SIZE)).timeout(LOOKUP_TIMEOUT_S, TimeUnit.SECONDS).observe(new Task.Callback<Response<OrderBootstrap>>() {
+            @Override
+            public void onSuccess(Response<OrderBootstrap> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    OrderBootstrap bootstrap = response.body();
+                    if (bootstrap.staff != null) {
+                        Log.d("OrderList", "bootstrap - StaffId=" + bootstrap.staff.staffId + ", FullName=" + bootstrap.staff.fullName);
+                        store.saveMyStaff(bootstrap.staff);
+                        orderSync.syncFrom(bootstrap.staff.staffId, bootstrap.orderChanges, syncListener);
+                    } else {
+                        showMyOrders(api, bootstrap.myOrders);
+                    }
+                } else if (response.code() == 404) {
+                    // Server without the bootstrap endpoint
+                    bootstrapInParallel(api);
+                } else {
+                    Log.e("OrderList", "Bootstrap failed: " + response.code());
+                    setLoading(false);
                 }
             }
 
             @Override
-            public void onFailure(Call<com.example.shipperapp.models.DeliveryStaff> call, Throwable t) {
+            public void onFailure(Throwable t) {
+                Log.e("OrderList", "Bootstrap failed", t);
                 setLoading(false);
+            }
+        });
+    }
+
+    // Asks for the staff record and the first page of "my orders" at the same time, and uses
+    // the page only if the user turns out not to be a staff member (otherwise it is cancelled)
+    private void bootstrapInParallel(final ApiService api) {
+        final Task<OrderPage> myFirstPage = refresh.fetch(api.getMyOrdersPage(null, 0, PAGE_SIZE))
+                .timeout(LOOKUP_TIMEOUT_S, TimeUnit.SECONDS);
+        refresh.send(api.getMyStaff()).timeout(LOOKUP_TIMEOUT_S, TimeUnit.SECONDS).observe(new Task.Callback<Response<DeliveryStaff>>() {
+            @Override
+            public void onSuccess(Response<DeliveryStaff> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    Log.d("OrderList", "deliverystaff/me successful - StaffId=" + response.body().staffId + ", FullName=" + response.body().fullName);
+                    myFirstPage.cancel();
+                    store.saveMyStaff(response.body());
+                    orderSync.sync(response.body().staffId, syncListener);
+                } else {
+                    onNotStaff();
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
                 Log.e("OrderList", "Error checking staff record", t);
-                // fallback to my orders
-                Call<List<Order>> myCall = api.getMyOrders();
-                myCall.enqueue(new Callback<List<Order>>() {
+                onNotStaff();
+            }
+
+            private void onNotStaff() {
+                myFirstPage.observe(new Task.Callback<OrderPage>() {
                     @Override
-                    public void onResponse(Call<List<Order>> call, Response<List<Order>> response) {
-                        setLoading(false);
-                        if (response.isSuccessful() && response.body() != null) {
-                            populateList(response.body());
-                        } else {
-                            try {
-                                String err = response.errorBody() != null ? response.errorBody().string() : "<no body>";
-                                Log.e("OrderList", "Failed to get my orders: code=" + response.code() + ", body=" + err);
-                            } catch (Exception ex) {
-                                Log.e("OrderList", "Failed to get my orders: " + response.code(), ex);
-                            }
-                            populateList(new java.util.ArrayList<>());
-                        }
+                    public void onSuccess(OrderPage page) {
+                        showMyOrders(api, page);
                     }
 
                     @Override
-                    public void onFailure(Call<List<Order>> call, Throwable t) {
-                        setLoading(false);
-                        Log.e("OrderList", "Error getting my orders", t);
-                        populateList(new java.util.ArrayList<>());
+                    public void onFailure(Throwable t) {
+                        showMyOrders(api, null);
                     }
                 });
             }
         });
     }
 
-    private void populateList(List<Order> orders) {
-        runOnUiThread(() -> {
-            if (orders == null || orders.isEmpty()) {
-                tvEmpty.setVisibility(View.VISIBLE);
-                recyclerView.setVisibility(View.GONE);
-            } else {
-                tvEmpty.setVisibility(View.GONE);
-                recyclerView.setVisibility(View.VISIBLE);
+    // "My orders" are paged straight from the API, keyset first and by offset after a jump;
+    // firstPage, when already fetched, is used for the top of the list
+    private void showMyOrders(final ApiService api, OrderPage firstPage) {
+        final OrderPage[] prefetched = {firstPage};
+        PagedOrderList.PageSource source = (offset, limit, afterId, callback) -> {
+            if (offset == 0 && prefetched[0] != null) {
+                OrderPage page = prefetched[0];
+                prefetched[0] = null;
+                setLoading(false);
+                store.memory().putAll(page.items);
+                callback.onPage(page.items != null ? page.items : new ArrayList<Order>(), page.totalCount);
+                updateEmptyState();
+                return;
             }
-            com.example.shipperapp.adapter.OrderAdapter adapter = new com.example.shipperapp.adapter.OrderAdapter(orders, order -> {
-            // open OrderDetailActivity
-            android.content.Intent i = new android.content.Intent(OrderListActivity.this, OrderDetailActivity.class);
-            i.putExtra("orderId", order.orderId);
-            startActivity(i);
+            // Tied to the screen, not to one refresh: the list keeps paging after a refresh that fails
+            calls.send(api.getMyOrdersPage(afterId >= 0 ? afterId : null, offset, limit)).observe(new Task.Callback<Response<OrderPage>>() {
+                @Override
+                public void onSuccess(Response<OrderPage> response) {
+                    setLoading(false);
+                    if (response.isSuccessful() && response.body() != null) {
+                        OrderPage page = response.body();
+                        // Not stored in SQLite (that list is the synced one), but opening one is instant
+                        store.memory().putAll(page.items);
+                        callback.onPage(page.items != null ? page.items : new ArrayList<Order>(), page.totalCount);
+                        updateEmptyState();
+                    } else {
+                        try {
+                            String err = response.errorBody() != null ? response.errorBody().string() : "<no body>";
+                            Log.e("OrderList", "Failed to get my orders: code=" + response.code() + ", body=" + err);
+                        } catch (Exception ex) {
+                            Log.e("OrderList", "Failed to get my orders: " + response.code(), ex);
+                        }
+                        callback.onError();
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    setLoading(false);
+                    Log.e("OrderList", "Error getting my orders", t);
+                    callback.onError();
+                }
+            });
+        };
+        showOrders(new PagedOrderList(PAGE_SIZE, MAX_PAGES, PREFETCH_DISTANCE, source, adapter), false);
+    }
+
+    private void loadStorePage(int offset, int limit, int afterId, PagedOrderList.PageCallback callback) {
+        store.loadOrdersPage(offset, limit, page -> {
+            callback.onPage(page.items, page.totalCount);
+            if (!firstPageShown) {
+                // The last known list (or an empty one) is up: start-up is done, revalidate against the API
+                firstPageShown = true;
+                StartupTrace.interactive();
+                if (!calls.isCancelled()) fetchOrders();
+            }
+            updateEmptyState();
         });
-        recyclerView.setAdapter(adapter);
+    }
+
+    private void showOrders(PagedOrderList list, boolean fromStore) {
+        orders = list;
+        ordersFromStore = fromStore;
+        adapter.setOrders(list);
+        recyclerView.scrollToPosition(0);
+        list.onVisibleRange(0, 0);
+    }
+
+    private void reportVisibleRange() {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        orders.onVisibleRange(first, last);
+        detailPrefetcher.onVisibleRange(orders, first, last);
+    }
+
+    private void postPrefetchUpdate() {
+        if (prefetchUpdatePosted) return;
+        prefetchUpdatePosted = true;
+        recyclerView.post(() -> {
+            prefetchUpdatePosted = false;
+            detailPrefetcher.onVisibleRange(orders, layoutManager.findFirstVisibleItemPosition(),
+                    layoutManager.findLastVisibleItemPosition());
         });
     }
+
+    // Offline or server error: keep whatever is already on screen (e.g. the cached list);
+    // "no orders" only once nothing is loading and the list is known to be empty
+    private void updateEmptyState() {
+        if (orders.size() > 0) {
+            tvEmpty.setVisibility(View.GONE);
+            recyclerView.setVisibility(View.VISIBLE);
+            // Cached rows are visible: show the refresh as the light pull-down indicator instead of the blocking spinner
+            if (fetchInFlight) {
+                progressLoading.setVisibility(View.GONE);
+                swipeRefresh.setRefreshing(true);
+            }
+        } else if (!fetchInFlight && (orders.isCountKnown() || !ordersFromStore)) {
+            tvEmpty.setVisibility(View.VISIBLE);
+            recyclerView.setVisibility(View.GONE);
+        }
+    }
 }
@@ -0,0 +1,149 @@
+package com.example.shipperapp;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.Toast;
+
+import com.example.shipperapp.api.NetworkMetrics;
+import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.auth.AuthManager;
+import com.example.shipperapp.data.OrderStore;
+import com.example.shipperapp.data.StatusOutbox;
+import com.example.shipperapp.telemetry.PerfTelemetry;
+import com.example.shipperapp.tracking.CheckpointUploader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ShipperApp extends Application implements Application.ActivityLifecycleCallbacks {
+    private static final long METRICS_DUMP_MINUTES = 5;
+
+    // Startup work kept off the main thread (session read, client setup, deferred init), in order
+    private static final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "startup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private int startedActivities = 0;
+
+    static Executor background() {
+        return background;
+    }
+
+    // Only what the first screen needs runs here; the rest waits until it has drawn
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        StartupTrace.onAppCreate();
+        RetrofitClient.init(this);
+        registerActivityLifecycleCallbacks(this);
+        watchSession();
+        StartupTrace.afterFirstFrame(() -> background.execute(this::initDeferred));
+    }
+
+    private void initDeferred() {
+        // Reopens the checkpoint spool and resumes uploading fixes left over from a previous process
+        CheckpointUploader.get(this);
+        // Same for status changes made while offline
+        StatusOutbox.get(this);
+        watchConnectivity();
+        RetrofitClient.getNetworkMetrics().startPeriodicDump(METRICS_DUMP_MINUTES, TimeUnit.MINUTES,
+                report -> Log.i("NetworkMetrics", report));
+    }
+
+    // Queued work is sent the moment a network with internet access shows up again
+    private void watchConnectivity() {
+        ConnectivityManager cm = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return;
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+        cm.registerNetworkCallback(request, new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                StatusOutbox.get(ShipperApp.this).onNetworkAvailable();
+                CheckpointUploader.get(ShipperApp.this).onNetworkAvailable();
+            }
+        });
+    }
+
+    // The server refused to refresh the token: back to the login screen instead of failing every request
+    private void watchSession() {
+        final Handler main = new Handler(Looper.getMainLooper());
+        AuthManager.setSessionListener(() -> main.post(() -> {
+            Toast.makeText(this, "Phiên đăng nhập đã hết hạn, vui lòng đăng nhập lại", Toast.LENGTH_LONG).show();
+            Intent i = new Intent(this, LoginActivity.class);
+            i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            startActivity(i);
+        }));
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+        if (startedActivities++ == 0) {
+            // App came to the foreground: open the API connection before the first request needs it
+            // (off the main thread: the first call builds the HTTP client)
+            background.execute(() -> RetrofitClient.warmUp(RetrofitClient.DEFAULT_BASE_URL));
+        }
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+        if (--startedActivities == 0) {
+            // Off the main thread: the cache stats take the cache's lock, and the store may not be open yet
+            background.execute(this::logSession);
+            // Performance samples are saved whenever the shipper leaves the app
+            background.execute(this::exportTelemetry);
+        }
+    }
+
+    private void logSession() {
+        NetworkMetrics metrics = RetrofitClient.getNetworkMetrics();
+        Log.d("ShipperApp", "Session to background: calls=" + metrics.callsStarted()
+                + ", connections opened=" + metrics.connectionsOpened()
+                + ", order cache: " + OrderStore.get(this).memory().stats());
+    }
+
+    private void exportTelemetry() {
+        try {
+            File file = PerfTelemetry.export(this);
+            if (file != null) Log.d("ShipperApp", "Telemetry exported to " + file);
+        } catch (IOException e) {
+            Log.w("ShipperApp", "Telemetry export failed", e);
+        }
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        StartupTrace.onActivityCreated();
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+        StartupTrace.onResumed(activity);
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) { }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) { }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) { }
+}
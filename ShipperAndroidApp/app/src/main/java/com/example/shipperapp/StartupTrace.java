@@ -0,0 +1,155 @@
+package com.example.shipperapp;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times launches through {@link LaunchActivity}: time to first frame (the first screen has
+ * drawn) and time to interactive (it shows real content: the cached order list, or the login
+ * form). A cold start is measured from process start, a warm one (process alive, activities
+ * re-created) from the launcher's onCreate. Results are logged under "Startup", and TTI is
+ * also passed to {@link Activity#reportFullyDrawn}.
+ *
+ * Also holds back work that is not needed for the first frame ({@link #afterFirstFrame}).
+ * Main thread only.
+ */
+final class StartupTrace {
+    private static final String TAG = "Startup";
+    // A process started earlier for something else (tracking service, upload) is not a cold start
+    private static final long COLD_START_MAX_DELAY_MS = 5_000;
+    // Deferred work runs after this even if no screen draws (e.g. the process was started for the service)
+    private static final long DEFERRED_MAX_DELAY_MS = 3_000;
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+    private static final List<Runnable> deferred = new ArrayList<>();
+    private static final Runnable RUN_DEFERRED = StartupTrace::runDeferred;
+
+    private static long appCreatedAt;
+    private static int activitiesCreated;
+    private static boolean firstFrameDrawn;
+
+    // The launch being traced, or kind == null
+    private static String kind;
+    private static long startedAt;
+    private static long routedAt;
+    private static long firstFrameAt;
+    private static long interactiveAt;
+    private static Activity screen;
+
+    private StartupTrace() {
+    }
+
+    static void onAppCreate() {
+        appCreatedAt = SystemClock.uptimeMillis();
+    }
+
+    static void onActivityCreated() {
+        activitiesCreated++;
+    }
+
+    /** LaunchActivity.onCreate, before super.onCreate: a launch from the home screen starts. */
+    static void begin() {
+        long now = SystemClock.uptimeMillis();
+        if (activitiesCreated == 0 && now - appCreatedAt < COLD_START_MAX_DELAY_MS) {
+            kind = "cold";
+            // Before API 24 the process start time is not available; Application.onCreate is close
+            startedAt = Build.VERSION.SDK_INT >= 24 ? Process.getStartUptimeMillis() : appCreatedAt;
+        } else {
+            kind = "warm";
+            startedAt = now;
+        }
+        routedAt = -1;
+        firstFrameAt = -1;
+        interactiveAt = -1;
+        screen = null;
+    }
+
+    /** The launcher has decided where to go. */
+    static void routed() {
+        if (kind != null) routedAt = SystemClock.uptimeMillis();
+    }
+
+    /** From ShipperApp: watches for the first frame of the first real screen. */
+    static void onResumed(Activity activity) {
+        if (activity instanceof LaunchActivity) return;
+        if (kind == null ? firstFrameDrawn : firstFrameAt >= 0) return;
+        final View decor = activity.getWindow().getDecorView();
+        final Activity drawn = activity;
+        decor.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean seen;
+
+            @Override
+            public void onDraw() {
+                if (seen) return;
+                seen = true;
+                // Runs once the frame has been handed to the display; listeners cannot be removed inside onDraw
+                MAIN.postAtFrontOfQueue(() -> {
+                    decor.getViewTreeObserver().removeOnDrawListener(this);
+                    onFirstFrame(drawn);
+                });
+            }
+        });
+    }
+
+    /**
+     * The first screen shows content the user can act on. Reported once it has also drawn;
+     * calls outside a traced launch, or after the first, are ignored.
+     */
+    static void interactive() {
+        if (kind == null || interactiveAt >= 0) return;
+        interactiveAt = SystemClock.uptimeMillis();
+        if (firstFrameAt >= 0) report();
+    }
+
+    /** Runs {@code task} on the main thread once the first screen has drawn. */
+    static void afterFirstFrame(Runnable task) {
+        if (firstFrameDrawn) {
+            task.run();
+            return;
+        }
+        deferred.add(task);
+        if (deferred.size() == 1) {
+            MAIN.postDelayed(RUN_DEFERRED, DEFERRED_MAX_DELAY_MS);
+        }
+    }
+
+    private static void onFirstFrame(Activity activity) {
+        firstFrameDrawn = true;
+        if (kind != null && firstFrameAt < 0) {
+            firstFrameAt = SystemClock.uptimeMillis();
+            screen = activity;
+            if (interactiveAt >= 0) report();
+        }
+        runDeferred();
+    }
+
+    private static void runDeferred() {
+        if (deferred.isEmpty()) return;
+        List<Runnable> tasks = new ArrayList<>(deferred);
+        deferred.clear();
+        MAIN.removeCallbacks(RUN_DEFERRED);
+        for (Runnable task : tasks) task.run();
+    }
+
+    private static void report() {
+        // Content bound before the first frame is interactive at that frame
+        long interactive = Math.max(interactiveAt, firstFrameAt);
+        Log.i(TAG, String.format(Locale.US, "%s start: first frame %d ms, interactive %d ms, %s (launcher %d ms)",
+                kind, firstFrameAt - startedAt, interactive - startedAt, screen.getClass().getSimpleName(),
+                routedAt >= 0 ? routedAt - startedAt : -1));
+        screen.reportFullyDrawn();
+        kind = null;
+        screen = null;
+    }
+}
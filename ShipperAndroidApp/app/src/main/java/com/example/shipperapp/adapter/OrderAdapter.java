@@ -1,5 +1,7 @@
 package com.example.shipperapp.adapter;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,39 +11,224 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.shipperapp.R;
 import com.example.shipperapp.models.Order;
+import com.example.shipperapp.models.OrderStatus;
+import com.example.shipperapp.paging.OrderDiff;
+import com.example.shipperapp.paging.PagedOrderList;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
-public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.ViewHolder> {
+/**
+ * Long-lived adapter for the order list, backed by a {@link PagedOrderList}. Rows whose page
+ * is not loaded show a placeholder. When a page (re)loads, its rows are compared one by one
+ * with what they showed on a background thread; until the result is dispatched the adapter
+ * keeps serving the rows it showed, like AsyncListDiffer, so binds, ids and clicks always
+ * match the screen. Only the rows that actually changed are rebound; a status-only change
+ * rebinds just the status text.
+ *
+ * Ids are stable: the order id, or a negative one derived from the position for a
+ * placeholder. A row whose id changes (placeholder to order, one order to another, order
+ * back to placeholder) is reported as removed and inserted.
+ */
+public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.ViewHolder> implements PagedOrderList.Listener {
     public interface OnItemClickListener {
         void onItemClick(Order order);
     }
 
-    private final List<Order> orders;
+    static final Object PAYLOAD_STATUS = new Object();
+
+    // Page diffs, in the order pages arrive; results are posted back to the main thread
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "order-diff");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
     private final OnItemClickListener listener;
+    private PagedOrderList orders;
+    // Bumped by setOrders() so diffs of the previous list are not dispatched
+    private int generation;
+    // Pages whose diff is still running: what their rows show until it is dispatched
+    private final List<Shown> pending = new ArrayList<>();
+    // One listener for every row; the row's holder is found through the view tag
+    private final View.OnClickListener clickHandler = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            ViewHolder holder = (ViewHolder) v.getTag();
+            int position = holder.getBindingAdapterPosition();
+            Order order = position != RecyclerView.NO_POSITION && orders != null ? item(position) : null;
+            if (order != null) {
+                listener.onItemClick(order);
+            }
+        }
+    };
 
-    public OrderAdapter(List<Order> orders, OnItemClickListener listener) {
-        this.orders = orders;
+    public OrderAdapter(OnItemClickListener listener) {
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    /** Switches to another list (e.g. a different data source); the adapter must be its listener. */
+    public void setOrders(PagedOrderList orders) {
+        this.orders = orders;
+        generation++;
+        pending.clear();
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return idOf(item(position), position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return orders != null ? orders.size() : 0;
+    }
+
+    @Override
+    public void onCountChanged(int oldCount, int newCount) {
+        if (newCount > oldCount) {
+            notifyItemRangeInserted(oldCount, newCount - oldCount);
+        } else {
+            notifyItemRangeRemoved(newCount, oldCount - newCount);
+        }
+    }
+
+    @Override
+    public void onPageLoaded(final int start, List<Order> previous, final List<Order> items) {
+        // The rows keep showing (and serving) what they showed until the diff is dispatched;
+        // a page reloaded again meanwhile is diffed from the same rows, and only the newest
+        // diff is dispatched
+        Shown found = pendingAt(start);
+        if (found == null) {
+            found = new Shown(start, previous);
+            pending.add(found);
+        }
+        final Shown shown = found;
+        shown.rows = Math.max(shown.rows, items.size());
+        final int version = ++shown.version;
+        final int gen = generation;
+        DIFF_EXECUTOR.execute(() -> {
+            final OrderDiff.Result changes = OrderDiff.compute(start, shown.items, items);
+            mainHandler.post(() -> {
+                if (gen != generation || version != shown.version || !pending.remove(shown)) return;
+                changes.dispatch(getItemCount(), (position, statusOnly) -> {
+                    Order after = orders.get(position);
+                    if (idOf(shown.get(position), position) != idOf(after, position)) {
+                        notifyItemRemoved(position);
+                        notifyItemInserted(position);
+                    } else if (statusOnly) {
+                        notifyItemChanged(position, PAYLOAD_STATUS);
+                    } else {
+                        notifyItemChanged(position);
+                    }
+                });
+            });
+        });
+    }
+
+    @Override
+    public void onPageDropped(int start, int count, List<Order> dropped) {
+        // What the rows showed: a pending diff's rows (the diff is then dropped), else the page
+        Shown shown = pendingAt(start);
+        if (shown != null) pending.remove(shown);
+        for (int i = 0; i < count; i++) {
+            Order before = shown != null ? shown.get(start + i) : (i < dropped.size() ? dropped.get(i) : null);
+            if (before != null) {
+                notifyItemRemoved(start + i);
+                notifyItemInserted(start + i);
+            }
+        }
+    }
+
+    // The order row {@code position} shows, or null for a placeholder
+    private Order item(int position) {
+        for (int i = 0; i < pending.size(); i++) {
+            Shown shown = pending.get(i);
+            if (position >= shown.start && position < shown.start + shown.rows) {
+                return shown.get(position);
+            }
+        }
+        return orders.get(position);
+    }
+
+    private Shown pendingAt(int start) {
+        for (int i = 0; i < pending.size(); i++) {
+            if (pending.get(i).start == start) return pending.get(i);
+        }
+        return null;
+    }
+
+    private static long idOf(Order order, int position) {
+        return order != null ? order.orderId : -1L - position;
     }
 
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_order, parent, false);
-        return new ViewHolder(v);
+        ViewHolder holder = new ViewHolder(v);
+        v.setTag(holder);
+        v.setOnClickListener(clickHandler);
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Order o = orders.get(position);
+        Order o = item(position);
+        if (o == null) {
+            // Placeholder: same layout, so rows keep their height while the page loads
+            holder.tvCode.setText("Đang tải...");
+            holder.tvStatus.setText("");
+            return;
+        }
         holder.tvCode.setText(o.orderCode != null ? o.orderCode : "#" + o.orderId);
-        holder.tvStatus.setText(o.status != null ? o.status : "");
-        holder.itemView.setOnClickListener(v -> listener.onItemClick(o));
+        holder.tvStatus.setText(OrderStatus.label(o.status));
     }
 
     @Override
-    public int getItemCount() { return orders.size(); }
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !allStatus(payloads)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        Order o = item(position);
+        if (o == null) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        holder.tvStatus.setText(OrderStatus.label(o.status));
+    }
+
+    // Rows of a page as shown before its reload; null items: placeholders
+    private static final class Shown {
+        final int start;
+        final List<Order> items;
+        int rows;
+        int version;
+
+        Shown(int start, List<Order> items) {
+            this.start = start;
+            this.items = items;
+            this.rows = items != null ? items.size() : 0;
+        }
+
+        Order get(int position) {
+            int index = position - start;
+            return items != null && index < items.size() ? items.get(index) : null;
+        }
+    }
+
+    private static boolean allStatus(List<Object> payloads) {
+        for (Object p : payloads) {
+            if (p != PAYLOAD_STATUS) return false;
+        }
+        return true;
+    }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
         TextView tvCode, tvStatus;
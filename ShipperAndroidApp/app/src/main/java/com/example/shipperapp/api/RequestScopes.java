@@ -0,0 +1,54 @@
+package com.example.shipperapp.api;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link RequestScope}s of the app, with callbacks on the main thread: one per screen,
+ * cancelled when the screen is destroyed, and one for the process, for writes that have to
+ * finish whatever screen the shipper moves to (a screen {@link RequestScope#join joins} them
+ * to show the outcome).
+ */
+public final class RequestScopes {
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+    // Inline when already on the main thread, where Retrofit delivers responses; posted otherwise (timeouts)
+    private static final Executor MAIN_THREAD = r -> {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            r.run();
+        } else {
+            MAIN.post(r);
+        }
+    };
+    private static final RequestScope APP = new RequestScope(MAIN_THREAD);
+
+    private RequestScopes() {
+    }
+
+    /** A scope cancelled when {@code owner} is destroyed; create it in onCreate. */
+    public static RequestScope bind(LifecycleOwner owner) {
+        final RequestScope scope = new RequestScope(MAIN_THREAD);
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    scope.cancel();
+                    Log.d("RequestScopes", source.getClass().getSimpleName() + " destroyed: " + scope.stats());
+                }
+            }
+        });
+        return scope;
+    }
+
+    /** The process-wide scope; never cancelled. */
+    public static RequestScope app() {
+        return APP;
+    }
+}
@@ -1,48 +1,220 @@
 package com.example.shipperapp.api;
 
 import android.content.Context;
+import android.util.Log;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.example.shipperapp.auth.AuthInterceptor;
+import com.example.shipperapp.auth.AuthManager;
+import com.example.shipperapp.models.ModelTypeAdapters;
 
 public class RetrofitClient {
+    public static final String DEFAULT_BASE_URL = "http://10.0.2.2:5221/";
+
+    // The app only talks to one API host, so a few idle sockets kept alive for 5 minutes
+    // cover a whole burst of taps (list -> detail -> status -> check-in) on one connection.
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    // Order lists/details revalidated with If-None-Match; LRU-evicted once the cache is full
+    private static final long HTTP_CACHE_BYTES = 10L * 1024 * 1024;
+
+    private static final Object LOCK = new Object();
+    private static volatile OkHttpClient engine;
+    private static volatile File cacheDir;
+    private static volatile OkHttpClient plainClient;
+    private static volatile OkHttpClient authClient;
+    private static final NetworkMetrics metrics = new NetworkMetrics();
+    // Shared by every client; stays at NONE unless body logging is switched on for debugging
+    private static final HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
+
+    // Models are (de)serialized by hand-written streaming adapters instead of reflection
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapters())
+            .create();
+
+    private static final Map<String, Retrofit> plainRetrofits = new ConcurrentHashMap<>();
+    private static final Map<String, ApiService> authApis = new ConcurrentHashMap<>();
+
+    /** Called once from {@code ShipperApp.onCreate}, before any client is built. */
+    public static void init(Context context) {
+        cacheDir = new File(context.getApplicationContext().getCacheDir(), "http");
+    }
+
     // Retrofit without auth interceptor (for login)
     public static Retrofit getRetrofit(String baseUrl) {
-    HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-    logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+        Retrofit retrofit = plainRetrofits.get(baseUrl);
+        if (retrofit == null) {
+            retrofit = new Retrofit.Builder()
+                    .baseUrl(baseUrl)
+                    .addConverterFactory(GsonConverterFactory.create(gson))
+                    .client(plainClient())
+                    .build();
+            Retrofit existing = plainRetrofits.putIfAbsent(baseUrl, retrofit);
+            if (existing != null) retrofit = existing;
+        }
+        return retrofit;
+    }
+
+    // ApiService with auth interceptor: token from AuthSession, refreshed and replayed on 401
+    public static ApiService getApiServiceWithAuth(Context context, String baseUrl) {
+        ApiService api = authApis.get(baseUrl);
+        if (api == null) {
+            Retrofit retrofit = new Retrofit.Builder()
+                    .baseUrl(baseUrl)
+                    .addConverterFactory(GsonConverterFactory.create(gson))
+                    .client(authClient(context))
+                    .build();
+            api = retrofit.create(ApiService.class);
+            ApiService existing = authApis.putIfAbsent(baseUrl, api);
+            if (existing != null) api = existing;
+        }
+        return api;
+    }
 
-    OkHttpClient client = new OkHttpClient.Builder()
-        .addInterceptor(logging)
-        .build();
+    /**
+     * Opens a connection to the API host ahead of the first real request, so the TCP/TLS
+     * handshake is paid while the first screen is still drawing. No-op when the pool
+     * already holds an idle connection.
+     */
+    public static void warmUp(String baseUrl) {
+        OkHttpClient client = engine();
+        if (client.connectionPool().idleConnectionCount() > 0) {
+            return;
+        }
+        Request request = new Request.Builder().url(baseUrl).head().build();
+        client.newBuilder().followRedirects(false).build()
+                .newCall(request)
+                .enqueue(new Callback() {
+                    @Override
+                    public void onResponse(Call call, Response response) {
+                        response.close();
+                    }
 
-    return new Retrofit.Builder()
-        .baseUrl(baseUrl)
-        .addConverterFactory(GsonConverterFactory.create())
-        .client(client)
-        .build();
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        Log.d("RetrofitClient", "warm-up failed: " + e.getMessage());
+                    }
+                });
     }
 
-    // ApiService with auth interceptor that reads token from SharedPreferences via AuthManager
-    public static ApiService getApiServiceWithAuth(Context context, String baseUrl) {
-    HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-    logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+    /** Per-endpoint latency/size metrics, plus calls vs. connections opened since process start. */
+    public static NetworkMetrics getNetworkMetrics() {
+        return metrics;
+    }
+
+    /** Calls running or queued on the shared dispatcher, from every client. */
+    public static int activeCallCount() {
+        Dispatcher dispatcher = engine().dispatcher();
+        return dispatcher.runningCallsCount() + dispatcher.queuedCallsCount();
+    }
 
-    AuthInterceptor authInterceptor = new AuthInterceptor(context);
+    /** The shared HTTP cache, or null when {@link #init} has not been called. */
+    public static Cache getHttpCache() {
+        return engine().cache();
+    }
 
-    OkHttpClient client = new OkHttpClient.Builder()
-        .addInterceptor(authInterceptor)
-        .addInterceptor(logging)
-        .build();
+    /** Drops cached responses, e.g. when another account logs in ({@code api/orders/my} is per user). */
+    public static void clearHttpCache() {
+        final Cache cache = getHttpCache();
+        if (cache == null) return;
+        engine().dispatcher().executorService().execute(() -> {
+            try {
+                cache.evictAll();
+            } catch (IOException e) {
+                Log.w("RetrofitClient", "Failed to clear HTTP cache", e);
+            }
+        });
+    }
 
-    Retrofit retrofit = new Retrofit.Builder()
-        .baseUrl(baseUrl)
-        .addConverterFactory(GsonConverterFactory.create())
-        .client(client)
-        .build();
+    /**
+     * Opt-in debug mode that logs full request/response bodies. Off by default: BODY level
+     * buffers and copies every payload, including whole order lists.
+     */
+    public static void setBodyLoggingEnabled(boolean enabled) {
+        logging.setLevel(enabled ? HttpLoggingInterceptor.Level.BODY : HttpLoggingInterceptor.Level.NONE);
+    }
+
+    // Single process-wide engine: one connection pool, one dispatcher, one TLS session cache.
+    // Every client below is derived with newBuilder() so they all share these, and all run
+    // gzip (CompressionInterceptor) outermost, ahead of auth and logging.
+    private static OkHttpClient engine() {
+        OkHttpClient client = engine;
+        if (client == null) {
+            synchronized (LOCK) {
+                client = engine;
+                if (client == null) {
+                    File dir = cacheDir;
+                    client = new OkHttpClient.Builder()
+                            .cache(dir != null ? new Cache(dir, HTTP_CACHE_BYTES) : null)
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .dispatcher(new Dispatcher())
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            .retryOnConnectionFailure(true)
+                            .connectTimeout(15, TimeUnit.SECONDS)
+                            .readTimeout(30, TimeUnit.SECONDS)
+                            .writeTimeout(30, TimeUnit.SECONDS)
+                            .eventListenerFactory(metrics)
+                            .addInterceptor(new CompressionInterceptor(metrics))
+                            .build();
+                    engine = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static OkHttpClient plainClient() {
+        OkHttpClient client = plainClient;
+        if (client == null) {
+            synchronized (LOCK) {
+                client = plainClient;
+                if (client == null) {
+                    client = engine().newBuilder()
+                            .addInterceptor(logging)
+                            .build();
+                    plainClient = client;
+                }
+            }
+        }
+        return client;
+    }
 
-    return retrofit.create(ApiService.class);
+    private static OkHttpClient authClient(Context context) {
+        OkHttpClient client = authClient;
+        if (client == null) {
+            synchronized (LOCK) {
+                client = authClient;
+                if (client == null) {
+                    AuthInterceptor auth = new AuthInterceptor(AuthManager.session(context));
+                    client = engine().newBuilder()
+                            .addInterceptor(auth)
+                            .authenticator(auth)
+                            .addInterceptor(logging)
+                            .build();
+                    authClient = client;
+                }
+            }
+        }
+        return client;
     }
 }
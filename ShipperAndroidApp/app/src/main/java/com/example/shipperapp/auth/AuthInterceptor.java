@@ -1,33 +0,0 @@
-package com.example.shipperapp.auth;
-
-import android.content.Context;
-
-import java.io.IOException;
-
-import okhttp3.Interceptor;
-import okhttp3.Request;
-import okhttp3.Response;
-
-public class AuthInterceptor implements Interceptor {
-    private final Context context;
-
-    public AuthInterceptor(Context context) {
-        this.context = context.getApplicationContext();
-    }
-
-    @Override
-    public Response intercept(Chain chain) throws IOException {
-        Request original = chain.request();
-        String token = AuthManager.getToken(context);
-        if (token == null || token.isEmpty()) {
-            return chain.proceed(original);
-        }
-
-        Request request = original.newBuilder()
-                .header("Authorization", "Bearer " + token)
-                .method(original.method(), original.body())
-                .build();
-
-        return chain.proceed(request);
-    }
-}
@@ -1,27 +1,111 @@
 package com.example.shipperapp.auth;
 
 import android.content.Context;
+import android.util.Log;
+
+import com.example.shipperapp.api.AuthService;
+import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.models.LoginResponse;
+
+import java.io.IOException;
 
 public class AuthManager {
+    private static final String TAG = "AuthManager";
     private static final String PREFS = "shipper_prefs";
     private static final String KEY_TOKEN = "jwt_token";
 
+    private static volatile AuthSession session;
+    private static volatile AuthSession.Listener sessionListener;
+
+    /** The process-wide session, backed by SharedPreferences and refreshed through api/auth/refresh. */
+    public static AuthSession session(Context context) {
+        AuthSession s = session;
+        if (s == null) {
+            synchronized (AuthManager.class) {
+                s = session;
+                if (s == null) {
+                    final Context app = context.getApplicationContext();
+                    s = new AuthSession(new AuthSession.Store() {
+                        @Override
+                        public String load() {
+                            return readStoredToken(app);
+                        }
+
+                        @Override
+                        public void save(String token) {
+                            writeStoredToken(app, token);
+                        }
+                    }, AuthManager::refreshWithServer);
+                    s.setListener(sessionListener);
+                    session = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Called when the server refuses to refresh the token. Set without creating the session, so
+     * the app can install it at startup without reading SharedPreferences on the main thread.
+     */
+    public static void setSessionListener(AuthSession.Listener listener) {
+        synchronized (AuthManager.class) {
+            sessionListener = listener;
+            if (session != null) session.setListener(listener);
+        }
+    }
+
     public static void saveToken(Context ctx, String token) {
-        ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
-                .edit()
-                .putString(KEY_TOKEN, token)
-                .apply();
+        session(ctx).setToken(token);
     }
 
+    // Served from memory; SharedPreferences is only read once per process
     public static String getToken(Context ctx) {
+        return session(ctx).token();
+    }
+
+    /**
+     * Staff id carried in a shipper's token, or -1 when the token has none (not a shipper, or
+     * issued before the claim existed). Read locally, without a request.
+     */
+    public static int getStaffId(Context ctx) {
+        return session(ctx).staffId();
+    }
+
+    public static void clearToken(Context ctx) {
+        session(ctx).setToken(null);
+    }
+
+    private static String readStoredToken(Context ctx) {
         return ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
                 .getString(KEY_TOKEN, null);
     }
 
-    public static void clearToken(Context ctx) {
+    private static void writeStoredToken(Context ctx, String token) {
+        if (token == null) {
+            ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                    .edit()
+                    .remove(KEY_TOKEN)
+                    .apply();
+            return;
+        }
         ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
                 .edit()
-                .remove(KEY_TOKEN)
+                .putString(KEY_TOKEN, token)
                 .apply();
     }
+
+    private static String refreshWithServer(String token) throws IOException {
+        AuthService auth = RetrofitClient.getRetrofit(RetrofitClient.DEFAULT_BASE_URL).create(AuthService.class);
+        retrofit2.Response<LoginResponse> response = auth.refresh("Bearer " + token).execute();
+        if (response.isSuccessful() && response.body() != null && response.body().token != null) {
+            Log.i(TAG, "Token refreshed");
+            return response.body().token;
+        }
+        if (response.code() == 400 || response.code() == 401 || response.code() == 403) {
+            Log.w(TAG, "Token refresh refused: " + response.code());
+            return null;
+        }
+        throw new IOException("Token refresh failed: " + response.code());
+    }
 }
@@ -0,0 +1,178 @@
+package com.example.shipperapp.data;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.RequiresApi;
+
+import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.models.Order;
+import com.example.shipperapp.paging.PagedOrderList;
+import com.example.shipperapp.paging.ViewportPrefetcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Prefetches the detail of the orders on and near the screen of the order list, so the detail
+ * screen opens already populated. Checkpoints are not prefetched: the route screen pages them
+ * from the server itself.
+ *
+ * The detail goes through {@link OrderCache#load}, so a detail screen opened while it is
+ * loading waits for the same request. Fetches
+ * only start while no other request is running on the shared client, and the amount of
+ * prefetching follows the network: none on a slow link, visible rows only when metered.
+ */
+public class DetailPrefetcher {
+    private static final String TAG = "DetailPrefetcher";
+    // Below this estimated downstream bandwidth prefetching is off
+    private static final int SLOW_LINK_KBPS = 1000;
+    private static final int CONCURRENT_UNMETERED = 2;
+    private static final int AHEAD_ROWS_UNMETERED = 10;
+    private static final int CONCURRENT_METERED = 1;
+    // Same as the memory cache TTL: an order prefetched since then is still fresh
+    private static final long REFETCH_AFTER_MS = 2 * 60_000;
+
+    private final Context context;
+    private final ApiService api;
+    private final OrderStore store;
+    private final ViewportPrefetcher prefetcher;
+    private int aheadRows = AHEAD_ROWS_UNMETERED;
+
+    public DetailPrefetcher(Context context, ApiService api) {
+        this.context = context.getApplicationContext();
+        this.api = api;
+        this.store = OrderStore.get(context);
+        final Handler main = new Handler(Looper.getMainLooper());
+        prefetcher = new ViewportPrefetcher(this::fetch,
+                ownInFlight -> RetrofitClient.activeCallCount() > ownInFlight,
+                main::postDelayed,
+                REFETCH_AFTER_MS,
+                System::currentTimeMillis);
+    }
+
+    /** Rows {@code first..last} are on screen: wants them, then the rows around them, nearest first. */
+    public void onVisibleRange(PagedOrderList orders, int first, int last) {
+        List<Integer> ids = new ArrayList<>();
+        if (first >= 0 && last >= first) {
+            for (int p = first; p <= last; p++) {
+                addId(ids, orders, p);
+            }
+            for (int d = 1; d <= aheadRows; d++) {
+                addId(ids, orders, last + d);
+                addId(ids, orders, first - d);
+            }
+        }
+        prefetcher.setWanted(ids);
+    }
+
+    /** Re-reads the network type; call when the list comes to the foreground. */
+    public void refreshNetworkPolicy() {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        boolean connected;
+        int kbps = -1;
+        if (cm == null) {
+            connected = false;
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            NetworkCapabilities caps = activeCapabilities(cm);
+            connected = caps != null && caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+            if (caps != null) kbps = caps.getLinkDownstreamBandwidthKbps();
+        } else {
+            connected = hasActiveNetworkBeforeM(cm);
+        }
+        int concurrent;
+        if (!connected || (kbps >= 0 && kbps < SLOW_LINK_KBPS)) {
+            concurrent = 0;
+        } else if (cm.isActiveNetworkMetered()) {
+            concurrent = CONCURRENT_METERED;
+            aheadRows = 0;
+        } else {
+            concurrent = CONCURRENT_UNMETERED;
+            aheadRows = AHEAD_ROWS_UNMETERED;
+        }
+        prefetcher.setMaxConcurrent(concurrent);
+    }
+
+    public void pause() {
+        prefetcher.pause();
+    }
+
+    public void resume() {
+        prefetcher.resume();
+    }
+
+    public void cancelAll() {
+        prefetcher.cancelAll();
+        Log.d(TAG, prefetcher.stats());
+    }
+
+    private static void addId(List<Integer> ids, PagedOrderList orders, int position) {
+        Order o = position >= 0 && position < orders.size() ? orders.get(position) : null;
+        if (o != null) {
+            ids.add(o.orderId);
+        }
+    }
+
+    // Capabilities of the active network, or null when there is none
+    @RequiresApi(Build.VERSION_CODES.M)
+    private static NetworkCapabilities activeCapabilities(ConnectivityManager cm) {
+        Network network = cm.getActiveNetwork();
+        return network != null ? cm.getNetworkCapabilities(network) : null;
+    }
+
+    // API 21-22 have no getActiveNetwork(); the deprecated NetworkInfo is all there is
+    @SuppressWarnings("deprecation")
+    private static boolean hasActiveNetworkBeforeM(ConnectivityManager cm) {
+        return cm.getActiveNetworkInfo() != null;
+    }
+
+    // The load is left running on cancel: a detail screen may have joined it, and its result
+    // is cached either way. Cancelling only stops it from counting against the slots.
+    private ViewportPrefetcher.Cancellable fetch(final int orderId, final Runnable done) {
+        final boolean[] cancelled = {false};
+        if (store.memory().isFresh(orderId)) {
+            done.run();
+        } else {
+            store.memory().load(orderId, (id, callback) -> {
+                api.getOrderById(id).enqueue(new Callback<Order>() {
+                    @Override
+                    public void onResponse(Call<Order> call, Response<Order> response) {
+                        if (response.isSuccessful() && response.body() != null) {
+                            store.saveOrder(response.body());
+                            callback.onLoaded(response.body());
+                        } else {
+                            callback.onLoaded(null);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<Order> call, Throwable t) {
+                        callback.onFailed(t);
+                    }
+                });
+            }, new OrderCache.Callback() {
+                @Override
+                public void onLoaded(Order order) {
+                    if (!cancelled[0]) done.run();
+                }
+
+                @Override
+                public void onFailed(Throwable error) {
+                    if (!cancelled[0]) done.run();
+                }
+            });
+        }
+        return () -> cancelled[0] = true;
+    }
+}
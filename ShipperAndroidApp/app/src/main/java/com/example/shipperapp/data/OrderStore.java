@@ -0,0 +1,669 @@
+package com.example.shipperapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.shipperapp.models.DeliveryStaff;
+import com.example.shipperapp.models.LocationCheckpoint;
+import com.example.shipperapp.models.Order;
+import com.example.shipperapp.models.OrderChanges;
+import com.example.shipperapp.models.OrderPage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.example.shipperapp.data.ShipperDbHelper.T_CHECKPOINTS;
+import static com.example.shipperapp.data.ShipperDbHelper.T_ORDERS;
+import static com.example.shipperapp.data.ShipperDbHelper.T_STAFF;
+import static com.example.shipperapp.data.ShipperDbHelper.T_SYNC_STATE;
+
+/**
+ * Persistent on-device copy of the shipper's orders, staff record and checkpoints.
+ *
+ * Screens render from here first and then revalidate against the API
+ * (stale-while-revalidate). All database work runs on one background thread; the
+ * {@code load*} methods deliver their result on the main thread.
+ */
+public class OrderStore {
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    // Enough for the visible list window plus recently opened orders
+    private static final int MEMORY_CACHE_ORDERS = 300;
+    private static final long MEMORY_CACHE_TTL_MS = 2 * 60_000;
+
+    private static volatile OrderStore instance;
+
+    private final ShipperDbHelper helper;
+    private final OrderCache memory = new OrderCache(MEMORY_CACHE_ORDERS, MEMORY_CACHE_TTL_MS);
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "order-store");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Status changes still in StatusOutbox, by order id. Fetched copies of those orders carry
+    // the server's status from before the change and must not put it back on screen.
+    private final Map<Integer, PendingStatus> pendingStatuses = new ConcurrentHashMap<>();
+
+    private static final class PendingStatus {
+        final String key;
+        final String status;
+
+        PendingStatus(String key, String status) {
+            this.key = key;
+            this.status = status;
+        }
+    }
+
+    public static OrderStore get(Context context) {
+        OrderStore store = instance;
+        if (store == null) {
+            synchronized (OrderStore.class) {
+                store = instance;
+                if (store == null) {
+                    store = new OrderStore(context);
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    private OrderStore(Context context) {
+        helper = ShipperDbHelper.get(context);
+    }
+
+    /**
+     * Orders received from the server in the last couple of minutes, in memory. Every write
+     * below goes through it, so a detail screen can open without a request.
+     */
+    public OrderCache memory() {
+        return memory;
+    }
+
+    // --- async API used by the screens ---
+
+    public void loadOrders(final Callback<List<Order>> callback) {
+        io.execute(() -> deliver(callback, getOrders()));
+    }
+
+    /** One page of the cached list, with the list's current size. */
+    public void loadOrdersPage(final int offset, final int limit, final Callback<OrderPage> callback) {
+        io.execute(() -> deliver(callback, getOrdersPage(offset, limit)));
+    }
+
+    /** Picked-up, undelivered orders that have a delivery point (see {@link #getDeliveryTargets}). */
+    public void loadDeliveryTargets(final Callback<List<Order>> callback) {
+        io.execute(() -> deliver(callback, getDeliveryTargets()));
+    }
+
+    public void loadCarriedOrderIds(final Callback<int[]> callback) {
+        io.execute(() -> deliver(callback, getCarriedOrderIds()));
+    }
+
+    public void loadOrder(final int orderId, final Callback<Order> callback) {
+        io.execute(() -> deliver(callback, getOrder(orderId)));
+    }
+
+    public void saveOrders(final List<Order> orders) {
+        io.execute(() -> replaceOrders(orders));
+    }
+
+    public void saveOrder(final Order order) {
+        io.execute(() -> putOrder(order));
+    }
+
+    /** Records a status chosen locally, before the server has confirmed it (see {@link #setPendingStatus}). */
+    public void saveOrderStatus(final int orderId, final String status) {
+        io.execute(() -> putOrderStatus(orderId, status));
+    }
+
+    /** A status change for {@code orderId} was queued under {@code key}; it is shown until cleared. */
+    public void setPendingStatus(int orderId, String key, String status) {
+        pendingStatuses.put(orderId, new PendingStatus(key, status));
+    }
+
+    /**
+     * The change queued under {@code key} was delivered or dropped. Returns false when a
+     * later change for the order is pending, which stays.
+     */
+    public boolean clearPendingStatus(int orderId, String key) {
+        PendingStatus pending = pendingStatuses.get(orderId);
+        return pending != null && pending.key.equals(key) && pendingStatuses.remove(orderId, pending);
+    }
+
+    /** The status of a change not yet delivered for the order, else {@code fallback}. */
+    public String pendingStatus(int orderId, String fallback) {
+        PendingStatus pending = pendingStatuses.get(orderId);
+        return pending != null ? pending.status : fallback;
+    }
+
+    public void loadSyncCursor(final String key, final Callback<String> callback) {
+        io.execute(() -> deliver(callback, getSyncCursor(key)));
+    }
+
+    /** Delivers false when a full resync is needed (see {@link #mergeOrderChanges}). */
+    public void saveOrderChanges(final String cursorKey, final OrderChanges changes, final Callback<Boolean> callback) {
+        io.execute(() -> deliver(callback, mergeOrderChanges(cursorKey, changes)));
+    }
+
+    /** See {@link #putSnapshotPage}; the callback runs once the page is written. */
+    public void saveSnapshotPage(final String cursorKey, final List<Order> orders, final int startPosition,
+                                 final String cursor, final Callback<Boolean> callback) {
+        io.execute(() -> deliver(callback, putSnapshotPage(cursorKey, orders, startPosition, cursor)));
+    }
+
+    public void loadMyStaff(final Callback<DeliveryStaff> callback) {
+        io.execute(() -> deliver(callback, getMyStaff()));
+    }
+
+    public void saveMyStaff(final DeliveryStaff staff) {
+        io.execute(() -> putMyStaff(staff));
+    }
+
+    public void saveCheckpoint(final LocationCheckpoint checkpoint) {
+        io.execute(() -> putCheckpoints(Collections.singletonList(checkpoint)));
+    }
+
+    public void saveCheckpoints(final List<LocationCheckpoint> checkpoints) {
+        io.execute(() -> putCheckpoints(checkpoints));
+    }
+
+    public void clearAsync() {
+        io.execute(this::clear);
+    }
+
+    // --- synchronous API, call from a background thread only ---
+
+    /** Orders from the last list fetch, in the order the server returned them. */
+    public List<Order> getOrders() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        Map<Integer, DeliveryStaff> staffById = new HashMap<>();
+        List<Order> result = new ArrayList<>();
+        try (Cursor c = db.rawQuery("SELECT o.order_id, o.order_code, o.status, o.staff_id, "
+                + "s.full_name, s.phone_number, s.vehicle_type, s.vehicle_plate, s.is_available, o.delivery_lat, o.delivery_lng "
+                + "FROM " + T_ORDERS + " o LEFT JOIN " + T_STAFF + " s ON s.staff_id = o.staff_id "
+                + "WHERE o.list_position >= 0 ORDER BY o.list_position", null)) {
+            while (c.moveToNext()) {
+                result.add(readOrder(c, staffById));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Orders at list positions {@code offset .. offset + limit - 1}. Positions are dense, so this
+     * is a range scan on the list_position index however long the list is.
+     */
+    public OrderPage getOrdersPage(int offset, int limit) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        Map<Integer, DeliveryStaff> staffById = new HashMap<>();
+        OrderPage page = new OrderPage();
+        page.items = new ArrayList<>();
+        try (Cursor c = db.rawQuery("SELECT o.order_id, o.order_code, o.status, o.staff_id, "
+                + "s.full_name, s.phone_number, s.vehicle_type, s.vehicle_plate, s.is_available, o.delivery_lat, o.delivery_lng "
+                + "FROM " + T_ORDERS + " o LEFT JOIN " + T_STAFF + " s ON s.staff_id = o.staff_id "
+                + "WHERE o.list_position >= ? AND o.list_position < ? ORDER BY o.list_position",
+                new String[]{String.valueOf(offset), String.valueOf(offset + limit)})) {
+            while (c.moveToNext()) {
+                page.items.add(readOrder(c, staffById));
+            }
+        }
+        page.totalCount = (int) DatabaseUtils.queryNumEntries(db, T_ORDERS, "list_position >= 0");
+        return page;
+    }
+
+    public Order getOrder(int orderId) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        Order order = null;
+        try (Cursor c = db.rawQuery("SELECT o.order_id, o.order_code, o.status, o.staff_id, "
+                + "s.full_name, s.phone_number, s.vehicle_type, s.vehicle_plate, s.is_available, o.delivery_lat, o.delivery_lng "
+                + "FROM " + T_ORDERS + " o LEFT JOIN " + T_STAFF + " s ON s.staff_id = o.staff_id "
+                + "WHERE o.order_id = ?", new String[]{String.valueOf(orderId)})) {
+            if (c.moveToFirst()) {
+                order = readOrder(c, new HashMap<Integer, DeliveryStaff>());
+            }
+        }
+        if (order != null) {
+            order.checkpoints = getCheckpoints(orderId);
+        }
+        return order;
+    }
+
+    /**
+     * Orders picked up but not yet delivered that have a delivery point, with only the id,
+     * status and point filled in. The status is stored as the server sent it (enum number)
+     * or as chosen on the device (enum name), so both forms are matched.
+     */
+    public List<Order> getDeliveryTargets() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        List<Order> result = new ArrayList<>();
+        try (Cursor c = db.rawQuery("SELECT order_id, status, delivery_lat, delivery_lng FROM " + T_ORDERS
+                + " WHERE delivery_lat IS NOT NULL AND delivery_lng IS NOT NULL"
+                + " AND status IN ('1', '2', 'DaNhanChuaGiao', 'DaNhanDangGiao')", null)) {
+            while (c.moveToNext()) {
+                Order o = new Order();
+                o.orderId = c.getInt(0);
+                o.status = c.getString(1);
+                o.deliveryLatitude = c.getDouble(2);
+                o.deliveryLongitude = c.getDouble(3);
+                result.add(o);
+            }
+        }
+        return result;
+    }
+
+    /** Listed orders out for delivery (DaNhanDangGiao): the parcels the shipper is carrying. */
+    public int[] getCarriedOrderIds() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        try (Cursor c = db.rawQuery("SELECT order_id FROM " + T_ORDERS
+                + " WHERE list_position >= 0 AND status IN ('2', 'DaNhanDangGiao')", null)) {
+            int[] ids = new int[c.getCount()];
+            for (int i = 0; c.moveToNext(); i++) {
+                ids[i] = c.getInt(0);
+            }
+            return ids;
+        }
+    }
+
+    public List<LocationCheckpoint> getCheckpoints(int orderId) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        List<LocationCheckpoint> result = new ArrayList<>();
+        try (Cursor c = db.query(T_CHECKPOINTS,
+                new String[]{"checkpoint_id", "order_id", "latitude", "longitude", "location_name", "check_in_time", "notes"},
+                "order_id = ?", new String[]{String.valueOf(orderId)}, null, null, "check_in_time DESC")) {
+            while (c.moveToNext()) {
+                LocationCheckpoint cp = new LocationCheckpoint();
+                cp.checkpointId = c.getInt(0);
+                cp.orderId = c.getInt(1);
+                cp.latitude = c.getDouble(2);
+                cp.longitude = c.getDouble(3);
+                cp.locationName = c.getString(4);
+                cp.checkInTime = c.getString(5);
+                cp.notes = c.getString(6);
+                result.add(cp);
+            }
+        }
+        return result;
+    }
+
+    public DeliveryStaff getMyStaff() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        try (Cursor c = db.query(T_STAFF,
+                new String[]{"staff_id", "full_name", "phone_number", "vehicle_type", "vehicle_plate", "is_available"},
+                "is_me = 1", null, null, null, null, "1")) {
+            if (!c.moveToFirst()) {
+                return null;
+            }
+            DeliveryStaff s = new DeliveryStaff();
+            s.staffId = c.getInt(0);
+            s.fullName = c.getString(1);
+            s.phoneNumber = c.getString(2);
+            s.vehicleType = c.getString(3);
+            s.vehiclePlate = c.getString(4);
+            s.isAvailable = c.getInt(5) != 0;
+            return s;
+        }
+    }
+
+    /** Replaces the cached list with a fresh list fetch; orders no longer listed stay cached for detail views. */
+    public void replaceOrders(List<Order> orders) {
+        keepPendingStatuses(orders);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            writeOrderList(db, orders);
+            db.setTransactionSuccessful();
+            memory.putAll(orders);
+        } catch (RuntimeException ex) {
+            Log.e("OrderStore", "replaceOrders failed", ex);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Unlists the cached list and lists orders in its place; runs inside the caller's transaction
+    private static void writeOrderList(SQLiteDatabase db, List<Order> orders) {
+        long now = System.currentTimeMillis();
+        db.execSQL("UPDATE " + T_ORDERS + " SET list_position = -1 WHERE list_position >= 0");
+        SQLiteStatement upsert = db.compileStatement("INSERT OR REPLACE INTO " + T_ORDERS
+                + " (order_id, order_code, status, staff_id, list_position, updated_at, delivery_lat, delivery_lng)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+        for (int i = 0; i < orders.size(); i++) {
+            Order o = orders.get(i);
+            bindOrder(upsert, o, i, now);
+            upsert.executeInsert();
+            if (o.assignedStaff != null) {
+                writeStaff(db, o.assignedStaff, false);
+            }
+        }
+    }
+
+    /** Upserts one order (detail fetch or status update) without touching its list position. */
+    public void putOrder(Order order) {
+        if (order == null) return;
+        order.status = pendingStatus(order.orderId, order.status);
+        memory.put(order);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues v = new ContentValues();
+            v.put("order_code", order.orderCode != null ? order.orderCode : "");
+            v.put("status", order.status != null ? order.status : "");
+            if (order.assignedStaff != null) {
+                v.put("staff_id", order.assignedStaff.staffId);
+                writeStaff(db, order.assignedStaff, false);
+            }
+            v.put("updated_at", System.currentTimeMillis());
+            v.put("delivery_lat", order.deliveryLatitude);
+            v.put("delivery_lng", order.deliveryLongitude);
+            int updated = db.update(T_ORDERS, v, "order_id = ?", new String[]{String.valueOf(order.orderId)});
+            if (updated == 0) {
+                v.put("order_id", order.orderId);
+                db.insert(T_ORDERS, null, v);
+            }
+            if (order.checkpoints != null) {
+                writeCheckpoints(db, order.checkpoints);
+            }
+            db.setTransactionSuccessful();
+        } catch (RuntimeException ex) {
+            Log.e("OrderStore", "putOrder failed", ex);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public String getSyncCursor(String key) {
+        try (Cursor c = helper.getReadableDatabase().query(T_SYNC_STATE, new String[]{"value"},
+                "key = ?", new String[]{key}, null, null, null)) {
+            return c.moveToFirst() ? c.getString(0) : null;
+        }
+    }
+
+    /**
+     * Applies a delta-sync result to the cached list and stores the new cursor in the same
+     * transaction. Orders the server reports as removed (deleted or unassigned) are deleted
+     * and the rows below them move up; orders not listed yet go on top, in server order
+     * (newest first); listed ones keep their position. Returns false and changes nothing when
+     * the merged list still does not add up to the server's count, so only a full resync can
+     * set it right.
+     */
+    public boolean mergeOrderChanges(String cursorKey, OrderChanges changes) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        List<Order> changed = changes.changed != null ? changes.changed : new ArrayList<Order>();
+        keepPendingStatuses(changed);
+        db.beginTransaction();
+        try {
+            if (changes.fullSnapshot) {
+                writeOrderList(db, changed);
+            } else {
+                if (changes.removed != null) {
+                    for (Integer orderId : changes.removed) {
+                        removeOrder(db, orderId);
+                    }
+                }
+                long now = System.currentTimeMillis();
+                int[] positions = new int[changed.size()];
+                int added = 0;
+                for (int i = 0; i < changed.size(); i++) {
+                    positions[i] = listPosition(db, changed.get(i).orderId);
+                    if (positions[i] < 0) positions[i] = -1 - added++;
+                }
+                if (added > 0) {
+                    db.execSQL("UPDATE " + T_ORDERS + " SET list_position = list_position + ? WHERE list_position >= 0",
+                            new Object[]{added});
+                }
+                SQLiteStatement upsert = db.compileStatement("INSERT OR REPLACE INTO " + T_ORDERS
+                        + " (order_id, order_code, status, staff_id, list_position, updated_at, delivery_lat, delivery_lng)"
+                        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+                for (int i = 0; i < changed.size(); i++) {
+                    Order o = changed.get(i);
+                    int position = positions[i] < 0 ? -1 - positions[i] : positions[i] + added;
+                    bindOrder(upsert, o, position, now);
+                    upsert.executeInsert();
+                    if (o.assignedStaff != null) {
+                        writeStaff(db, o.assignedStaff, false);
+                    }
+                }
+            }
+            long listed = DatabaseUtils.queryNumEntries(db, T_ORDERS, "list_position >= 0");
+            if (listed != changes.activeCount) {
+                Log.w("OrderStore", "Delta sync mismatch: " + listed + " cached vs " + changes.activeCount + " on server");
+                return false;
+            }
+            writeSyncCursor(db, cursorKey, changes.cursor);
+            db.setTransactionSuccessful();
+            // Memory follows only a committed merge
+            if (!changes.fullSnapshot && changes.removed != null) {
+                for (Integer orderId : changes.removed) {
+                    memory.invalidate(orderId);
+                }
+            }
+            memory.putAll(changed);
+            return true;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Writes one page of a paged full snapshot at list positions from {@code startPosition}.
+     * The first page (position 0) unlists the previous list; the last page passes the
+     * snapshot's {@code cursor}, which is stored with it. Until then no cursor is saved, so an
+     * interrupted snapshot starts over on the next sync.
+     */
+    public boolean putSnapshotPage(String cursorKey, List<Order> orders, int startPosition, String cursor) {
+        keepPendingStatuses(orders);
+        memory.putAll(orders);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        long now = System.currentTimeMillis();
+        db.beginTransaction();
+        try {
+            if (startPosition == 0) {
+                db.execSQL("UPDATE " + T_ORDERS + " SET list_position = -1 WHERE list_position >= 0");
+                db.delete(T_SYNC_STATE, "key = ?", new String[]{cursorKey});
+            }
+            SQLiteStatement upsert = db.compileStatement("INSERT OR REPLACE INTO " + T_ORDERS
+                    + " (order_id, order_code, status, staff_id, list_position, updated_at, delivery_lat, delivery_lng)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            for (int i = 0; i < orders.size(); i++) {
+                Order o = orders.get(i);
+                bindOrder(upsert, o, startPosition + i, now);
+                upsert.executeInsert();
+                if (o.assignedStaff != null) {
+                    writeStaff(db, o.assignedStaff, false);
+                }
+            }
+            if (cursor != null) {
+                writeSyncCursor(db, cursorKey, cursor);
+            }
+            db.setTransactionSuccessful();
+            return true;
+        } catch (RuntimeException ex) {
+            Log.e("OrderStore", "putSnapshotPage failed", ex);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void keepPendingStatuses(List<Order> orders) {
+        if (pendingStatuses.isEmpty()) return;
+        for (Order o : orders) {
+            o.status = pendingStatus(o.orderId, o.status);
+        }
+    }
+
+    private static void writeSyncCursor(SQLiteDatabase db, String key, String cursor) {
+        ContentValues v = new ContentValues();
+        v.put("key", key);
+        v.put("value", cursor != null ? cursor : "");
+        db.insertWithOnConflict(T_SYNC_STATE, null, v, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // Deletes a cached order; if it was listed, the orders below it move up one row
+    private static void removeOrder(SQLiteDatabase db, int orderId) {
+        int position = listPosition(db, orderId);
+        db.delete(T_ORDERS, "order_id = ?", new String[]{String.valueOf(orderId)});
+        if (position >= 0) {
+            db.execSQL("UPDATE " + T_ORDERS + " SET list_position = list_position - 1 WHERE list_position > ?",
+                    new Object[]{position});
+        }
+    }
+
+    private static int listPosition(SQLiteDatabase db, int orderId) {
+        try (Cursor c = db.rawQuery("SELECT list_position FROM " + T_ORDERS + " WHERE order_id = ?",
+                new String[]{String.valueOf(orderId)})) {
+            return c.moveToFirst() ? c.getInt(0) : -1;
+        }
+    }
+
+    public void putOrderStatus(int orderId, String status) {
+        memory.putStatus(orderId, status);
+        ContentValues v = new ContentValues();
+        v.put("status", status != null ? status : "");
+        v.put("updated_at", System.currentTimeMillis());
+        helper.getWritableDatabase().update(T_ORDERS, v, "order_id = ?", new String[]{String.valueOf(orderId)});
+    }
+
+    public void putMyStaff(DeliveryStaff staff) {
+        if (staff == null) return;
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("UPDATE " + T_STAFF + " SET is_me = 0 WHERE is_me = 1");
+            writeStaff(db, staff, true);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void putCheckpoints(List<LocationCheckpoint> checkpoints) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            writeCheckpoints(db, checkpoints);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Drops everything cached for the previous account. */
+    public void clear() {
+        memory.clear();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(T_ORDERS, null, null);
+            db.delete(T_STAFF, null, null);
+            db.delete(T_CHECKPOINTS, null, null);
+            db.delete(T_SYNC_STATE, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private <T> void deliver(final Callback<T> callback, final T result) {
+        mainHandler.post(() -> callback.onResult(result));
+    }
+
+    private static Order readOrder(Cursor c, Map<Integer, DeliveryStaff> staffById) {
+        Order o = new Order();
+        o.orderId = c.getInt(0);
+        o.orderCode = c.getString(1);
+        o.status = c.getString(2);
+        if (!c.isNull(3) && !c.isNull(4)) {
+            int staffId = c.getInt(3);
+            DeliveryStaff s = staffById.get(staffId);
+            if (s == null) {
+                s = new DeliveryStaff();
+                s.staffId = staffId;
+                s.fullName = c.getString(4);
+                s.phoneNumber = c.getString(5);
+                s.vehicleType = c.getString(6);
+                s.vehiclePlate = c.getString(7);
+                s.isAvailable = c.getInt(8) != 0;
+                staffById.put(staffId, s);
+            }
+            o.assignedStaff = s;
+        }
+        if (!c.isNull(9) && !c.isNull(10)) {
+            o.deliveryLatitude = c.getDouble(9);
+            o.deliveryLongitude = c.getDouble(10);
+        }
+        return o;
+    }
+
+    private static void bindOrder(SQLiteStatement st, Order o, int position, long now) {
+        st.clearBindings();
+        st.bindLong(1, o.orderId);
+        st.bindString(2, o.orderCode != null ? o.orderCode : "");
+        st.bindString(3, o.status != null ? o.status : "");
+        if (o.assignedStaff != null) {
+            st.bindLong(4, o.assignedStaff.staffId);
+        } else {
+            st.bindNull(4);
+        }
+        st.bindLong(5, position);
+        st.bindLong(6, now);
+        if (o.deliveryLatitude != null && o.deliveryLongitude != null) {
+            st.bindDouble(7, o.deliveryLatitude);
+            st.bindDouble(8, o.deliveryLongitude);
+        } else {
+            st.bindNull(7);
+            st.bindNull(8);
+        }
+    }
+
+    private static void writeStaff(SQLiteDatabase db, DeliveryStaff s, boolean isMe) {
+        ContentValues v = new ContentValues();
+        v.put("full_name", s.fullName != null ? s.fullName : "");
+        v.put("phone_number", s.phoneNumber != null ? s.phoneNumber : "");
+        v.put("vehicle_type", s.vehicleType != null ? s.vehicleType : "");
+        v.put("vehicle_plate", s.vehiclePlate != null ? s.vehiclePlate : "");
+        v.put("is_available", s.isAvailable ? 1 : 0);
+        if (isMe) {
+            v.put("is_me", 1);
+        }
+        int updated = db.update(T_STAFF, v, "staff_id = ?", new String[]{String.valueOf(s.staffId)});
+        if (updated == 0) {
+            v.put("staff_id", s.staffId);
+            db.insert(T_STAFF, null, v);
+        }
+    }
+
+    private static void writeCheckpoints(SQLiteDatabase db, List<LocationCheckpoint> checkpoints) {
+        SQLiteStatement st = db.compileStatement("INSERT OR REPLACE INTO " + T_CHECKPOINTS
+                + " (checkpoint_id, order_id, latitude, longitude, location_name, check_in_time, notes) VALUES (?, ?, ?, ?, ?, ?, ?)");
+        for (LocationCheckpoint cp : checkpoints) {
+            if (cp == null || cp.checkpointId <= 0) continue; // only server-acknowledged checkpoints have an id
+            st.clearBindings();
+            st.bindLong(1, cp.checkpointId);
+            st.bindLong(2, cp.orderId);
+            st.bindDouble(3, cp.latitude);
+            st.bindDouble(4, cp.longitude);
+            st.bindString(5, cp.locationName != null ? cp.locationName : "");
+            st.bindString(6, cp.checkInTime != null ? cp.checkInTime : "");
+            st.bindString(7, cp.notes != null ? cp.notes : "");
+            st.executeInsert();
+        }
+    }
+}
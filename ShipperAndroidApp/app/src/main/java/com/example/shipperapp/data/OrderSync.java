@@ -0,0 +1,145 @@
+package com.example.shipperapp.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.models.Order;
+import com.example.shipperapp.models.OrderChanges;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Delta sync of a staff member's assigned orders.
+ *
+ * The cached list in {@link OrderStore} carries the server cursor it was synced to; a
+ * refresh asks {@code api/orders/staff/{id}/changes} only for orders changed since then and
+ * merges them in, so the payload grows with the number of changes rather than with the
+ * shipper's delivery history. A missing or rejected cursor (410), or a merged list that no
+ * longer adds up to the server's count, falls back to a full snapshot, which is downloaded
+ * and written one page at a time so the first rows can be shown before the rest arrives.
+ */
+public class OrderSync {
+    private static final String TAG = "OrderSync";
+
+    private static final int SNAPSHOT_PAGE_SIZE = 200;
+
+    /** Sync progress, delivered on the main thread. The synced list is read back from {@link OrderStore}. */
+    public interface Listener {
+        /** The cached list changed; {@code complete} is false while snapshot pages are still coming. */
+        void onUpdated(boolean complete);
+
+        void onFailed();
+    }
+
+    private final OrderStore store;
+    private final ApiService api;
+
+    public OrderSync(Context context) {
+        store = OrderStore.get(context);
+        api = RetrofitClient.getApiServiceWithAuth(context, RetrofitClient.DEFAULT_BASE_URL);
+    }
+
+    public void sync(final int staffId, final Listener listener) {
+        final String key = cursorKey(staffId);
+        store.loadSyncCursor(key, cursor -> fetch(staffId, key, cursor, listener));
+    }
+
+    /**
+     * Continues a full resync whose first snapshot page was fetched elsewhere (the bootstrap
+     * call); anything else starts a normal sync.
+     */
+    public void syncFrom(final int staffId, final OrderChanges firstPage, final Listener listener) {
+        if (firstPage == null || !firstPage.fullSnapshot) {
+            sync(staffId, listener);
+            return;
+        }
+        onSnapshotPage(staffId, cursorKey(staffId), firstPage, 0, null, listener);
+    }
+
+    private void fetch(final int staffId, final String key, final String cursor, final Listener listener) {
+        if (cursor == null) {
+            fetchSnapshot(staffId, key, null, 0, null, listener);
+            return;
+        }
+        api.getOrderChanges(staffId, cursor, null, null).enqueue(new Callback<OrderChanges>() {
+            @Override
+            public void onResponse(Call<OrderChanges> call, Response<OrderChanges> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    final OrderChanges changes = response.body();
+                    Log.d(TAG, "Delta: " + (changes.changed != null ? changes.changed.size() : 0) + " orders");
+                    store.saveOrderChanges(key, changes, merged -> {
+                        if (merged) {
+                            listener.onUpdated(true);
+                        } else {
+                            fetch(staffId, key, null, listener);
+                        }
+                    });
+                } else if (response.code() == 410) {
+                    Log.i(TAG, "Sync cursor rejected, doing a full resync");
+                    fetch(staffId, key, null, listener);
+                } else {
+                    Log.e(TAG, "Order sync failed: " + response.code());
+                    listener.onFailed();
+                }
+            }
+
+            @Override
+            public void onFailure(Call<OrderChanges> call, Throwable t) {
+                Log.e(TAG, "Order sync failed", t);
+                listener.onFailed();
+            }
+        });
+    }
+
+    // The cursor of the first page is kept for the whole snapshot: anything that changes while
+    // the later pages download is newer than it and comes back with the next delta
+    private void fetchSnapshot(final int staffId, final String key, final Integer afterId, final int position,
+                               final String snapshotCursor, final Listener listener) {
+        api.getOrderChanges(staffId, null, afterId, SNAPSHOT_PAGE_SIZE).enqueue(new Callback<OrderChanges>() {
+            @Override
+            public void onResponse(Call<OrderChanges> call, Response<OrderChanges> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    onSnapshotPage(staffId, key, response.body(), position, snapshotCursor, listener);
+                } else {
+                    Log.e(TAG, "Order snapshot failed: " + response.code());
+                    listener.onFailed();
+                }
+            }
+
+            @Override
+            public void onFailure(Call<OrderChanges> call, Throwable t) {
+                Log.e(TAG, "Order snapshot failed", t);
+                listener.onFailed();
+            }
+        });
+    }
+
+    private void onSnapshotPage(final int staffId, final String key, final OrderChanges page, final int position,
+                                final String snapshotCursor, final Listener listener) {
+        final List<Order> orders = page.changed != null ? page.changed : new ArrayList<Order>();
+        final String cursor = snapshotCursor != null ? snapshotCursor : page.cursor;
+        final boolean last = page.nextAfterId == null || orders.isEmpty();
+        Log.d(TAG, "Snapshot page at " + position + ": " + orders.size() + " of " + page.activeCount + " orders");
+        store.saveSnapshotPage(key, orders, position, last ? cursor : null, saved -> {
+            if (!saved) {
+                listener.onFailed();
+                return;
+            }
+            listener.onUpdated(last);
+            if (!last) {
+                fetchSnapshot(staffId, key, page.nextAfterId, position + orders.size(), cursor, listener);
+            }
+        });
+    }
+
+    private static String cursorKey(int staffId) {
+        return "orders_by_staff:" + staffId;
+    }
+}
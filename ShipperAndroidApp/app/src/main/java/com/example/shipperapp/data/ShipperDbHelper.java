@@ -0,0 +1,127 @@
+package com.example.shipperapp.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * On-device SQLite schema for the offline order store and the status outbox.
+ */
+class ShipperDbHelper extends SQLiteOpenHelper {
+    private static final String DB_NAME = "shipper.db";
+    private static final int DB_VERSION = 5;
+
+    static final String T_ORDERS = "orders";
+    static final String T_STAFF = "delivery_staff";
+    static final String T_CHECKPOINTS = "checkpoints";
+    static final String T_STATUS_OUTBOX = "status_outbox";
+    static final String T_SYNC_STATE = "sync_state";
+
+    private static volatile ShipperDbHelper instance;
+
+    // One helper (and so one connection pool) per process, shared by OrderStore and StatusOutbox
+    static ShipperDbHelper get(Context context) {
+        ShipperDbHelper helper = instance;
+        if (helper == null) {
+            synchronized (ShipperDbHelper.class) {
+                helper = instance;
+                if (helper == null) {
+                    helper = new ShipperDbHelper(context);
+                    instance = helper;
+                }
+            }
+        }
+        return helper;
+    }
+
+    private ShipperDbHelper(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // WAL lets the UI read the cached list while a refresh is being written
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_ORDERS + " ("
+                + "order_id INTEGER PRIMARY KEY, "
+                + "order_code TEXT NOT NULL DEFAULT '', "
+                + "status TEXT NOT NULL DEFAULT '', "
+                + "staff_id INTEGER, "
+                + "list_position INTEGER NOT NULL DEFAULT -1, "  // -1 = not part of the last list fetch
+                + "updated_at INTEGER NOT NULL, "
+                + "delivery_lat REAL, "
+                + "delivery_lng REAL)");
+        db.execSQL("CREATE INDEX idx_orders_status ON " + T_ORDERS + " (status)");
+        db.execSQL("CREATE INDEX idx_orders_list ON " + T_ORDERS + " (list_position)");
+
+        db.execSQL("CREATE TABLE " + T_STAFF + " ("
+                + "staff_id INTEGER PRIMARY KEY, "
+                + "full_name TEXT NOT NULL DEFAULT '', "
+                + "phone_number TEXT NOT NULL DEFAULT '', "
+                + "vehicle_type TEXT NOT NULL DEFAULT '', "
+                + "vehicle_plate TEXT NOT NULL DEFAULT '', "
+                + "is_available INTEGER NOT NULL DEFAULT 0, "
+                + "is_me INTEGER NOT NULL DEFAULT 0)");
+
+        db.execSQL("CREATE TABLE " + T_CHECKPOINTS + " ("
+                + "checkpoint_id INTEGER PRIMARY KEY, "
+                + "order_id INTEGER NOT NULL, "
+                + "latitude REAL NOT NULL, "
+                + "longitude REAL NOT NULL, "
+                + "location_name TEXT NOT NULL DEFAULT '', "
+                + "check_in_time TEXT NOT NULL DEFAULT '', "
+                + "notes TEXT NOT NULL DEFAULT '')");
+        db.execSQL("CREATE INDEX idx_checkpoints_order ON " + T_CHECKPOINTS + " (order_id)");
+
+        createStatusOutbox(db);
+        createSyncState(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createStatusOutbox(db);
+        }
+        if (oldVersion < 3) {
+            createSyncState(db);
+        }
+        if (oldVersion < 4) {
+            // Filled in by the next sync (the cursor is dropped so it is a full one)
+            db.execSQL("ALTER TABLE " + T_ORDERS + " ADD COLUMN delivery_lat REAL");
+            db.execSQL("ALTER TABLE " + T_ORDERS + " ADD COLUMN delivery_lng REAL");
+            db.delete(T_SYNC_STATE, null, null);
+        }
+        if (oldVersion < 5 && oldVersion >= 2) {
+            // Queued before this: rejected changes fall back to a fresh fetch as they used to
+            db.execSQL("ALTER TABLE " + T_STATUS_OUTBOX + " ADD COLUMN previous_status TEXT");
+        }
+    }
+
+    private static void createSyncState(SQLiteDatabase db) {
+        // Delta-sync cursors, written in the same transaction as the data they describe
+        db.execSQL("CREATE TABLE " + T_SYNC_STATE + " ("
+                + "key TEXT PRIMARY KEY, "
+                + "value TEXT NOT NULL)");
+    }
+
+    private static void createStatusOutbox(SQLiteDatabase db) {
+        // Status changes not yet acknowledged by the server, replayed in id order; previous_status
+        // is what the order goes back to if the server refuses the change
+        db.execSQL("CREATE TABLE " + T_STATUS_OUTBOX + " ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "idempotency_key TEXT NOT NULL UNIQUE, "
+                + "order_id INTEGER NOT NULL, "
+                + "status INTEGER NOT NULL, "
+                + "previous_status TEXT, "
+                + "staff_id TEXT NOT NULL DEFAULT '', "
+                + "notes TEXT NOT NULL DEFAULT '', "
+                + "created_at INTEGER NOT NULL, "
+                + "attempts INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_status_outbox_order ON " + T_STATUS_OUTBOX + " (order_id)");
+    }
+}
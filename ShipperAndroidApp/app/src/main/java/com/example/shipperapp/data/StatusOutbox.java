@@ -0,0 +1,281 @@
+package com.example.shipperapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.models.Order;
+import com.example.shipperapp.models.UpdateOrderStatusDto;
+import com.example.shipperapp.telemetry.PerfTelemetry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+
+import static com.example.shipperapp.data.ShipperDbHelper.T_STATUS_OUTBOX;
+
+/**
+ * Persistent outbox for order status changes.
+ *
+ * A status change is written to SQLite with a client-generated idempotency key and the
+ * screen moves on immediately; the outbox then sends it in the background. Entries for the
+ * same order are replayed strictly in the order they were made: a failed entry holds back
+ * the later ones for that order, other orders keep going. Transient failures retry with
+ * exponential backoff and jitter, and the outbox drains as soon as the network comes back.
+ * The key travels in the {@code Idempotency-Key} header, so a request that reached the
+ * server but whose response was lost is not applied a second time on retry.
+ *
+ * The order shows the new status from the moment it is queued ({@link OrderStore#setPendingStatus}),
+ * including over fetches that arrive before it is sent. When the server refuses it for good,
+ * the order goes back to the status it had before, and later changes for that order, made on
+ * top of the refused one, are dropped with it.
+ */
+public class StatusOutbox {
+    private static final String TAG = "StatusOutbox";
+    private static final long BACKOFF_BASE_MS = 2_000;
+    private static final long BACKOFF_MAX_MS = 5 * 60_000;
+
+    /** Outcome of queued status changes, delivered on the main thread. */
+    public interface Listener {
+        /** The server applied the change (or had already applied it); {@code order} is its copy. */
+        void onDelivered(Order order);
+
+        /**
+         * The server refused the change for good; it has been dropped from the outbox with the
+         * later changes for the order, and the order's previous status restored in the store.
+         */
+        void onRejected(int orderId, int status, int httpCode);
+    }
+
+    private static final class Entry {
+        long id;
+        String key;
+        int orderId;
+        String previousStatus;
+        long createdAt;
+        final UpdateOrderStatusDto dto = new UpdateOrderStatusDto();
+    }
+
+    private static volatile StatusOutbox instance;
+
+    private final ShipperDbHelper helper;
+    private final OrderStore store;
+    private final ApiService api;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "status-outbox");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Random jitter = new Random();
+
+    private static final int SENT = 0;
+    private static final int REJECTED = 1;
+    private static final int RETRY = 2;
+
+    // executor-thread state
+    private ScheduledFuture<?> retry;
+    private int consecutiveFailures = 0;
+
+    public static StatusOutbox get(Context context) {
+        StatusOutbox outbox = instance;
+        if (outbox == null) {
+            synchronized (StatusOutbox.class) {
+                outbox = instance;
+                if (outbox == null) {
+                    outbox = new StatusOutbox(context.getApplicationContext());
+                    instance = outbox;
+                }
+            }
+        }
+        return outbox;
+    }
+
+    private StatusOutbox(Context context) {
+        helper = ShipperDbHelper.get(context);
+        store = OrderStore.get(context);
+        api = RetrofitClient.getApiServiceWithAuth(context, RetrofitClient.DEFAULT_BASE_URL);
+        // Anything left from a previous process is sent as soon as possible
+        executor.execute(this::drain);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Queues a status change and starts sending it. {@code previousStatus} (as stored in
+     * {@link Order#status}) is restored if the server refuses the change.
+     *
+     * @return the idempotency key of the new entry
+     */
+    public String enqueue(final int orderId, final int status, final String previousStatus,
+                          final String staffId, final String notes) {
+        final String key = UUID.randomUUID().toString();
+        final long createdAt = System.currentTimeMillis();
+        store.setPendingStatus(orderId, key, String.valueOf(status));
+        executor.execute(() -> {
+            ContentValues v = new ContentValues();
+            v.put("idempotency_key", key);
+            v.put("order_id", orderId);
+            v.put("status", status);
+            v.put("previous_status", previousStatus);
+            v.put("staff_id", staffId != null ? staffId : "");
+            v.put("notes", notes != null ? notes : "");
+            v.put("created_at", createdAt);
+            helper.getWritableDatabase().insert(T_STATUS_OUTBOX, null, v);
+            drain();
+        });
+        return key;
+    }
+
+    /** Connectivity is back: skip the remaining backoff and send everything now. */
+    public void onNetworkAvailable() {
+        executor.execute(() -> {
+            consecutiveFailures = 0;
+            drain();
+        });
+    }
+
+    private void drain() {
+        if (retry != null) {
+            retry.cancel(false);
+            retry = null;
+        }
+        SQLiteDatabase db = helper.getWritableDatabase();
+        // Read the queue up front; rows are deleted while sending
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor c = db.query(T_STATUS_OUTBOX,
+                new String[]{"id", "idempotency_key", "order_id", "status", "staff_id", "notes", "created_at", "previous_status"},
+                null, null, null, null, "id")) {
+            while (c.moveToNext()) {
+                Entry e = new Entry();
+                e.id = c.getLong(0);
+                e.key = c.getString(1);
+                e.dto.orderId = String.valueOf(c.getInt(2));
+                e.orderId = c.getInt(2);
+                e.dto.status = c.getInt(3);
+                e.dto.staffId = c.getString(4);
+                e.dto.notes = c.getString(5);
+                e.createdAt = c.getLong(6);
+                e.previousStatus = c.getString(7);
+                entries.add(e);
+                // After a restart: keep showing the queued status over fetched copies
+                store.setPendingStatus(e.orderId, e.key, String.valueOf(e.dto.status));
+            }
+        }
+        Set<Integer> blockedOrders = new HashSet<>();
+        Set<Integer> rejectedOrders = new HashSet<>();
+        boolean failed = false;
+        for (Entry e : entries) {
+            if (blockedOrders.contains(e.orderId) || rejectedOrders.contains(e.orderId)) {
+                continue; // keep per-order order: wait for the earlier change to go through
+            }
+            int outcome = send(db, e.id, e.key, e.orderId, e.dto, e.createdAt, e.previousStatus);
+            if (outcome == REJECTED) {
+                rejectedOrders.add(e.orderId);
+            } else if (outcome == RETRY) {
+                blockedOrders.add(e.orderId);
+                failed = true;
+            }
+        }
+        if (failed) {
+            consecutiveFailures++;
+            long backoff = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(consecutiveFailures - 1, 16));
+            backoff = backoff / 2 + (long) (jitter.nextDouble() * backoff / 2);
+            Log.w(TAG, "Status changes pending for orders " + blockedOrders + ", retry in " + backoff + " ms");
+            retry = executor.schedule(this::drain, backoff, TimeUnit.MILLISECONDS);
+        } else {
+            consecutiveFailures = 0;
+        }
+    }
+
+    // Returns RETRY when the entry should be retried later
+    private int send(SQLiteDatabase db, long id, String key, int orderId, UpdateOrderStatusDto dto, long createdAt,
+                     String previousStatus) {
+        String[] idArg = {String.valueOf(id)};
+        try {
+            Response<Order> response = api.updateOrderStatus(orderId, key, dto).execute();
+            if (response.isSuccessful()) {
+                db.delete(T_STATUS_OUTBOX, "id = ?", idArg);
+                PerfTelemetry.statusAcked(createdAt);
+                store.clearPendingStatus(orderId, key);
+                final Order order = response.body();
+                // A later change for the same order is still queued: keep showing that one
+                boolean superseded = DatabaseUtils.queryNumEntries(db, T_STATUS_OUTBOX,
+                        "order_id = ?", new String[]{String.valueOf(orderId)}) > 0;
+                if (order != null && !superseded) {
+                    store.saveOrder(order);
+                    mainHandler.post(() -> {
+                        for (Listener l : listeners) l.onDelivered(order);
+                    });
+                }
+                return SENT;
+            }
+            final int code = response.code();
+            if (isPermanentFailure(code)) {
+                String err = response.errorBody() != null ? response.errorBody().string() : "";
+                Log.e(TAG, "Status change for order " + orderId + " rejected: " + code + " " + err);
+                rollBack(db, orderId, previousStatus);
+                final int status = dto.status;
+                mainHandler.post(() -> {
+                    for (Listener l : listeners) l.onRejected(orderId, status, code);
+                });
+                return REJECTED;
+            }
+            Log.w(TAG, "Status change for order " + orderId + " failed: " + code);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Status change for order " + orderId + " failed: " + e.getMessage());
+        }
+        db.execSQL("UPDATE " + T_STATUS_OUTBOX + " SET attempts = attempts + 1 WHERE id = ?", idArg);
+        return RETRY;
+    }
+
+    // Drops the refused change and the ones queued after it for the same order (earlier ones
+    // are already sent), and shows the status from before it again, unless the shipper has
+    // queued a newer change meanwhile that is still on its way to the outbox
+    private void rollBack(SQLiteDatabase db, int orderId, String previousStatus) {
+        String[] orderArg = {String.valueOf(orderId)};
+        boolean shown = false;
+        try (Cursor c = db.query(T_STATUS_OUTBOX, new String[]{"idempotency_key"}, "order_id = ?", orderArg,
+                null, null, null)) {
+            while (c.moveToNext()) {
+                shown |= store.clearPendingStatus(orderId, c.getString(0));
+            }
+        }
+        db.delete(T_STATUS_OUTBOX, "order_id = ?", orderArg);
+        if (shown && previousStatus != null) {
+            // On the store's thread, so it lands after the optimistic write it undoes
+            store.saveOrderStatus(orderId, previousStatus);
+        }
+    }
+
+    // 409: the server is still processing an earlier attempt with the same key
+    private static boolean isPermanentFailure(int code) {
+        return code >= 400 && code < 500
+                && code != 401 && code != 403 && code != 408 && code != 409 && code != 429;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.shipperapp.telemetry;
+
+import android.app.Activity;
+import android.content.Context;
+import android.location.Location;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Performance samples taken on the device: frame times while the order list scrolls, status
+ * change tap to server ack, and getLastLocation() latency and fix age. The rings are
+ * allocated once (about 60 KB in all) and recording never allocates. {@link #export} writes
+ * them to files/telemetry for {@code TelemetrySummary} (core); see the README for pulling them.
+ */
+public final class PerfTelemetry {
+    private static final String DIR = "telemetry";
+    private static final int KEEP_EXPORTS = 5;
+
+    /** Frame duration (us) while {@code recyclerViewOrders} scrolls; budget is one 60 Hz frame. */
+    public static final SampleRing LIST_FRAMES = new SampleRing("list_scroll_frame", "us", 16_667, 4096);
+    /** Tap on "update status" to the server's 2xx (ms), including time spent queued offline. */
+    public static final SampleRing STATUS_ACK = new SampleRing("status_ack", "ms", 2_000, 256);
+    /** getLastLocation() call to its result (ms). */
+    public static final SampleRing FIX_LATENCY = new SampleRing("last_location_latency", "ms", 1_000, 256);
+    /** Age of the fix getLastLocation() returned (ms): how stale a check-in position can be. */
+    public static final SampleRing FIX_AGE = new SampleRing("last_location_age", "ms", 30_000, 256);
+
+    private static final List<SampleRing> RINGS = Arrays.asList(LIST_FRAMES, STATUS_ACK, FIX_LATENCY, FIX_AGE);
+
+    private static Handler frameMetricsHandler;
+    private static long exportedTotal;
+
+    private PerfTelemetry() {
+    }
+
+    /** The status change made at {@code tappedAtMillis} (wall clock) was acknowledged. */
+    public static void statusAcked(long tappedAtMillis) {
+        long now = System.currentTimeMillis();
+        STATUS_ACK.record(now, now - tappedAtMillis);
+    }
+
+    /** getLastLocation() asked at {@code askedAtElapsed} ({@link SystemClock#elapsedRealtime}) answered. */
+    public static void lastLocation(long askedAtElapsed, Location location) {
+        long now = System.currentTimeMillis();
+        FIX_LATENCY.record(now, SystemClock.elapsedRealtime() - askedAtElapsed);
+        if (location != null) {
+            FIX_AGE.record(now, (SystemClock.elapsedRealtimeNanos() - location.getElapsedRealtimeNanos()) / 1_000_000);
+        }
+    }
+
+    /** Records the frames of {@code activity} drawn while {@code list} is scrolling. */
+    public static void watchScrollFrames(Activity activity, RecyclerView list) {
+        ScrollFrames frames = new ScrollFrames();
+        list.addOnScrollListener(frames);
+        if (Build.VERSION.SDK_INT >= 24) {
+            activity.getWindow().addOnFrameMetricsAvailableListener(new FrameDurations(frames), frameMetricsHandler());
+        }
+    }
+
+    /**
+     * Writes every ring to a new file under files/telemetry and removes all but the last
+     * {@link #KEEP_EXPORTS} exports. Skipped (returns null) when nothing was recorded since
+     * the previous export. Call from a background thread.
+     */
+    public static synchronized File export(Context context) throws IOException {
+        long total = 0;
+        for (SampleRing ring : RINGS) total += ring.total();
+        if (total == exportedTotal) return null;
+
+        File dir = new File(context.getFilesDir(), DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        long now = System.currentTimeMillis();
+        File file = new File(dir, "perf-" + now + ".bin");
+        try (OutputStream out = new FileOutputStream(file)) {
+            TelemetryFile.write(out, now, RINGS);
+        }
+        exportedTotal = total;
+
+        File[] exports = dir.listFiles((d, name) -> name.startsWith("perf-") && name.endsWith(".bin"));
+        if (exports != null && exports.length > KEEP_EXPORTS) {
+            Arrays.sort(exports, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            for (int i = 0; i < exports.length - KEEP_EXPORTS; i++) {
+                exports[i].delete();
+            }
+        }
+        return file;
+    }
+
+    // Frame metrics are delivered off the main thread so recording adds nothing to the frame
+    private static synchronized Handler frameMetricsHandler() {
+        if (frameMetricsHandler == null) {
+            HandlerThread thread = new HandlerThread("frame-metrics");
+            thread.start();
+            frameMetricsHandler = new Handler(thread.getLooper());
+        }
+        return frameMetricsHandler;
+    }
+
+    // API 24+: the frame's own duration from FrameMetrics (FrameDurations). Before that, the
+    // interval between Choreographer frames, which shows the same jank (33 ms = a dropped frame).
+    private static final class ScrollFrames extends RecyclerView.OnScrollListener implements Choreographer.FrameCallback {
+        volatile boolean scrolling;
+        // Main thread: a frame callback is posted, and the frame before it
+        private boolean posted;
+        private long lastFrameNanos;
+
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+            scrolling = newState != RecyclerView.SCROLL_STATE_IDLE;
+            if (scrolling && !posted && Build.VERSION.SDK_INT < 24) {
+                posted = true;
+                lastFrameNanos = 0;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!scrolling) {
+                posted = false;
+                return;
+            }
+            if (lastFrameNanos != 0) {
+                LIST_FRAMES.record(System.currentTimeMillis(), (frameTimeNanos - lastFrameNanos) / 1000);
+            }
+            lastFrameNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    // Its own class: the interface does not exist before API 24
+    @RequiresApi(24)
+    private static final class FrameDurations implements Window.OnFrameMetricsAvailableListener {
+        private final ScrollFrames frames;
+
+        FrameDurations(ScrollFrames frames) {
+            this.frames = frames;
+        }
+
+        @Override
+        public void onFrameMetricsAvailable(Window window, FrameMetrics metrics, int dropCountSinceLastInvocation) {
+            if (frames.scrolling) {
+                LIST_FRAMES.record(System.currentTimeMillis(), metrics.getMetric(FrameMetrics.TOTAL_DURATION) / 1000);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.shipperapp.tracking;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+/**
+ * Draws the route of a {@link CheckpointTrack} and lets the user pan (drag) and zoom (pinch,
+ * double tap). Each frame asks the track for the points that matter at one pixel of
+ * tolerance inside the visible area, so a long route is drawn from a fraction of its points
+ * at any zoom. Buffers are allocated once per track; drawing does not allocate.
+ */
+public class CheckpointPathView extends View {
+    // Zoom limits: street level, and a little wider than the whole route
+    private static final double MIN_METERS_PER_PIXEL = 0.05;
+    private static final double MAX_ZOOM_OUT = 4;
+
+    private final Paint routePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint startPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint endPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final ScaleGestureDetector scaleDetector;
+    private final GestureDetector gestureDetector;
+
+    private CheckpointTrack track;
+    private int[] runs = new int[0];
+    private float[] lines = new float[0];
+
+    // Camera: centre of the view and scale, in a local equirectangular projection of the track
+    private double centerLat;
+    private double centerLng;
+    private double metersPerPixel;
+    private double fitMetersPerPixel;
+    private double metersPerDegLat;
+    private double metersPerDegLng;
+
+    public CheckpointPathView(Context context) {
+        this(context, null);
+    }
+
+    public CheckpointPathView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        routePaint.setColor(Color.rgb(0x19, 0x76, 0xD2));
+        routePaint.setStrokeWidth(3 * density);
+        routePaint.setStrokeCap(Paint.Cap.ROUND);
+        startPaint.setColor(Color.rgb(0x38, 0x8E, 0x3C));
+        endPaint.setColor(Color.rgb(0xD3, 0x2F, 0x2F));
+
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                zoomAt(detector.getFocusX(), detector.getFocusY(), detector.getScaleFactor());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, MotionEvent e2, float dx, float dy) {
+                centerLng += dx * metersPerPixel / metersPerDegLng;
+                centerLat -= dy * metersPerPixel / metersPerDegLat;
+                invalidate();
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(MotionEvent e) {
+                zoomAt(e.getX(), e.getY(), 2f);
+                return true;
+            }
+        });
+    }
+
+    /** Shows a finished track, zoomed to fit. */
+    public void setTrack(CheckpointTrack track) {
+        this.track = track;
+        runs = new int[2 * track.size()];
+        lines = new float[4 * track.size()];
+        metersPerDegLat = Math.toRadians(1) * Geo.EARTH_RADIUS_M;
+        metersPerDegLng = metersPerDegLat * Math.cos(Math.toRadians((track.minLatitude() + track.maxLatitude()) / 2));
+        fitToTrack();
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (track != null) fitToTrack();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (track == null || track.size() == 0) return false;
+        scaleDetector.onTouchEvent(event);
+        gestureDetector.onTouchEvent(event);
+        return true;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (track == null || track.size() == 0 || getWidth() == 0) return;
+        double halfLng = getWidth() / 2.0 * metersPerPixel / metersPerDegLng;
+        double halfLat = getHeight() / 2.0 * metersPerPixel / metersPerDegLat;
+        int count = track.decimate(centerLat - halfLat, centerLng - halfLng, centerLat + halfLat, centerLng + halfLng,
+                metersPerPixel, runs);
+        int n = 0;
+        for (int i = 1; i < count; i++) {
+            int a = runs[i - 1];
+            int b = runs[i];
+            if (a < 0 || b < 0) continue;
+            lines[n++] = x(track.longitude(a));
+            lines[n++] = y(track.latitude(a));
+            lines[n++] = x(track.longitude(b));
+            lines[n++] = y(track.latitude(b));
+        }
+        canvas.drawLines(lines, 0, n, routePaint);
+
+        float radius = routePaint.getStrokeWidth() * 2;
+        int last = track.size() - 1;
+        canvas.drawCircle(x(track.longitude(0)), y(track.latitude(0)), radius, startPaint);
+        canvas.drawCircle(x(track.longitude(last)), y(track.latitude(last)), radius, endPaint);
+    }
+
+    private float x(double lng) {
+        return (float) (getWidth() / 2.0 + (lng - centerLng) * metersPerDegLng / metersPerPixel);
+    }
+
+    private float y(double lat) {
+        return (float) (getHeight() / 2.0 - (lat - centerLat) * metersPerDegLat / metersPerPixel);
+    }
+
+    private void fitToTrack() {
+        centerLat = (track.minLatitude() + track.maxLatitude()) / 2;
+        centerLng = (track.minLongitude() + track.maxLongitude()) / 2;
+        double widthM = (track.maxLongitude() - track.minLongitude()) * metersPerDegLng;
+        double heightM = (track.maxLatitude() - track.minLatitude()) * metersPerDegLat;
+        int w = Math.max(1, getWidth() - getPaddingLeft() - getPaddingRight());
+        int h = Math.max(1, getHeight() - getPaddingTop() - getPaddingBottom());
+        // 10% margin; a single point or a parked shipper gets street level
+        fitMetersPerPixel = Math.max(MIN_METERS_PER_PIXEL * 20, 1.1 * Math.max(widthM / w, heightM / h));
+        metersPerPixel = fitMetersPerPixel;
+    }
+
+    // Scales around (fx, fy) so the point under the fingers stays put
+    private void zoomAt(float fx, float fy, float factor) {
+        double before = metersPerPixel;
+        double after = Math.max(MIN_METERS_PER_PIXEL, Math.min(fitMetersPerPixel * MAX_ZOOM_OUT, before / factor));
+        double dxM = (fx - getWidth() / 2.0) * (before - after);
+        double dyM = (fy - getHeight() / 2.0) * (before - after);
+        centerLng += dxM / metersPerDegLng;
+        centerLat -= dyM / metersPerDegLat;
+        metersPerPixel = after;
+        invalidate();
+    }
+}
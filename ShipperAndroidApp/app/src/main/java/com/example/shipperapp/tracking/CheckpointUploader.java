@@ -0,0 +1,284 @@
+package com.example.shipperapp.tracking;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.RetrofitClient;
+import com.example.shipperapp.models.BatchCheckInResult;
+import com.example.shipperapp.models.MultiOrderCheckInDto;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+
+/**
+ * Uploads spooled location fixes in batches through {@code api/tracking/checkin/multi}.
+ *
+ * Fixes are written to the {@link CheckpointSpool} first, so they survive process death and
+ * dead zones. A flush is triggered when enough fixes are pending, when the oldest one has
+ * waited long enough, or immediately for status-change check-ins. Once the radio is up the
+ * whole backlog is drained. Failed uploads retry with exponential backoff and jitter; the
+ * server skips fixes it already stored, so a retried batch is never applied twice.
+ *
+ * While a shift is tracked, a fix is spooled once for all the orders being carried
+ * ({@link #enqueueCarried}) and sent once with their ids: a batch is one request whether the
+ * shipper carries one parcel or thirty.
+ */
+public class CheckpointUploader {
+    private static final String TAG = "CheckpointUploader";
+    private static final int SPOOL_CAPACITY = 8192;  // ~1 MB file, days of fixes at tracking rates
+    private static final int FLUSH_AT_PENDING = 20;
+    private static final long FLUSH_AFTER_MS = 60_000;
+    private static final int MAX_BATCH = 100;
+    private static final long BACKOFF_BASE_MS = 5_000;
+    private static final long BACKOFF_MAX_MS = 5 * 60_000;
+
+    private static volatile CheckpointUploader instance;
+
+    private final CheckpointSpool spool;
+    private final CarriedOrders carried;
+    private final ApiService api;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "checkpoint-uploader");
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final Random jitter = new Random();
+    // Server stores CheckInTime as local time without offset, like the rest of the API
+    private static final String CHECK_IN_TIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS";
+    private final SimpleDateFormat isoFormat = new SimpleDateFormat(CHECK_IN_TIME_FORMAT, Locale.US);
+
+    // executor-thread state
+    private ScheduledFuture<?> pendingFlush;
+    private long pendingFlushAt = Long.MAX_VALUE;
+    private int consecutiveFailures = 0;
+    private long retryNotBefore = 0;
+
+    public static CheckpointUploader get(Context context) {
+        CheckpointUploader uploader = instance;
+        if (uploader == null) {
+            synchronized (CheckpointUploader.class) {
+                uploader = instance;
+                if (uploader == null) {
+                    uploader = new CheckpointUploader(context.getApplicationContext());
+                    instance = uploader;
+                }
+            }
+        }
+        return uploader;
+    }
+
+    private CheckpointUploader(Context context) {
+        CheckpointSpool opened;
+        try {
+            opened = CheckpointSpool.open(new File(context.getFilesDir(), "checkpoints.spool"), SPOOL_CAPACITY);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open checkpoint spool", e);
+            opened = null;
+        }
+        spool = opened;
+        carried = CarriedOrders.open(new File(context.getFilesDir(), "carried_orders.bin"));
+        api = RetrofitClient.getApiServiceWithAuth(context, RetrofitClient.DEFAULT_BASE_URL);
+        if (spool != null && spool.pendingCount() > 0) {
+            Log.i(TAG, "Recovered " + spool.pendingCount() + " pending fixes from spool");
+            executor.execute(() -> schedule(false));
+        }
+    }
+
+    /**
+     * Durably records one fix; it is uploaded with the next batch.
+     *
+     * @param urgent upload right away (status-change check-ins) instead of waiting for a batch
+     * @return false if the spool is unavailable and the fix could not be stored
+     */
+    public boolean enqueue(int orderId, double latitude, double longitude, long timeMillis,
+                           float accuracy, int flags, String note, final boolean urgent) {
+        if (spool == null) return false;
+        spool.append(orderId, latitude, longitude, timeMillis, accuracy, flags, note);
+        executor.execute(() -> schedule(urgent));
+        return true;
+    }
+
+    /**
+     * Durably records one fix for every order in the current carried set
+     * ({@link #setCarriedOrders}). Returns false, recording nothing, when none is carried or
+     * the spool is unavailable.
+     */
+    public boolean enqueueCarried(double latitude, double longitude, long timeMillis,
+                                  float accuracy, int flags, String note) {
+        int setId = carried.current();
+        if (spool == null || setId < 0) return false;
+        spool.append(setId, latitude, longitude, timeMillis, accuracy, flags | CheckpointSpool.FLAG_CARRIED, note);
+        executor.execute(() -> schedule(false));
+        return true;
+    }
+
+    /** The orders being carried changed; fixes recorded from now on are for these. */
+    public void setCarriedOrders(int[] orderIds) {
+        if (carried.update(orderIds)) {
+            executor.execute(this::saveCarried);
+        }
+    }
+
+    /** Number of orders a carried fix is currently recorded for. */
+    public int carriedCount() {
+        return carried.currentSize();
+    }
+
+    /** Uploads everything pending now (e.g. connectivity came back), unless in backoff. */
+    public void flushNow() {
+        executor.execute(() -> schedule(true));
+    }
+
+    /** Connectivity is back: skip the remaining backoff and upload the backlog now. */
+    public void onNetworkAvailable() {
+        executor.execute(() -> {
+            retryNotBefore = 0;
+            consecutiveFailures = 0;
+            schedule(true);
+        });
+    }
+
+    /**
+     * {@code timeMillis} formatted exactly as the uploader sends it. A check-in sent directly
+     * with this time and spooled again after a failure is recognised by the server as the same
+     * fix (it de-duplicates on order, time and position).
+     */
+    public static String checkInTime(long timeMillis) {
+        return new SimpleDateFormat(CHECK_IN_TIME_FORMAT, Locale.US).format(new Date(timeMillis));
+    }
+
+    public int pendingCount() {
+        return spool != null ? spool.pendingCount() : 0;
+    }
+
+    private void schedule(boolean urgent) {
+        int pending = spool.pendingCount();
+        if (pending == 0) return;
+        long now = System.currentTimeMillis();
+        long at;
+        if (now < retryNotBefore) {
+            at = retryNotBefore;
+        } else if (urgent || pending >= FLUSH_AT_PENDING) {
+            at = now;
+        } else {
+            at = Math.max(now, spool.oldestPendingTimeMillis() + FLUSH_AFTER_MS);
+        }
+        if (pendingFlush != null && !pendingFlush.isDone()) {
+            if (pendingFlushAt <= at) return; // an earlier flush is already queued
+            pendingFlush.cancel(false);
+        }
+        pendingFlushAt = at;
+        pendingFlush = executor.schedule(this::flush, Math.max(0, at - now), TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        pendingFlush = null;
+        pendingFlushAt = Long.MAX_VALUE;
+        try {
+            // Read before the spool is last seen non-empty: fixes appended after that refer to
+            // this set or a later one
+            int oldestInUse = carried.lowestLive();
+            while (spool.pendingCount() > 0) {
+                List<CheckpointSpool.Record> batch = spool.peek(MAX_BATCH);
+                long lastSeq = batch.get(batch.size() - 1).seq;
+                List<MultiOrderCheckInDto> fixes = toCheckIns(batch);
+                if (fixes.isEmpty()) {
+                    spool.ack(lastSeq);
+                    continue;
+                }
+                Response<BatchCheckInResult> response = api.checkInMulti(fixes).execute();
+                if (response.isSuccessful()) {
+                    spool.ack(lastSeq);
+                    BatchCheckInResult r = response.body();
+                    if (r != null) {
+                        Log.d(TAG, "Uploaded batch: accepted=" + r.accepted + ", duplicates=" + r.duplicates + ", rejected=" + r.rejected);
+                    }
+                } else if (isPermanentFailure(response.code())) {
+                    // The server will never accept this batch; drop it instead of blocking the queue forever
+                    Log.e(TAG, "Batch rejected with " + response.code() + ", dropping " + batch.size() + " fixes");
+                    spool.ack(lastSeq);
+                } else {
+                    throw new IOException("HTTP " + response.code());
+                }
+                oldestInUse = carried.lowestLive();
+            }
+            consecutiveFailures = 0;
+            retryNotBefore = 0;
+            spool.sync();
+            if (carried.retainFrom(oldestInUse)) {
+                saveCarried();
+            }
+        } catch (IOException | RuntimeException e) {
+            consecutiveFailures++;
+            long backoff = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(consecutiveFailures - 1, 16));
+            backoff = backoff / 2 + (long) (jitter.nextDouble() * backoff / 2);
+            retryNotBefore = System.currentTimeMillis() + backoff;
+            Log.w(TAG, "Batch upload failed (" + e.getMessage() + "), retry in " + backoff + " ms, pending=" + spool.pendingCount());
+            schedule(false);
+        }
+    }
+
+    // A 4xx the same request can never get past; auth, timeouts and throttling are worth a retry
+    public static boolean isPermanentFailure(int code) {
+        return code >= 400 && code < 500 && code != 401 && code != 403 && code != 408 && code != 429;
+    }
+
+    // One fix per record: a carried record lists its set's orders (one list shared by all the
+    // fixes of a set), any other its own order. Records whose set was lost are left out.
+    private List<MultiOrderCheckInDto> toCheckIns(List<CheckpointSpool.Record> records) {
+        List<MultiOrderCheckInDto> list = new ArrayList<>(records.size());
+        Map<Integer, List<Integer>> setOrders = new HashMap<>();
+        Date date = new Date();
+        for (CheckpointSpool.Record r : records) {
+            List<Integer> orderIds;
+            if ((r.flags & CheckpointSpool.FLAG_CARRIED) != 0) {
+                orderIds = setOrders.get(r.orderId);
+                if (orderIds == null) {
+                    int[] ids = carried.get(r.orderId);
+                    if (ids == null) {
+                        Log.w(TAG, "Dropping fix " + r.seq + ": carried set " + r.orderId + " is unknown");
+                        continue;
+                    }
+                    orderIds = new ArrayList<>(ids.length);
+                    for (int id : ids) orderIds.add(id);
+                    setOrders.put(r.orderId, orderIds);
+                }
+            } else {
+                orderIds = Collections.singletonList(r.orderId);
+            }
+            MultiOrderCheckInDto fix = new MultiOrderCheckInDto();
+            fix.orderIds = orderIds;
+            fix.latitude = r.latitude;
+            fix.longitude = r.longitude;
+            date.setTime(r.timeMillis);
+            fix.checkInTime = isoFormat.format(date);
+            fix.notes = r.note;
+            list.add(fix);
+        }
+        return list;
+    }
+
+    private void saveCarried() {
+        try {
+            carried.save();
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot save carried orders", e);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.shipperapp.tracking;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.shipperapp.OrderDetailActivity;
+import com.example.shipperapp.OrderListActivity;
+import com.example.shipperapp.data.OrderStore;
+import com.example.shipperapp.models.Order;
+import com.example.shipperapp.models.OrderStatus;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Foreground service that tracks the shipper's location for one order while auto tracking
+ * is on, independently of whether the order screen is still open, or for the whole shift
+ * ({@link #startShift}): then every fix is checked in for all the orders out for delivery
+ * (DaNhanDangGiao) at that moment, spooled and sent once however many there are, and the set
+ * follows pickups and deliveries through {@link #refreshTargets}.
+ *
+ * Fixes come from fused location updates rather than polling, and an {@link AdaptiveSampler}
+ * decides both which fixes are uploaded and how often the next one is requested: every
+ * 15 s at road speed, every 5 minutes (with balanced power accuracy) while parked. Accepted
+ * fixes are thinned by a {@link TrajectorySimplifier} (straight runs collapse to their end
+ * points) before they reach the {@link CheckpointUploader} spool. At most
+ * {@link #MAX_HOLD_MS} of fixes sit in the simplifier's window outside the spool.
+ *
+ * Every fix also goes through a {@link GeofenceEngine} holding the delivery points of all
+ * orders out for delivery: reaching one sends a single arrival check-in for that order right
+ * away, and staying there for {@link #DWELL_MS} posts a notification suggesting it be marked
+ * delivered.
+ */
+public class LocationTrackingService extends Service {
+    private static final String TAG = "LocationTracking";
+    private static final String ACTION_STOP = "com.example.shipperapp.tracking.STOP";
+    private static final String EXTRA_ORDER_ID = "orderId";
+    // Tracked "order" of shift mode; real ids are positive
+    private static final int SHIFT = -2;
+    private static final String CHANNEL_ID = "location_tracking";
+    private static final int NOTIFICATION_ID = 1;
+    private static final double SIMPLIFY_TOLERANCE_M = 15;
+    private static final long STOP_GAP_MS = 3 * 60_000;
+    private static final int SIMPLIFY_WINDOW = 64;
+    private static final long MAX_HOLD_MS = 2 * 60_000;
+    private static final double ARRIVAL_RADIUS_M = 75;
+    private static final long DWELL_MS = 2 * 60_000;
+    private static final float GEOFENCE_MAX_ACCURACY_M = 50;
+    private static final String ARRIVAL_TAG = "arrival";
+
+    /** Receives accepted fixes on the main thread, e.g. to show them on the order screen. */
+    public interface FixListener {
+        void onFix(Location location);
+    }
+
+    private static final List<FixListener> listeners = new CopyOnWriteArrayList<>();
+    private static volatile int trackedOrderId = -1;
+    // Main thread only
+    private static LocationTrackingService running;
+
+    private FusedLocationProviderClient fusedLocationClient;
+    private CheckpointUploader uploader;
+    private int orderId = -1;
+    private final AdaptiveSampler sampler = new AdaptiveSampler();
+    private final TrajectorySimplifier simplifier = new TrajectorySimplifier(
+            SIMPLIFY_TOLERANCE_M, STOP_GAP_MS, SIMPLIFY_WINDOW,
+            (lat, lng, timeMillis, accuracy, flags) -> {
+                if (orderId == SHIFT) {
+                    uploader.enqueueCarried(lat, lng, timeMillis, accuracy, flags, "Auto tracking");
+                } else {
+                    uploader.enqueue(orderId, lat, lng, timeMillis, accuracy, flags, "Auto tracking", false);
+                }
+            });
+    private final GeofenceEngine geofences = new GeofenceEngine(ARRIVAL_RADIUS_M, DWELL_MS, GEOFENCE_MAX_ACCURACY_M,
+            new GeofenceEngine.Listener() {
+                @Override
+                public void onArrive(int arrivedOrderId, double lat, double lng, long timeMillis, float accuracy) {
+                    Log.i(TAG, "Arrived at delivery point of order " + arrivedOrderId);
+                    uploader.enqueue(arrivedOrderId, lat, lng, timeMillis, accuracy, CheckpointSpool.FLAG_ARRIVAL,
+                            "Tự động check-in khi đến điểm giao", true);
+                }
+
+                @Override
+                public void onDwell(int arrivedOrderId, double lat, double lng, long timeMillis) {
+                    showArrivalNotification(arrivedOrderId);
+                }
+            });
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushSimplifier = () -> simplifier.flush();
+    private long requestedIntervalMs = -1;
+
+    private final LocationCallback locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult result) {
+            for (Location location : result.getLocations()) {
+                onLocation(location);
+            }
+            if (sampler.intervalMs() != requestedIntervalMs) {
+                requestUpdates();
+            }
+            // Don't let held fixes wait indefinitely for the next one (e.g. once parked)
+            handler.removeCallbacks(flushSimplifier);
+            if (simplifier.heldCount() > 0) {
+                handler.postDelayed(flushSimplifier, MAX_HOLD_MS);
+            }
+        }
+    };
+
+    public static void start(Context context, int orderId) {
+        Intent intent = new Intent(context, LocationTrackingService.class);
+        intent.putExtra(EXTRA_ORDER_ID, orderId);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    /** Tracks the shift: each fix goes to every order out for delivery. Replaces single-order tracking. */
+    public static void startShift(Context context) {
+        start(context, SHIFT);
+    }
+
+    public static void stop(Context context) {
+        Intent intent = new Intent(context, LocationTrackingService.class);
+        intent.setAction(ACTION_STOP);
+        context.startService(intent);
+    }
+
+    public static boolean isTracking(int orderId) {
+        return orderId >= 0 && trackedOrderId == orderId;
+    }
+
+    public static boolean isTrackingShift() {
+        return trackedOrderId == SHIFT;
+    }
+
+    /** Re-reads the delivery points, e.g. after a sync or a status change. Main thread only. */
+    public static void refreshTargets() {
+        if (running != null) {
+            running.loadTargets();
+        }
+    }
+
+    public static void addFixListener(FixListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeFixListener(FixListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
+        uploader = CheckpointUploader.get(this);
+        running = this;
+        loadTargets();
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent == null || ACTION_STOP.equals(intent.getAction())) {
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        int requested = intent.getIntExtra(EXTRA_ORDER_ID, -1);
+        startForeground(NOTIFICATION_ID, buildNotification(requested));
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "Location permission missing, not tracking");
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+        if (requested != orderId) {
+            simplifier.flush();  // settle the previous order's trace before switching
+            orderId = requested;
+            trackedOrderId = requested;
+            requestUpdates();
+        }
+        // Redelivered after the process is killed, so tracking resumes for the same order
+        return START_REDELIVER_INTENT;
+    }
+
+    @Override
+    public void onDestroy() {
+        fusedLocationClient.removeLocationUpdates(locationCallback);
+        handler.removeCallbacks(flushSimplifier);
+        simplifier.flush();
+        trackedOrderId = -1;
+        running = null;
+        Log.i(TAG, "Geofences: " + geofences.stats());
+        Log.i(TAG, "Tracking stopped: fixes=" + sampler.seen() + ", uploaded=" + sampler.accepted()
+                + ", stationary=" + sampler.droppedStationary() + ", inaccurate=" + sampler.droppedInaccurate()
+                + ", duplicate=" + sampler.droppedDuplicate()
+                + ", simplified " + simplifier.pointsIn() + " -> " + simplifier.pointsOut()
+                + String.format(Locale.US, " (%.1fx)", simplifier.compressionRatio()));
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private void onLocation(Location location) {
+        // Every fix, including the ones the sampler drops: a parked shipper is how a dwell looks
+        geofences.offer(location.getLatitude(), location.getLongitude(), location.getTime(),
+                location.hasAccuracy() ? location.getAccuracy() : -1f);
+        boolean accepted = sampler.offer(location.getLatitude(), location.getLongitude(), location.getTime(),
+                location.hasAccuracy() ? location.getAccuracy() : -1f,
+                location.hasSpeed() ? location.getSpeed() : -1f);
+        if (!accepted) return;
+        simplifier.offer(location.getLatitude(), location.getLongitude(), location.getTime(),
+                location.hasAccuracy() ? location.getAccuracy() : -1f, 0);
+        for (FixListener listener : listeners) {
+            listener.onFix(location);
+        }
+    }
+
+    private void requestUpdates() {
+        long interval = sampler.intervalMs();
+        int priority = sampler.isStationary() ? Priority.PRIORITY_BALANCED_POWER_ACCURACY : Priority.PRIORITY_HIGH_ACCURACY;
+        LocationRequest request = new LocationRequest.Builder(priority, interval)
+                .setMinUpdateIntervalMillis(interval / 2)
+                .setMinUpdateDistanceMeters(sampler.minDistanceMeters())
+                .build();
+        try {
+            // Re-requesting with the same callback replaces the previous request
+            fusedLocationClient.requestLocationUpdates(request, locationCallback, Looper.getMainLooper());
+            requestedIntervalMs = interval;
+            Log.d(TAG, "Requesting fixes every " + interval + " ms, priority " + priority);
+        } catch (SecurityException ex) {
+            Log.e(TAG, "requestLocationUpdates SecurityException", ex);
+            stopSelf();
+        }
+    }
+
+    private void loadTargets() {
+        OrderStore store = OrderStore.get(this);
+        // Kept up to date outside shift mode too, so starting a shift has it at hand
+        store.loadCarriedOrderIds(ids -> {
+            if (running != this) return;
+            uploader.setCarriedOrders(ids);
+            if (orderId == SHIFT) {
+                NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+                manager.notify(NOTIFICATION_ID, buildNotification(SHIFT));
+            }
+        });
+        store.loadDeliveryTargets(orders -> {
+            if (running != this) return;
+            int n = orders.size();
+            int[] ids = new int[n];
+            double[] lats = new double[n];
+            double[] lngs = new double[n];
+            for (int i = 0; i < n; i++) {
+                Order o = orders.get(i);
+                ids[i] = o.orderId;
+                lats[i] = o.deliveryLatitude;
+                lngs[i] = o.deliveryLongitude;
+            }
+            geofences.setTargets(ids, lats, lngs);
+            Log.d(TAG, "Watching " + n + " delivery points");
+        });
+    }
+
+    // At the door for a while: offer to mark the order delivered
+    private void showArrivalNotification(int arrivedOrderId) {
+        Intent open = new Intent(this, OrderDetailActivity.class);
+        open.putExtra("orderId", arrivedOrderId);
+        open.putExtra(OrderDetailActivity.EXTRA_SUGGEST_STATUS, OrderStatus.DaGiao.name());
+        int piFlags = PendingIntent.FLAG_UPDATE_CURRENT
+                | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0);
+        Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setContentTitle("Đã đến điểm giao")
+                .setContentText("Đơn hàng #" + arrivedOrderId + " - chạm để xác nhận đã giao")
+                .setSmallIcon(android.R.drawable.ic_menu_mylocation)
+                .setAutoCancel(true)
+                .setContentIntent(PendingIntent.getActivity(this, arrivedOrderId, open, piFlags))
+                .build();
+        NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        manager.notify(ARRIVAL_TAG, arrivedOrderId, notification);
+    }
+
+    private Notification buildNotification(int orderId) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+            if (manager.getNotificationChannel(CHANNEL_ID) == null) {
+                manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                        "Theo dõi vị trí", NotificationManager.IMPORTANCE_LOW));
+            }
+        }
+        Intent open;
+        String text;
+        if (orderId == SHIFT) {
+            open = new Intent(this, OrderListActivity.class);
+            text = "Cả ca - " + uploader.carriedCount() + " đơn đang giao";
+        } else {
+            open = new Intent(this, OrderDetailActivity.class);
+            open.putExtra("orderId", orderId);
+            text = "Đơn hàng #" + orderId;
+        }
+        int piFlags = PendingIntent.FLAG_UPDATE_CURRENT
+                | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0);
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setContentTitle("Đang theo dõi vị trí")
+                .setContentText(text)
+                .setSmallIcon(android.R.drawable.ic_menu_mylocation)
+                .setOngoing(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .setContentIntent(PendingIntent.getActivity(this, orderId, open, piFlags))
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.auth.AuthInterceptor;
+import com.example.shipperapp.auth.AuthSession;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Cost the auth interceptor adds to a call. A terminal interceptor answers every request, so
+ * the numbers cover the OkHttp call path without any I/O; {@code baseline} is the same client
+ * without auth.
+ */
+@State(Scope.Benchmark)
+public class AuthInterceptorBenchmark {
+    private OkHttpClient plain;
+    private OkHttpClient withAuth;
+    private AuthSession session;
+    private Request request;
+
+    @Setup
+    public void setUp() {
+        // Far-future "exp": the session never refreshes during the run
+        String claims = "{\"StaffId\":\"7\",\"exp\":4102444800}";
+        final String token = "h." + Base64.getUrlEncoder().withoutPadding().encodeToString(claims.getBytes(Fixtures.UTF8)) + ".s";
+        session = new AuthSession(new AuthSession.Store() {
+            @Override
+            public String load() {
+                return token;
+            }
+
+            @Override
+            public void save(String t) {
+            }
+        }, t -> null);
+
+        Interceptor terminal = chain -> new Response.Builder()
+                .request(chain.request())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(new byte[0], null))
+                .build();
+        OkHttpClient base = new OkHttpClient();
+        plain = base.newBuilder().addInterceptor(terminal).build();
+        AuthInterceptor auth = new AuthInterceptor(session);
+        withAuth = base.newBuilder().addInterceptor(auth).authenticator(auth).addInterceptor(terminal).build();
+        request = new Request.Builder().url("http://localhost:5221/api/orders/my").build();
+    }
+
+    @Benchmark
+    public int baseline() throws IOException {
+        try (Response response = plain.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+    @Benchmark
+    public int authInterceptor() throws IOException {
+        try (Response response = withAuth.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+    @Benchmark
+    public String tokenForRequest() {
+        return session.tokenForRequest();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.models.LocationCheckpoint;
+import com.example.shipperapp.models.ModelTypeAdapters;
+import com.example.shipperapp.tracking.CheckpointSpool;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.RequestBody;
+import retrofit2.Converter;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * The check-in pipeline of CheckpointUploader: queueing a fix in the memory-mapped spool,
+ * draining a batch, and encoding a batch into the request body of api/orders/checkpoints/batch.
+ */
+@State(Scope.Benchmark)
+public class CheckpointBenchmark {
+    private static final int BATCH = 100; // CheckpointUploader.MAX_BATCH
+
+    private File file;
+    private CheckpointSpool spool;
+    private Converter<List<LocationCheckpoint>, RequestBody> converter;
+    private List<CheckpointSpool.Record> records;
+    private final SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS", Locale.US);
+    private long time = 1_760_000_000_000L;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        file = File.createTempFile("checkpoints", ".spool");
+        file.delete();
+        spool = CheckpointSpool.open(file, 4096);
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+        Type type = new TypeToken<List<LocationCheckpoint>>() {}.getType();
+        converter = (Converter<List<LocationCheckpoint>, RequestBody>) GsonConverterFactory.create(gson)
+                .requestBodyConverter(type, new Annotation[0], new Annotation[0], null);
+        for (int i = 0; i < BATCH; i++) {
+            append(i);
+        }
+        records = spool.peek(BATCH);
+        spool.ack(records.get(records.size() - 1).seq);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        spool.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public long append() {
+        return append(42);
+    }
+
+    /** One upload cycle: queue a batch of fixes, read it back, acknowledge it. */
+    @Benchmark
+    public int appendAndDrainBatch() {
+        for (int i = 0; i < BATCH; i++) {
+            append(i);
+        }
+        List<CheckpointSpool.Record> batch = spool.peek(BATCH);
+        spool.ack(batch.get(batch.size() - 1).seq);
+        return batch.size();
+    }
+
+    @Benchmark
+    public RequestBody encodeBatch() throws IOException {
+        List<LocationCheckpoint> list = new ArrayList<>(records.size());
+        Date date = new Date();
+        for (CheckpointSpool.Record r : records) {
+            LocationCheckpoint cp = new LocationCheckpoint();
+            cp.orderId = r.orderId;
+            cp.latitude = r.latitude;
+            cp.longitude = r.longitude;
+            date.setTime(r.timeMillis);
+            cp.checkInTime = isoFormat.format(date);
+            cp.notes = r.note;
+            list.add(cp);
+        }
+        return converter.convert(list);
+    }
+
+    private long append(int orderId) {
+        time += 5_000;
+        return spool.append(orderId, 10.7769, 106.7009, time, 8f, 0, null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.models.LocationCheckpoint;
+import com.example.shipperapp.models.ModelTypeAdapters;
+import com.example.shipperapp.tracking.CheckpointTrack;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * The route viewer: loading a checkpoint history into {@link CheckpointTrack} (parse, sort,
+ * rank) against decoding it into {@code LocationCheckpoint} objects, and the per-frame
+ * decimation for the whole route and for a zoomed-in viewport.
+ */
+@State(Scope.Benchmark)
+public class CheckpointTrackBenchmark {
+    @Param({"1000", "10000"})
+    public int points;
+
+    private byte[] body;
+    private Gson gson;
+    private Type listType;
+    private TimeZone zone;
+    private CheckpointTrack track;
+    private int[] runs;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = Fixtures.checkpointPageJson(points);
+        gson = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+        listType = new TypeToken<List<LocationCheckpoint>>() { }.getType();
+        zone = TimeZone.getTimeZone("Asia/Ho_Chi_Minh");
+        track = columnar();
+        runs = new int[2 * track.size()];
+    }
+
+    @Benchmark
+    public CheckpointTrack columnar() throws IOException {
+        CheckpointTrack t = new CheckpointTrack();
+        try (JsonReader in = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), Fixtures.UTF8))) {
+            t.readPage(in, zone);
+        }
+        t.finish();
+        return t;
+    }
+
+    @Benchmark
+    public List<LocationCheckpoint> objects() {
+        return gson.fromJson(new InputStreamReader(new ByteArrayInputStream(body), Fixtures.UTF8), listType);
+    }
+
+    /** Whole route on a 1080 px wide screen. */
+    @Benchmark
+    public int decimateWholeRoute() {
+        double widthM = (track.maxLongitude() - track.minLongitude()) * 109_000;
+        return track.decimate(track.minLatitude(), track.minLongitude(), track.maxLatitude(), track.maxLongitude(),
+                widthM / 1080, runs);
+    }
+
+    /** A street-level viewport (about 500 m across) in the middle of the route. */
+    @Benchmark
+    public int decimateZoomed() {
+        double lat = (track.minLatitude() + track.maxLatitude()) / 2;
+        double lng = (track.minLongitude() + track.maxLongitude()) / 2;
+        return track.decimate(lat - 0.0025, lng - 0.0025, lat + 0.0025, lng + 0.0025, 0.5, runs);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.api.ApiService;
+import com.example.shipperapp.api.CompressionInterceptor;
+import com.example.shipperapp.api.NetworkMetrics;
+import com.example.shipperapp.models.LocationCheckpoint;
+import com.example.shipperapp.models.ModelTypeAdapters;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import retrofit2.Converter;
+import retrofit2.Invocation;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * CPU cost of CompressionInterceptor against what it saves on the wire. A terminal
+ * interceptor stands in for the server: it drains the request body and answers with an order
+ * page, plain or gzipped, which the benchmark reads to the end. Each benchmark returns the
+ * bytes that crossed the "wire", and each gzip case has a {@code plain} baseline without the
+ * interceptor.
+ */
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+    private static final MediaType JSON = MediaType.get("application/json; charset=UTF-8");
+
+    // Check-ins per upload: a short offline spell, and CheckpointUploader.MAX_BATCH
+    @Param({"20", "100"})
+    public int batchSize;
+
+    // Orders per page: OrderListActivity.PAGE_SIZE and OrderSync.SNAPSHOT_PAGE_SIZE
+    @Param({"50", "200"})
+    public int pageSize;
+
+    private OkHttpClient plain;
+    private OkHttpClient compressed;
+    private Request upload;
+    private Request pageRequest;
+    private long received;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+        Type type = new TypeToken<List<LocationCheckpoint>>() {}.getType();
+        Converter<List<LocationCheckpoint>, RequestBody> converter = (Converter<List<LocationCheckpoint>, RequestBody>)
+                GsonConverterFactory.create(gson).requestBodyConverter(type, new Annotation[0], new Annotation[0], null);
+        List<LocationCheckpoint> batch = batch(batchSize);
+        Method checkInBatch = ApiService.class.getMethod("checkInBatch", List.class);
+        upload = new Request.Builder()
+                .url("http://localhost:5221/api/tracking/checkin/batch")
+                .post(converter.convert(batch))
+                .tag(Invocation.class, Invocation.of(checkInBatch, Collections.singletonList(batch)))
+                .build();
+        pageRequest = new Request.Builder().url("http://localhost:5221/api/orders/my/page").build();
+
+        final byte[] page = Fixtures.orderPageJson(pageSize);
+        final byte[] gzippedPage = gzip(page);
+        Interceptor server = chain -> {
+            Request request = chain.request();
+            if (request.body() != null) {
+                Buffer body = new Buffer();
+                request.body().writeTo(body);
+                received = body.size();
+            }
+            boolean gzip = "gzip".equals(request.header("Accept-Encoding"));
+            Response.Builder response = new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(200)
+                    .message("OK")
+                    .body(ResponseBody.create(gzip ? gzippedPage : page, JSON));
+            if (gzip) response.header("Content-Encoding", "gzip");
+            return response.build();
+        };
+        OkHttpClient base = new OkHttpClient();
+        plain = base.newBuilder().addInterceptor(server).build();
+        compressed = base.newBuilder()
+                .addInterceptor(new CompressionInterceptor(new NetworkMetrics()))
+                .addInterceptor(server)
+                .build();
+    }
+
+    @Benchmark
+    public long uploadPlain() throws IOException {
+        return upload(plain);
+    }
+
+    @Benchmark
+    public long uploadGzip() throws IOException {
+        return upload(compressed);
+    }
+
+    @Benchmark
+    public long pagePlain() throws IOException {
+        return download(plain);
+    }
+
+    @Benchmark
+    public long pageGzip() throws IOException {
+        return download(compressed);
+    }
+
+    // Bytes of the request body as sent
+    private long upload(OkHttpClient client) throws IOException {
+        try (Response response = client.newCall(upload).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Upload failed: " + response.code());
+            }
+            return received;
+        }
+    }
+
+    // Decoded bytes of the page, read to the end
+    private long download(OkHttpClient client) throws IOException {
+        try (Response response = client.newCall(pageRequest).execute()) {
+            return response.body().source().readAll(Okio.blackhole());
+        }
+    }
+
+    private static List<LocationCheckpoint> batch(int size) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS", Locale.US);
+        List<LocationCheckpoint> list = new ArrayList<>(size);
+        double lat = 10.7769;
+        double lng = 106.7009;
+        long time = 1_760_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            lat += 0.00004 * Math.sin(i / 40.0);
+            lng += 0.00004 * Math.cos(i / 55.0);
+            LocationCheckpoint cp = new LocationCheckpoint();
+            cp.orderId = 1000 + i % 3;
+            cp.latitude = lat;
+            cp.longitude = lng;
+            cp.checkInTime = format.format(new Date(time + i * 5_000L));
+            list.add(cp);
+        }
+        return list;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            sink.write(bytes);
+        }
+        return buffer.readByteArray();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.models.DeliveryStaff;
+import com.example.shipperapp.models.Order;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Deterministic inputs shaped like the real API responses: the server sends every Order
+ * column (customer, addresses, fees, dates), most of which the app skips.
+ */
+final class Fixtures {
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private Fixtures() {
+    }
+
+    static String orderJson(int i) {
+        return "{\"orderId\":" + i + ",\"orderCode\":\"DH" + (100000 + i) + "\",\"customerId\":" + (i % 97)
+                + ",\"customer\":{\"customerId\":" + (i % 97) + ",\"fullName\":\"Nguyễn Văn A\",\"phoneNumber\":\"0900000000\",\"address\":\"12 Lê Lợi, Quận 1\"}"
+                + ",\"senderName\":\"Shop ABC\",\"senderPhone\":\"0911111111\",\"senderAddress\":\"1 Nguyễn Huệ\""
+                + ",\"receiverName\":\"Trần Thị B\",\"receiverPhone\":\"0922222222\",\"receiverAddress\":\"99 Hai Bà Trưng\""
+                + ",\"status\":" + (i % 5) + ",\"weight\":1.25,\"shippingFee\":30000.0,\"codAmount\":250000.0"
+                + ",\"createdAt\":\"2025-10-18T08:00:00\",\"updatedAt\":null,\"assignedStaffId\":7"
+                + ",\"assignedStaff\":{\"staffId\":7,\"fullName\":\"Lê Văn C\",\"phoneNumber\":\"0933333333\",\"vehicleType\":\"Xe máy\",\"vehiclePlate\":\"59A-12345\",\"isAvailable\":true}"
+                + ",\"checkpoints\":["
+                + "{\"checkpointId\":" + (i * 2) + ",\"orderId\":" + i + ",\"latitude\":10.7769,\"longitude\":106.7009,\"locationName\":\"Kho\",\"checkInTime\":\"2025-10-18T09:00:00\",\"notes\":null},"
+                + "{\"checkpointId\":" + (i * 2 + 1) + ",\"orderId\":" + i + ",\"latitude\":10.78,\"longitude\":106.71,\"locationName\":\"Điểm giao\",\"checkInTime\":\"2025-10-18T10:00:00\",\"notes\":\"ok\"}]}";
+    }
+
+    /** Body of api/orders/my/page with {@code count} orders. */
+    static byte[] orderPageJson(int count) {
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(orderJson(i));
+        }
+        sb.append("],\"totalCount\":").append(count).append(",\"nextAfterId\":null}");
+        return sb.toString().getBytes(UTF8);
+    }
+
+    /**
+     * Body of api/tracking/order/{id} with {@code count} fixes five seconds apart along a
+     * winding route through District 1.
+     */
+    static byte[] checkpointPageJson(int count) {
+        StringBuilder sb = new StringBuilder("[");
+        double lat = 10.7769;
+        double lng = 106.7009;
+        for (int i = 0; i < count; i++) {
+            lat += 0.00004 * Math.sin(i / 40.0);
+            lng += 0.00004 * Math.cos(i / 55.0);
+            int seconds = i * 5;
+            if (i > 0) sb.append(',');
+            sb.append("{\"checkpointId\":").append(i + 1).append(",\"orderId\":1")
+                    .append(",\"latitude\":").append(lat).append(",\"longitude\":").append(lng)
+                    .append(",\"locationName\":\"\",\"checkInTime\":\"2025-10-18T")
+                    .append(String.format(Locale.US, "%02d:%02d:%02d", 9 + seconds / 3600, seconds / 60 % 60, seconds % 60))
+                    .append(".1234567\",\"notes\":\"auto\"}");
+        }
+        return sb.append(']').toString().getBytes(UTF8);
+    }
+
+    static List<Order> orders(int count) {
+        DeliveryStaff staff = new DeliveryStaff();
+        staff.staffId = 7;
+        staff.fullName = "Lê Văn C";
+        List<Order> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(order(i, String.valueOf(i % 5), staff));
+        }
+        return list;
+    }
+
+    static Order order(int id, String status, DeliveryStaff staff) {
+        Order o = new Order();
+        o.orderId = id;
+        o.orderCode = "DH" + (100000 + id);
+        o.status = status;
+        o.assignedStaff = staff;
+        return o;
+    }
+}
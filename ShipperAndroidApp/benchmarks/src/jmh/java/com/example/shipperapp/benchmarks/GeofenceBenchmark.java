@@ -0,0 +1,72 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.tracking.GeofenceEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Cost of one location fix in the arrival geofences, for a shipper's own handful of orders
+ * up to a whole city's. The fix stream is synthetic: a drive across the area with GPS
+ * jitter, replayed in a loop.
+ */
+@State(Scope.Benchmark)
+public class GeofenceBenchmark {
+    private static final int FIXES = 4096;
+
+    @Param({"20", "2000", "50000"})
+    public int targets;
+
+    private GeofenceEngine engine;
+    private double[] lats;
+    private double[] lngs;
+    private int next;
+    private long time;
+    private int events;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int[] ids = new int[targets];
+        double[] targetLats = new double[targets];
+        double[] targetLngs = new double[targets];
+        for (int i = 0; i < targets; i++) {
+            ids[i] = i + 1;
+            targetLats[i] = 10.70 + random.nextDouble() * 0.15;
+            targetLngs[i] = 106.62 + random.nextDouble() * 0.15;
+        }
+        engine = new GeofenceEngine(75, 120_000, 50f, new GeofenceEngine.Listener() {
+            @Override
+            public void onArrive(int orderId, double lat, double lng, long timeMillis, float accuracy) {
+                events++;
+            }
+
+            @Override
+            public void onDwell(int orderId, double lat, double lng, long timeMillis) {
+                events++;
+            }
+        });
+        engine.setTargets(ids, targetLats, targetLngs);
+
+        lats = new double[FIXES];
+        lngs = new double[FIXES];
+        for (int i = 0; i < FIXES; i++) {
+            double f = (double) i / FIXES;
+            lats[i] = 10.70 + 0.15 * f + random.nextGaussian() * 0.00007;
+            lngs[i] = 106.62 + 0.15 * Math.sin(f * Math.PI) + random.nextGaussian() * 0.00007;
+        }
+    }
+
+    @Benchmark
+    public int offerFix() {
+        int i = next++ & (FIXES - 1);
+        time += 1000;
+        engine.offer(lats[i], lngs[i], time, 10f);
+        return events;
+    }
+}
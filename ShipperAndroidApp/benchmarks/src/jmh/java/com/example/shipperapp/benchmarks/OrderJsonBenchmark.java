@@ -0,0 +1,46 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.models.ModelTypeAdapters;
+import com.example.shipperapp.models.OrderPage;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Decoding an order page the way the Retrofit converter does (a UTF-8 reader over the body),
+ * with the streaming adapters the app uses and with reflective Gson for reference.
+ */
+@State(Scope.Benchmark)
+public class OrderJsonBenchmark {
+    @Param({"50", "1000"})
+    public int orders;
+
+    private byte[] body;
+    private Gson reflective;
+    private Gson streaming;
+
+    @Setup
+    public void setUp() {
+        body = Fixtures.orderPageJson(orders);
+        reflective = new Gson();
+        streaming = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+    }
+
+    @Benchmark
+    public OrderPage streamingAdapters() {
+        return streaming.fromJson(new InputStreamReader(new ByteArrayInputStream(body), Fixtures.UTF8), OrderPage.class);
+    }
+
+    @Benchmark
+    public OrderPage reflectiveGson() {
+        return reflective.fromJson(new InputStreamReader(new ByteArrayInputStream(body), Fixtures.UTF8), OrderPage.class);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.models.Order;
+import com.example.shipperapp.paging.OrderDiff;
+import com.example.shipperapp.paging.PagedOrderList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The order list's update path: comparing a reloaded page with what its rows showed, and a
+ * full scroll through a long list with the windowed {@link PagedOrderList} (pages served
+ * synchronously, so only the list's own bookkeeping is measured).
+ */
+public class OrderListDiffBenchmark {
+    private static final int PAGE_SIZE = 50; // OrderListActivity.PAGE_SIZE
+
+    @State(Scope.Benchmark)
+    public static class Pages {
+        @Param({"unchanged", "status", "replaced"})
+        public String change;
+
+        List<Order> previous;
+        List<Order> reloaded;
+        int changedRows;
+        final OrderDiff.Callback countRows = (position, statusOnly) -> changedRows++;
+
+        @Setup
+        public void setUp() {
+            previous = Fixtures.orders(PAGE_SIZE);
+            reloaded = new ArrayList<>(PAGE_SIZE);
+            for (Order o : previous) {
+                switch (change) {
+                    case "status":
+                        // every fifth order moved on one status
+                        reloaded.add(Fixtures.order(o.orderId, o.orderId % 5 == 0 ? "3" : o.status, o.assignedStaff));
+                        break;
+                    case "replaced":
+                        reloaded.add(Fixtures.order(o.orderId + PAGE_SIZE, o.status, o.assignedStaff));
+                        break;
+                    default:
+                        reloaded.add(Fixtures.order(o.orderId, o.status, o.assignedStaff));
+                }
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LongList {
+        List<Order> all;
+
+        @Setup
+        public void setUp() {
+            all = Fixtures.orders(20_000);
+        }
+    }
+
+    @Benchmark
+    public int diffPage(Pages pages) {
+        pages.changedRows = 0;
+        OrderDiff.dispatch(0, PAGE_SIZE, pages.previous, pages.reloaded, pages.countRows);
+        return pages.changedRows;
+    }
+
+    /** Scrolls 20,000 rows top to bottom, a screenful (10 rows) at a time. */
+    @Benchmark
+    public int scrollThroughList(LongList data) {
+        final List<Order> all = data.all;
+        final int[] notifications = new int[1];
+        final OrderDiff.Callback countRows = (position, statusOnly) -> notifications[0]++;
+        PagedOrderList list = new PagedOrderList(PAGE_SIZE, 6, 25,
+                (offset, limit, afterId, callback) -> {
+                    int end = Math.min(all.size(), offset + limit);
+                    callback.onPage(all.subList(Math.min(offset, end), end), all.size());
+                },
+                new PagedOrderList.Listener() {
+                    @Override
+                    public void onCountChanged(int oldCount, int newCount) {
+                        notifications[0]++;
+                    }
+
+                    @Override
+                    public void onPageLoaded(int start, List<Order> before, List<Order> items) {
+                        OrderDiff.dispatch(start, all.size(), before, items, countRows);
+                    }
+
+                    @Override
+                    public void onPageDropped(int start, int count, List<Order> dropped) {
+                        notifications[0]++;
+                    }
+                });
+        for (int first = 0; first < all.size(); first += 10) {
+            list.onVisibleRange(first, first + 9);
+        }
+        return notifications[0] + list.loadedPageCount();
+    }
+}
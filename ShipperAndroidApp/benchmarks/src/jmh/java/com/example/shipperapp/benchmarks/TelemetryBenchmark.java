@@ -0,0 +1,76 @@
+package com.example.shipperapp.benchmarks;
+
+import com.example.shipperapp.telemetry.SampleRing;
+import com.example.shipperapp.telemetry.TelemetryFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * What the telemetry costs the app: one sample recorded (with the clock read every probe
+ * does), from one thread and from four at once on the same ring, and exporting the app's
+ * rings full. {@code clockOnly} is the floor. Sizes match PerfTelemetry; the export returns
+ * the file size.
+ */
+@State(Scope.Benchmark)
+public class TelemetryBenchmark {
+    private SampleRing frames;
+    private List<SampleRing> full;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+    private int value;
+
+    @Setup
+    public void setUp() {
+        frames = new SampleRing("list_scroll_frame", "us", 16_667, 4096);
+        SampleRing acks = new SampleRing("status_ack", "ms", 2_000, 256);
+        SampleRing fixLatency = new SampleRing("last_location_latency", "ms", 1_000, 256);
+        SampleRing fixAge = new SampleRing("last_location_age", "ms", 30_000, 256);
+        full = Arrays.asList(new SampleRing("list_scroll_frame", "us", 16_667, 4096), acks, fixLatency, fixAge);
+
+        // Frames about 16 ms apart with the odd long one, acks and fixes spread over a shift
+        Random random = new Random(42);
+        long time = 1_760_000_000_000L;
+        for (int i = 0; i < 4096; i++) {
+            time += 16 + random.nextInt(3);
+            full.get(0).record(time, random.nextInt(20) == 0 ? 40_000 + random.nextInt(30_000) : 7_000 + random.nextInt(6_000));
+        }
+        for (int i = 0; i < 256; i++) {
+            time += 60_000 + random.nextInt(120_000);
+            acks.record(time, 150 + random.nextInt(900));
+            fixLatency.record(time, 5 + random.nextInt(400));
+            fixAge.record(time, random.nextInt(60_000));
+        }
+    }
+
+    @Benchmark
+    public long clockOnly() {
+        return System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public void record() {
+        frames.record(System.currentTimeMillis(), value++ & 0x7FFF);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        frames.record(System.currentTimeMillis(), 12_000);
+    }
+
+    @Benchmark
+    public int exportFull() throws IOException {
+        out.reset();
+        TelemetryFile.write(out, 1_760_000_000_000L, full);
+        return out.size();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.shipperapp.api;
+
+import com.example.shipperapp.models.BatchCheckInResult;
+import com.example.shipperapp.models.DeliveryStaff;
+import com.example.shipperapp.models.Order;
+import com.example.shipperapp.models.OrderBootstrap;
+import com.example.shipperapp.models.OrderChanges;
+import com.example.shipperapp.models.OrderPage;
+import com.example.shipperapp.models.LocationCheckpoint;
+import com.example.shipperapp.models.MultiOrderCheckInDto;
+import com.example.shipperapp.models.UpdateOrderStatusDto;
+
+import java.util.List;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.http.Body;
+import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.POST;
+import retrofit2.http.PATCH;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+
+public interface ApiService {
+    @GET("api/deliverystaff/me")
+    Call<DeliveryStaff> getMyStaff();
+
+    // Staff record plus the first page of orders in one round trip, for when the staff id is not known locally
+    @GET("api/orders/bootstrap")
+    Call<OrderBootstrap> getBootstrap(@Query("limit") int limit);
+
+    @GET("api/orders/my")
+    Call<List<Order>> getMyOrders();
+
+    // One page, newest first: keyset when afterId is known, offset otherwise
+    @GET("api/orders/my/page")
+    Call<OrderPage> getMyOrdersPage(@Query("afterId") Integer afterId, @Query("offset") int offset,
+                                    @Query("limit") int limit);
+
+    @GET("api/orders/staff/{staffId}")
+    Call<List<Order>> getOrdersByStaff(@Path("staffId") int staffId);
+
+    // Delta sync: orders changed since the cursor; without a cursor the full list, a page
+    // of "limit" orders after "afterId" at a time
+    @GET("api/orders/staff/{staffId}/changes")
+    Call<OrderChanges> getOrderChanges(@Path("staffId") int staffId, @Query("since") String cursor,
+                                       @Query("afterId") Integer afterId, @Query("limit") Integer limit);
+
+    @GzipRequest
+    @PATCH("api/orders/{id}/status")
+    Call<Order> updateOrderStatus(@Path("id") int orderId, @Header("Idempotency-Key") String idempotencyKey,
+                                  @Body UpdateOrderStatusDto dto);
+
+    @GET("api/tracking/order/{orderId}")
+    Call<List<LocationCheckpoint>> getOrderCheckpoints(@Path("orderId") int orderId);
+
+    // Keyset page in id order, left as raw JSON for CheckpointTrack.readPage. @Streaming: the
+    // body is inflated and parsed as it arrives instead of being buffered whole by Retrofit
+    @Streaming
+    @GET("api/tracking/order/{orderId}")
+    Call<ResponseBody> getOrderCheckpointsPage(@Path("orderId") int orderId, @Query("afterId") Integer afterId,
+                                               @Query("limit") int limit);
+
+    @GzipRequest
+    @POST("api/tracking/checkin")
+    Call<LocationCheckpoint> checkIn(@Body LocationCheckpoint checkpoint);
+
+    @GzipRequest
+    @POST("api/tracking/checkin/batch")
+    Call<BatchCheckInResult> checkInBatch(@Body List<LocationCheckpoint> checkpoints);
+
+    // Like checkInBatch, but each fix lists every order it is for; counts are per order
+    @GzipRequest
+    @POST("api/tracking/checkin/multi")
+    Call<BatchCheckInResult> checkInMulti(@Body List<MultiOrderCheckInDto> fixes);
+
+    @GET("api/orders/{id}")
+    Call<Order> getOrderById(@Path("id") int id);
+}
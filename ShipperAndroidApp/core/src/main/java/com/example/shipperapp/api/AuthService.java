@@ -5,9 +5,14 @@ import com.example.shipperapp.models.LoginResponse;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
+import retrofit2.http.Header;
 import retrofit2.http.POST;
 
 public interface AuthService {
     @POST("api/auth/login")
     Call<LoginResponse> login(@Body LoginRequest req);
+
+    // New token for the current (or recently expired) one
+    @POST("api/auth/refresh")
+    Call<LoginResponse> refresh(@Header("Authorization") String bearerToken);
 }
@@ -0,0 +1,204 @@
+package com.example.shipperapp.api;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import okio.Source;
+import retrofit2.Invocation;
+
+/**
+ * Gzip transport for the shared engine, with the sizes before and after reported per route
+ * in {@link NetworkMetrics}.
+ *
+ * Responses: asks for gzip itself and inflates the body here as it is read, so a large order
+ * list or checkpoint page is never held whole in memory. Doing it here rather than through
+ * OkHttp's transparent gzip makes the decoded size visible, and the HTTP cache further down
+ * the chain keeps entries compressed.
+ *
+ * Requests: a body of a {@link GzipRequest} method of at least {@link #MIN_GZIP_BYTES} is sent
+ * with {@code Content-Encoding: gzip}. A server that rejects the encoding (415, or a 400 whose
+ * error shows it parsed the compressed bytes, see {@link #rejectsEncoding}) but accepts the same
+ * body uncompressed gets plain bodies for the rest of the process. Any other 400 is the API's
+ * own validation and is returned as is: the POST is not sent twice.
+ */
+public final class CompressionInterceptor implements Interceptor {
+    // A single check-in (~160 B) or status change (~30 B) saves a few bytes at best; gzip framing alone is 18
+    static final long MIN_GZIP_BYTES = 512;
+    // Enough of an error body to find the parser's message
+    private static final long MAX_ERROR_PEEK = 4096;
+
+    private final NetworkMetrics metrics;
+    private final Set<String> plainOnlyHosts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public CompressionInterceptor(NetworkMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // An explicit Accept-Encoding turns OkHttp's transparent gzip off
+        if (request.header("Accept-Encoding") == null) {
+            request = request.newBuilder().header("Accept-Encoding", "gzip").build();
+        }
+
+        Request gzipped = compress(request);
+        Response response;
+        if (gzipped == null) {
+            response = chain.proceed(request);
+        } else {
+            response = chain.proceed(gzipped);
+            if (rejectsEncoding(response) && !request.body().isOneShot()) {
+                response.close();
+                response = chain.proceed(request);
+                if (response.isSuccessful()) {
+                    plainOnlyHosts.add(request.url().host());
+                    gzipped = null;
+                }
+            }
+        }
+        if (request.body() != null) {
+            metrics.recordRequestBody(request, request.body().contentLength(), gzipped != null);
+        }
+        return decode(response);
+    }
+
+    // The request with its body gzipped, or null to send it as is. Bodies from the Gson
+    // converter are already in memory, so the compressed copy is buffered too: it gets a
+    // Content-Length and can be replayed after a 401.
+    private Request compress(Request request) throws IOException {
+        RequestBody body = request.body();
+        if (body == null || request.header("Content-Encoding") != null
+                || !isGzipRoute(request) || plainOnlyHosts.contains(request.url().host())) {
+            return null;
+        }
+        long length = body.contentLength();
+        if (length < MIN_GZIP_BYTES) {
+            return null; // also unknown length (-1)
+        }
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(sink);
+        }
+        if (buffer.size() >= length) {
+            return null;
+        }
+        return request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), RequestBody.create(buffer.readByteString(), body.contentType()))
+                .build();
+    }
+
+    /**
+     * Whether a server answered a gzipped body as one that cannot read it: 415, or a 400 from a
+     * server (or proxy) without request decompression whose JSON reader choked on the gzip magic
+     * byte ("'0x1F' is an invalid start of a value") or that names the encoding in its error.
+     */
+    static boolean rejectsEncoding(Response response) throws IOException {
+        if (response.code() == 415) return true;
+        if (response.code() != 400) return false;
+        String error = peekError(response);
+        return error.contains("0x1F") || error.toLowerCase(Locale.ROOT).contains("content-encoding");
+    }
+
+    // The start of an error body, inflated if needed; the response itself stays unread
+    private static String peekError(Response response) throws IOException {
+        ResponseBody peeked = response.peekBody(MAX_ERROR_PEEK);
+        Source source = peeked.source();
+        if ("gzip".equalsIgnoreCase(response.header("Content-Encoding"))) {
+            source = new GzipSource(source);
+        }
+        BufferedSource text = Okio.buffer(source);
+        try {
+            text.request(MAX_ERROR_PEEK);
+        } catch (EOFException truncated) {
+            // Gzip cut off by the peek limit: what was inflated is enough
+        }
+        return text.getBuffer().readUtf8();
+    }
+
+    private static boolean isGzipRoute(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(GzipRequest.class);
+    }
+
+    // Inflates gzip bodies and counts decoded bytes of network responses; cache hits and
+    // revalidated (304) responses cost no transfer and are not counted
+    private Response decode(Response response) {
+        ResponseBody body = response.body();
+        if (body == null || !hasBody(response) || body.contentLength() == 0) {
+            return response;
+        }
+        boolean gzip = "gzip".equalsIgnoreCase(response.header("Content-Encoding"));
+        boolean count = response.cacheResponse() == null;
+        if (!gzip && !count) {
+            return response;
+        }
+        Source source = gzip ? new GzipSource(body.source()) : body.source();
+        DecodedSource decoded = new DecodedSource(source, count ? response.request() : null);
+        Response.Builder builder = response.newBuilder()
+                .body(ResponseBody.create(Okio.buffer(decoded), body.contentType(), gzip ? -1 : body.contentLength()));
+        if (gzip) {
+            builder.removeHeader("Content-Encoding").removeHeader("Content-Length");
+        }
+        return builder.build();
+    }
+
+    private static boolean hasBody(Response response) {
+        if ("HEAD".equals(response.request().method())) return false;
+        int code = response.code();
+        return code >= 200 && code != 204 && code != 304;
+    }
+
+    // Reports the decoded size once, at the end of the body or when it is closed early
+    private final class DecodedSource extends ForwardingSource {
+        private final Request request;
+        private long bytes;
+        private boolean reported;
+
+        DecodedSource(Source delegate, Request request) {
+            super(delegate);
+            this.request = request;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read == -1) {
+                report();
+            } else {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            report();
+            super.close();
+        }
+
+        private void report() {
+            if (!reported && request != null) {
+                reported = true;
+                metrics.recordResponseBody(request, bytes);
+            }
+        }
+    }
+}
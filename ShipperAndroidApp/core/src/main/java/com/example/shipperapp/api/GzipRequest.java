@@ -0,0 +1,15 @@
+package com.example.shipperapp.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link ApiService} method whose request body {@link CompressionInterceptor} may
+ * send gzip-compressed, once it is large enough to be worth it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface GzipRequest {
+}
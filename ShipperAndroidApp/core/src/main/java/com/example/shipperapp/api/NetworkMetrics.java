@@ -0,0 +1,389 @@
+package com.example.shipperapp.api;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * Per-endpoint latency and size metrics for the shared OkHttp engine.
+ *
+ * Calls are grouped by the Retrofit route template they came from (for example
+ * {@code GET api/orders/{id}}), so {@code /api/orders/7} and {@code /api/orders/9} land in the
+ * same bucket. Each route keeps fixed-size power-of-two millisecond histograms for DNS,
+ * connect, time-to-first-byte and total time, plus byte counters: on the wire, and (from
+ * {@link CompressionInterceptor}) before compression, which gives the gzip ratio. Recording only touches
+ * preallocated atomic arrays; the one allocation per call is the OkHttp event listener itself.
+ */
+public final class NetworkMetrics implements EventListener.Factory {
+    public enum Phase { DNS, CONNECT, TTFB, TOTAL }
+
+    /** Receives the text report produced by {@link #startPeriodicDump}. */
+    public interface DumpSink {
+        void write(String report);
+    }
+
+    // Bucket i counts samples in [2^(i-1), 2^i) ms, bucket 0 is < 1 ms, the last is open-ended (>= 32 s).
+    static final int BUCKETS = 17;
+    private static final String OTHER_ROUTE = "OTHER";
+
+    private final ConcurrentHashMap<Method, RouteStats> byMethod = new ConcurrentHashMap<>();
+    private final RouteStats otherRoute = new RouteStats(OTHER_ROUTE);
+    private final AtomicInteger callsStarted = new AtomicInteger();
+    private final AtomicInteger connectionsOpened = new AtomicInteger();
+
+    private ScheduledExecutorService dumpExecutor;
+    private ScheduledFuture<?> dumpTask;
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener();
+    }
+
+    public int callsStarted() {
+        return callsStarted.get();
+    }
+
+    public int connectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /** Stats for every route seen so far. */
+    public List<RouteStats> routes() {
+        List<RouteStats> result = new ArrayList<>(byMethod.values());
+        if (otherRoute.count() > 0) {
+            result.add(otherRoute);
+        }
+        return result;
+    }
+
+    /** Stats for one route template, e.g. {@code "GET api/orders/{id}"}, or null if never called. */
+    public RouteStats route(String template) {
+        for (RouteStats stats : byMethod.values()) {
+            if (stats.template.equals(template)) {
+                return stats;
+            }
+        }
+        return OTHER_ROUTE.equals(template) ? otherRoute : null;
+    }
+
+    public void reset() {
+        for (RouteStats stats : byMethod.values()) {
+            stats.reset();
+        }
+        otherRoute.reset();
+    }
+
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "calls=%d connections=%d%n", callsStarted.get(), connectionsOpened.get()));
+        for (RouteStats stats : routes()) {
+            stats.appendTo(sb);
+        }
+        return sb.toString();
+    }
+
+    public synchronized void startPeriodicDump(long period, TimeUnit unit, final DumpSink sink) {
+        stopPeriodicDump();
+        if (dumpExecutor == null) {
+            dumpExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "network-metrics-dump");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        dumpTask = dumpExecutor.scheduleAtFixedRate(() -> sink.write(dump()), period, period, unit);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (dumpTask != null) {
+            dumpTask.cancel(false);
+            dumpTask = null;
+        }
+    }
+
+    /** Request body size before compression; {@code gzipped} when it went out compressed. */
+    void recordRequestBody(Request request, long bytes, boolean gzipped) {
+        if (bytes <= 0) return;
+        RouteStats stats = statsFor(request);
+        stats.requestBodyBytes.addAndGet(bytes);
+        if (gzipped) stats.gzippedRequests.incrementAndGet();
+    }
+
+    /** Decoded size of a response body that came over the network. */
+    void recordResponseBody(Request request, long bytes) {
+        statsFor(request).responseBodyBytes.addAndGet(bytes);
+    }
+
+    private RouteStats statsFor(Call call) {
+        return statsFor(call.request());
+    }
+
+    private RouteStats statsFor(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation == null) {
+            return otherRoute;
+        }
+        Method method = invocation.method();
+        RouteStats stats = byMethod.get(method);
+        if (stats == null) {
+            stats = new RouteStats(templateOf(method));
+            RouteStats existing = byMethod.putIfAbsent(method, stats);
+            if (existing != null) stats = existing;
+        }
+        return stats;
+    }
+
+    static String templateOf(Method method) {
+        for (Annotation a : method.getAnnotations()) {
+            if (a instanceof GET) return "GET " + ((GET) a).value();
+            if (a instanceof POST) return "POST " + ((POST) a).value();
+            if (a instanceof PATCH) return "PATCH " + ((PATCH) a).value();
+            if (a instanceof PUT) return "PUT " + ((PUT) a).value();
+            if (a instanceof DELETE) return "DELETE " + ((DELETE) a).value();
+            if (a instanceof HEAD) return "HEAD " + ((HEAD) a).value();
+        }
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    static int bucketOf(long millis) {
+        if (millis <= 0) return 0;
+        int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        return bucket < BUCKETS ? bucket : BUCKETS - 1;
+    }
+
+    /** Upper bound in ms of a histogram bucket (the last bucket reports its lower bound). */
+    static long bucketUpperMs(int bucket) {
+        return bucket == BUCKETS - 1 ? 1L << (BUCKETS - 2) : 1L << bucket;
+    }
+
+    public static final class RouteStats {
+        private final String template;
+        private final AtomicLongArray[] histograms = new AtomicLongArray[Phase.values().length];
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong requestBytes = new AtomicLong();
+        private final AtomicLong responseBytes = new AtomicLong();
+        private final AtomicLong requestBodyBytes = new AtomicLong();
+        private final AtomicLong responseBodyBytes = new AtomicLong();
+        private final AtomicLong gzippedRequests = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong notModified = new AtomicLong();
+        private final AtomicLong cacheMisses = new AtomicLong();
+
+        RouteStats(String template) {
+            this.template = template;
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new AtomicLongArray(BUCKETS);
+            }
+        }
+
+        public String template() { return template; }
+        public long count() { return calls.get(); }
+        public long failures() { return failures.get(); }
+        public long requestBytes() { return requestBytes.get(); }
+        public long responseBytes() { return responseBytes.get(); }
+        /** Request bodies before compression. */
+        public long requestBodyBytes() { return requestBodyBytes.get(); }
+        /** Response bodies after decompression (network responses only). */
+        public long responseBodyBytes() { return responseBodyBytes.get(); }
+        public long gzippedRequests() { return gzippedRequests.get(); }
+        /** Bytes sent per request body byte: 1 uncompressed, 0.25 when gzip saved three quarters. */
+        public double requestRatio() { return ratio(requestBytes.get(), requestBodyBytes.get()); }
+        /** Bytes received per decoded response body byte. */
+        public double responseRatio() { return ratio(responseBytes.get(), responseBodyBytes.get()); }
+        /** Served straight from the HTTP cache without touching the network. */
+        public long cacheHits() { return cacheHits.get(); }
+        /** Revalidated with the server, which answered 304 Not Modified. */
+        public long notModified() { return notModified.get(); }
+        /** Full network fetch: nothing cached, or the cached copy had changed. */
+        public long cacheMisses() { return cacheMisses.get(); }
+
+        /** Histogram counts for a phase; index i covers [2^(i-1), 2^i) ms. */
+        public long[] histogram(Phase phase) {
+            AtomicLongArray h = histograms[phase.ordinal()];
+            long[] copy = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] = h.get(i);
+            }
+            return copy;
+        }
+
+        /** Bucket upper bound (ms) below which {@code percentile} of the samples fall, or -1 if empty. */
+        public long percentileMs(Phase phase, double percentile) {
+            AtomicLongArray h = histograms[phase.ordinal()];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) total += h.get(i);
+            if (total == 0) return -1;
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += h.get(i);
+                if (seen >= rank) return bucketUpperMs(i);
+            }
+            return bucketUpperMs(BUCKETS - 1);
+        }
+
+        private static double ratio(long wire, long body) {
+            return body > 0 ? (double) wire / body : 1;
+        }
+
+        void record(Phase phase, long millis) {
+            histograms[phase.ordinal()].incrementAndGet(bucketOf(millis));
+        }
+
+        void reset() {
+            for (AtomicLongArray h : histograms) {
+                for (int i = 0; i < BUCKETS; i++) h.set(i, 0);
+            }
+            calls.set(0);
+            failures.set(0);
+            requestBytes.set(0);
+            responseBytes.set(0);
+            requestBodyBytes.set(0);
+            responseBodyBytes.set(0);
+            gzippedRequests.set(0);
+            cacheHits.set(0);
+            notModified.set(0);
+            cacheMisses.set(0);
+        }
+
+        void appendTo(StringBuilder sb) {
+            sb.append(String.format(Locale.US,
+                    "%s n=%d fail=%d p50/p95 total=%d/%dms ttfb=%d/%dms connect p95=%dms dns p95=%dms out=%dB in=%dB"
+                            + " gzip out/in=%.2f/%.2f (%d gzipped) cache hit/304/miss=%d/%d/%d%n",
+                    template, calls.get(), failures.get(),
+                    percentileMs(Phase.TOTAL, 0.5), percentileMs(Phase.TOTAL, 0.95),
+                    percentileMs(Phase.TTFB, 0.5), percentileMs(Phase.TTFB, 0.95),
+                    percentileMs(Phase.CONNECT, 0.95), percentileMs(Phase.DNS, 0.95),
+                    requestBytes.get(), responseBytes.get(),
+                    requestRatio(), responseRatio(), gzippedRequests.get(),
+                    cacheHits.get(), notModified.get(), cacheMisses.get()));
+        }
+    }
+
+    private final class CallListener extends EventListener {
+        private long callStartNs;
+        private long dnsStartNs;
+        private long connectStartNs;
+        private long requestBytes;
+        private long responseBytes;
+        private boolean conditional;
+
+        @Override
+        public void callStart(Call call) {
+            callsStarted.incrementAndGet();
+            callStartNs = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStartNs = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            statsFor(call).record(Phase.DNS, elapsedMs(dnsStartNs));
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectionsOpened.incrementAndGet();
+            connectStartNs = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            statsFor(call).record(Phase.CONNECT, elapsedMs(connectStartNs));
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+            statsFor(call).record(Phase.CONNECT, elapsedMs(connectStartNs));
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestBytes = byteCount;
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            statsFor(call).record(Phase.TTFB, elapsedMs(callStartNs));
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            responseBytes = byteCount;
+        }
+
+        @Override
+        public void cacheConditionalHit(Call call, Response cachedResponse) {
+            conditional = true;
+        }
+
+        @Override
+        public void cacheHit(Call call, Response response) {
+            // OkHttp also reports a 304-revalidated response as a hit; count those separately
+            if (conditional) {
+                statsFor(call).notModified.incrementAndGet();
+            } else {
+                statsFor(call).cacheHits.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void cacheMiss(Call call) {
+            statsFor(call).cacheMisses.incrementAndGet();
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            finish(call, false);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            finish(call, true);
+        }
+
+        private void finish(Call call, boolean failed) {
+            RouteStats stats = statsFor(call);
+            stats.record(Phase.TOTAL, elapsedMs(callStartNs));
+            stats.calls.incrementAndGet();
+            if (failed) stats.failures.incrementAndGet();
+            stats.requestBytes.addAndGet(requestBytes);
+            stats.responseBytes.addAndGet(responseBytes);
+        }
+
+        private long elapsedMs(long startNs) {
+            return (System.nanoTime() - startNs) / 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.shipperapp.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * API calls that end together, such as everything a screen started. {@link #cancel} cancels
+ * every pending {@link Task} of the scope and of its {@link #child} scopes (the HTTP calls
+ * are aborted, so nothing more is downloaded or parsed), and tasks created afterwards are
+ * cancelled before they send anything.
+ *
+ * Callbacks run on {@code callbackExecutor} and are dropped once the scope is cancelled. With
+ * the main thread as executor and {@link #cancel} called on it, no callback runs after the
+ * cancel, e.g. against the views of a destroyed screen.
+ */
+public final class RequestScope {
+    // Timeouts of every scope; daemon, so it never keeps the process alive
+    static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "request-timeouts");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Executor callbackExecutor;
+    private final RequestScope parent;
+    // Guarded by this
+    private final Set<Task<?>> tasks = new HashSet<>();
+    private final Set<RequestScope> children = new HashSet<>();
+    private volatile boolean cancelled = false;
+    // Shared with child scopes
+    private final AtomicInteger callsSent;
+    private final AtomicInteger callsCancelled;
+
+    public RequestScope(Executor callbackExecutor) {
+        this(callbackExecutor, null);
+    }
+
+    private RequestScope(Executor callbackExecutor, RequestScope parent) {
+        this.callbackExecutor = callbackExecutor;
+        this.parent = parent;
+        this.callsSent = parent != null ? parent.callsSent : new AtomicInteger();
+        this.callsCancelled = parent != null ? parent.callsCancelled : new AtomicInteger();
+    }
+
+    /** A scope cancelled with this one, that can also be cancelled on its own (e.g. one refresh). */
+    public RequestScope child() {
+        RequestScope child = new RequestScope(callbackExecutor, this);
+        synchronized (this) {
+            if (!cancelled) {
+                children.add(child);
+                return child;
+            }
+        }
+        child.cancel();
+        return child;
+    }
+
+    /** Sends {@code call}; any HTTP response, error codes included, is a success. */
+    public <T> Task<Response<T>> send(final Call<T> call) {
+        final Task<Response<T>> task = new Task<>(this);
+        if (task.isCancelled()) {
+            return task;
+        }
+        callsSent.incrementAndGet();
+        task.onCancel(() -> {
+            callsCancelled.incrementAndGet();
+            call.cancel();
+        });
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> c, Response<T> response) {
+                task.succeed(response);
+            }
+
+            @Override
+            public void onFailure(Call<T> c, Throwable t) {
+                task.fail(t);
+            }
+        });
+        return task;
+    }
+
+    /** Sends {@code call} for its body; a non-2xx response fails with {@link HttpException}. */
+    public <T> Task<T> fetch(Call<T> call) {
+        return send(call).map(response -> {
+            if (!response.isSuccessful()) throw new HttpException(response);
+            return response.body();
+        });
+    }
+
+    /**
+     * Waits for all {@code tasks}, running in parallel, and gives their values in order. The
+     * first failure fails the result and cancels the tasks still running.
+     */
+    public <T> Task<List<T>> all(final List<Task<T>> tasks) {
+        final Task<List<T>> all = new Task<>(this);
+        if (tasks.isEmpty()) {
+            all.succeed(new ArrayList<T>());
+            return all;
+        }
+        final Object[] values = new Object[tasks.size()];
+        final AtomicInteger remaining = new AtomicInteger(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            final int index = i;
+            Task<T> task = tasks.get(i);
+            all.onCancel(task::cancel);
+            task.addDependent(all::cancel);
+            task.watch(new Task.Callback<T>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void onSuccess(T value) {
+                    values[index] = value;
+                    if (remaining.decrementAndGet() == 0) {
+                        all.succeed((List<T>) Arrays.asList(values));
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    all.expire(error);
+                }
+            });
+        }
+        return all;
+    }
+
+    /**
+     * This scope's handle on a task of another scope, typically a write started in an
+     * app-wide scope so that it completes even if the screen closes: callbacks are delivered
+     * here, and cancelling this scope only stops the delivery.
+     */
+    public <T> Task<T> join(Task<T> task) {
+        Task<T> joined = new Task<>(this);
+        joined.follow(task, false);
+        return joined;
+    }
+
+    public void cancel() {
+        List<Task<?>> pendingTasks;
+        List<RequestScope> pendingChildren;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            pendingTasks = new ArrayList<>(tasks);
+            pendingChildren = new ArrayList<>(children);
+            tasks.clear();
+            children.clear();
+        }
+        if (parent != null) {
+            parent.removeChild(this);
+        }
+        for (RequestScope child : pendingChildren) child.cancel();
+        for (Task<?> task : pendingTasks) task.cancel();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Tasks of this scope still pending (not counting child scopes). */
+    public synchronized int pendingCount() {
+        return tasks.size();
+    }
+
+    /** Calls sent by this scope and its children, and how many of them were cancelled in flight. */
+    public String stats() {
+        return "sent=" + callsSent.get() + ", cancelledInFlight=" + callsCancelled.get();
+    }
+
+    synchronized boolean register(Task<?> task) {
+        if (cancelled) return false;
+        tasks.add(task);
+        return true;
+    }
+
+    synchronized void unregister(Task<?> task) {
+        tasks.remove(task);
+    }
+
+    void deliver(final Runnable callback) {
+        callbackExecutor.execute(() -> {
+            if (!cancelled) callback.run();
+        });
+    }
+
+    private synchronized void removeChild(RequestScope child) {
+        children.remove(child);
+    }
+}
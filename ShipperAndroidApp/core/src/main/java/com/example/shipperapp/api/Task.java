@@ -0,0 +1,310 @@
+package com.example.shipperapp.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The pending result of an API call, or of calls chained ({@link #map}, {@link #then}) and
+ * combined ({@link RequestScope#all}) from it, in a {@link RequestScope}.
+ *
+ * Cancelling a task cancels what it is waiting on (the HTTP call, or the task before it in a
+ * chain) and the tasks chained after it, so a chain stops as a unit. A cancelled task never
+ * calls its callbacks. Callbacks run on the scope's executor and are dropped once the scope
+ * is cancelled, so a callback registered by a screen never runs after the screen is gone.
+ */
+public final class Task<T> {
+    public interface Callback<T> {
+        void onSuccess(T value);
+
+        void onFailure(Throwable error);
+    }
+
+    public interface Mapper<T, R> {
+        R apply(T value) throws Exception;
+    }
+
+    public interface Continuation<T, R> {
+        Task<R> apply(T value) throws Exception;
+    }
+
+    // What cancelling a pending task also stops: an HTTP call, a timer, a linked task
+    interface Canceller {
+        void cancel();
+    }
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private final RequestScope scope;
+    // Guarded by this
+    private int state = PENDING;
+    private T value;
+    private Throwable error;
+    private List<Callback<? super T>> callbacks;
+    private List<Callback<? super T>> internalCallbacks;
+    // What this task waits on, and the tasks that wait on it
+    private List<Canceller> upstream;
+    private List<Canceller> downstream;
+
+    Task(RequestScope scope) {
+        this.scope = scope;
+        if (!scope.register(this)) {
+            state = CANCELLED; // the scope is gone already
+        }
+    }
+
+    public RequestScope scope() {
+        return scope;
+    }
+
+    /** Calls {@code callback} on the scope's executor once this task succeeds or fails. */
+    public Task<T> observe(Callback<? super T> callback) {
+        synchronized (this) {
+            if (state == PENDING) {
+                if (callbacks == null) callbacks = new ArrayList<>(2);
+                callbacks.add(callback);
+                return this;
+            }
+        }
+        deliver(callback);
+        return this;
+    }
+
+    /** A task with {@code mapper} applied to this task's value; failures pass through. */
+    public <R> Task<R> map(final Mapper<? super T, ? extends R> mapper) {
+        final Task<R> next = new Task<>(scope);
+        link(next);
+        watch(new Callback<T>() {
+            @Override
+            public void onSuccess(T v) {
+                R result;
+                try {
+                    result = mapper.apply(v);
+                } catch (Exception e) {
+                    next.fail(e);
+                    return;
+                }
+                next.succeed(result);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                next.fail(e);
+            }
+        });
+        return next;
+    }
+
+    /** A task that, once this one succeeds, follows the task {@code continuation} starts. */
+    public <R> Task<R> then(final Continuation<? super T, R> continuation) {
+        final Task<R> next = new Task<>(scope);
+        link(next);
+        watch(new Callback<T>() {
+            @Override
+            public void onSuccess(T v) {
+                Task<R> inner;
+                try {
+                    inner = continuation.apply(v);
+                } catch (Exception e) {
+                    next.fail(e);
+                    return;
+                }
+                next.follow(inner, true);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                next.fail(e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Fails this task with a {@link TimeoutException}, cancelling what it waits on, unless it
+     * completes within {@code time}.
+     */
+    public Task<T> timeout(long time, TimeUnit unit) {
+        final ScheduledFuture<?> timer = RequestScope.TIMER.schedule(
+                () -> expire(new TimeoutException("No result after " + unit.toMillis(time) + " ms")), time, unit);
+        watch(new Callback<T>() {
+            @Override
+            public void onSuccess(T v) {
+                timer.cancel(false);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                timer.cancel(false);
+            }
+        });
+        onCancel(() -> timer.cancel(false));
+        return this;
+    }
+
+    /** Stops the task and everything linked to it; no callback of this task runs afterwards. */
+    public void cancel() {
+        List<Canceller> up;
+        List<Canceller> down;
+        synchronized (this) {
+            if (state != PENDING) return;
+            state = CANCELLED;
+            up = upstream;
+            down = downstream;
+            upstream = null;
+            downstream = null;
+            callbacks = null;
+            internalCallbacks = null;
+        }
+        scope.unregister(this);
+        runCancellers(up);
+        runCancellers(down);
+    }
+
+    public synchronized boolean isDone() {
+        return state != PENDING;
+    }
+
+    public synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    // --- completion, for RequestScope and the operators above
+
+    void succeed(T result) {
+        complete(SUCCEEDED, result, null, false);
+    }
+
+    void fail(Throwable e) {
+        complete(FAILED, null, e, false);
+    }
+
+    // Fails, and cancels what the task waits on: the call that timed out, the rest of a fan-out
+    void expire(Throwable e) {
+        complete(FAILED, null, e, true);
+    }
+
+    /** Something this task waits on: cancelled with the task, or when it expires. */
+    void onCancel(Canceller canceller) {
+        synchronized (this) {
+            if (state == PENDING) {
+                if (upstream == null) upstream = new ArrayList<>(2);
+                upstream.add(canceller);
+                return;
+            }
+            if (state != CANCELLED) return;
+        }
+        canceller.cancel();
+    }
+
+    // A task waiting on this one: cancelled with it (a failure reaches it as a failure)
+    void addDependent(Canceller canceller) {
+        synchronized (this) {
+            if (state == PENDING) {
+                if (downstream == null) downstream = new ArrayList<>(2);
+                downstream.add(canceller);
+                return;
+            }
+            if (state != CANCELLED) return;
+        }
+        canceller.cancel();
+    }
+
+    /**
+     * Completes as {@code other} does, and is cancelled with it. {@code linked}: cancelling
+     * this task also cancels {@code other}; otherwise {@code other} keeps running.
+     */
+    void follow(final Task<T> other, boolean linked) {
+        if (linked) {
+            onCancel(other::cancel);
+        }
+        other.addDependent(this::cancel);
+        other.watch(new Callback<T>() {
+            @Override
+            public void onSuccess(T v) {
+                succeed(v);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                fail(e);
+            }
+        });
+    }
+
+    // Like observe, but runs on the completing thread and is not affected by the scope
+    // being cancelled: how tasks drive the tasks that depend on them
+    void watch(Callback<? super T> callback) {
+        synchronized (this) {
+            if (state == PENDING) {
+                if (internalCallbacks == null) internalCallbacks = new ArrayList<>(2);
+                internalCallbacks.add(callback);
+                return;
+            }
+            if (state == CANCELLED) return;
+        }
+        run(callback);
+    }
+
+    // Cancelling either end of a chain cancels the other
+    private void link(Task<?> next) {
+        next.onCancel(this::cancel);
+        addDependent(next::cancel);
+    }
+
+    private void complete(int newState, T result, Throwable e, boolean cancelUpstream) {
+        List<Callback<? super T>> internal;
+        List<Callback<? super T>> external;
+        List<Canceller> toCancel;
+        synchronized (this) {
+            if (state != PENDING) return;
+            state = newState;
+            value = result;
+            error = e;
+            internal = internalCallbacks;
+            external = callbacks;
+            toCancel = cancelUpstream ? upstream : null;
+            internalCallbacks = null;
+            callbacks = null;
+            upstream = null;
+            downstream = null;
+        }
+        scope.unregister(this);
+        runCancellers(toCancel);
+        if (internal != null) {
+            for (Callback<? super T> callback : internal) run(callback);
+        }
+        if (external != null) {
+            for (Callback<? super T> callback : external) deliver(callback);
+        }
+    }
+
+    private void deliver(final Callback<? super T> callback) {
+        scope.deliver(() -> run(callback));
+    }
+
+    private void run(Callback<? super T> callback) {
+        T v;
+        Throwable e;
+        synchronized (this) {
+            if (state == CANCELLED) return;
+            v = value;
+            e = error;
+        }
+        if (e == null) {
+            callback.onSuccess(v);
+        } else {
+            callback.onFailure(e);
+        }
+    }
+
+    private static void runCancellers(List<Canceller> toCancel) {
+        if (toCancel == null) return;
+        for (Canceller c : toCancel) c.cancel();
+    }
+}
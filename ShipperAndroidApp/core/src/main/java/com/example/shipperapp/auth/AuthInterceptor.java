@@ -0,0 +1,54 @@
+package com.example.shipperapp.auth;
+
+import java.io.IOException;
+
+import okhttp3.Authenticator;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * Adds the bearer token from {@link AuthSession} to every request and, as the client's
+ * {@link Authenticator}, replays a request that got 401 once with a refreshed token.
+ */
+public class AuthInterceptor implements Interceptor, Authenticator {
+    private final AuthSession session;
+
+    public AuthInterceptor(AuthSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        String token = session.tokenForRequest();
+        if (token == null || token.isEmpty()) {
+            return chain.proceed(original);
+        }
+
+        Request request = original.newBuilder()
+                .header("Authorization", "Bearer " + token)
+                .build();
+
+        return chain.proceed(request);
+    }
+
+    @Override
+    public Request authenticate(Route route, Response response) {
+        if (response.priorResponse() != null) {
+            return null; // already replayed once with a fresh token: give up
+        }
+        String header = response.request().header("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        String fresh = session.refreshAfterFailure(header.substring("Bearer ".length()));
+        if (fresh == null) {
+            return null;
+        }
+        return response.request().newBuilder()
+                .header("Authorization", "Bearer " + fresh)
+                .build();
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.shipperapp.auth;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okio.ByteString;
+
+/**
+ * In-memory view of the signed-in session.
+ *
+ * The token and the claims the app uses (expiry, staff id) are parsed once and published as
+ * one immutable {@link State} through a volatile field, so reading the token for a request
+ * is a single field load. A token close to expiry is refreshed in the background; an expired
+ * or rejected one is refreshed by exactly one caller while every other request that needs it
+ * waits and then goes out with the new token. When the server refuses to refresh, the
+ * session is over and {@link Listener#onSessionExpired} asks for a new login.
+ *
+ * Where the token is stored and how it is refreshed are supplied by the app (see
+ * {@code AuthManager.session}).
+ */
+public class AuthSession {
+    // Refresh this long before "exp" so requests never go out with a token about to lapse
+    static final long REFRESH_AHEAD_MS = 5 * 60_000;
+    // After a refresh failed for network reasons, requests fail fast for this long instead of each retrying it
+    static final long FAILED_REFRESH_BACKOFF_MS = 10_000;
+    // How long after "exp" api/auth/refresh still accepts a token (RefreshGrace in AuthController)
+    static final long REFRESH_GRACE_MS = 7L * 24 * 60 * 60_000;
+
+    public interface Store {
+        String load();
+
+        void save(String token);
+    }
+
+    public interface Refresher {
+        /** Exchanges {@code token} for a new one; null when the server refuses (log in again). */
+        String refresh(String token) throws IOException;
+    }
+
+    public interface Listener {
+        void onSessionExpired();
+    }
+
+    static final class State {
+        static final State EMPTY = new State(null, 0, -1);
+
+        final String token;
+        final long expiresAtMs; // 0 = no "exp" claim
+        final int staffId;
+
+        State(String token, long expiresAtMs, int staffId) {
+            this.token = token;
+            this.expiresAtMs = expiresAtMs;
+            this.staffId = staffId;
+        }
+    }
+
+    private final Store store;
+    private final Refresher refresher;
+    private final Object refreshLock = new Object();
+    private final AtomicBoolean backgroundRefresh = new AtomicBoolean();
+    private final AtomicInteger refreshCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "auth-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile State state;
+    private volatile Listener listener;
+    // guarded by refreshLock
+    private String failedRefreshToken;
+    private long failedRefreshAt;
+
+    public AuthSession(Store store, Refresher refresher) {
+        this.store = store;
+        this.refresher = refresher;
+        this.state = parse(store.load());
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public String token() {
+        return state.token;
+    }
+
+    /** Staff id from the token's "StaffId" claim, or -1. */
+    public int staffId() {
+        return state.staffId;
+    }
+
+    /** Expiry from the token's "exp" claim (epoch millis), or 0 when unknown. */
+    public long expiresAtMillis() {
+        return state.expiresAtMs;
+    }
+
+    /**
+     * Whether the saved session can be used without logging in again: there is a token, and it
+     * has not been expired for longer than the server still refreshes. Checked locally.
+     */
+    public boolean canResume(long nowMs) {
+        State s = state;
+        return s.token != null && (s.expiresAtMs == 0 || nowMs < s.expiresAtMs + REFRESH_GRACE_MS);
+    }
+
+    /** Successful refreshes since process start. */
+    public int refreshCount() {
+        return refreshCount.get();
+    }
+
+    /** New token after a login, or null on logout. */
+    public void setToken(String token) {
+        synchronized (refreshLock) {
+            store.save(token);
+            state = parse(token);
+            failedRefreshToken = null;
+        }
+    }
+
+    /**
+     * Token to put on an outgoing request. An expired token is refreshed first (the caller
+     * waits); one that is about to expire is used as is while a refresh starts in the background.
+     */
+    public String tokenForRequest() {
+        final State s = state;
+        if (s.token == null || s.expiresAtMs == 0) {
+            return s.token;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= s.expiresAtMs) {
+            String fresh = refreshAfterFailure(s.token);
+            return fresh != null ? fresh : s.token;
+        }
+        if (now >= s.expiresAtMs - REFRESH_AHEAD_MS && backgroundRefresh.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    refreshAfterFailure(s.token);
+                } finally {
+                    backgroundRefresh.set(false);
+                }
+            });
+        }
+        return s.token;
+    }
+
+    /**
+     * {@code failedToken} was rejected (or has expired): returns the token to retry with, or
+     * null when there is none. One refresh runs at a time; callers arriving while it runs wait
+     * for it and get its token instead of starting another.
+     */
+    public String refreshAfterFailure(String failedToken) {
+        synchronized (refreshLock) {
+            State s = state;
+            if (s.token == null) {
+                return null; // logged out, or the session already expired
+            }
+            if (!s.token.equals(failedToken)) {
+                return s.token; // someone else refreshed while we waited
+            }
+            long now = System.currentTimeMillis();
+            if (failedToken.equals(failedRefreshToken) && now - failedRefreshAt < FAILED_REFRESH_BACKOFF_MS) {
+                return null;
+            }
+            String fresh;
+            try {
+                fresh = refresher.refresh(failedToken);
+            } catch (IOException e) {
+                // Offline or server error: keep the session, the request fails like any network error
+                failedRefreshToken = failedToken;
+                failedRefreshAt = now;
+                return null;
+            }
+            if (fresh == null) {
+                store.save(null);
+                state = State.EMPTY;
+                Listener l = listener;
+                if (l != null) l.onSessionExpired();
+                return null;
+            }
+            store.save(fresh);
+            state = parse(fresh);
+            failedRefreshToken = null;
+            refreshCount.incrementAndGet();
+            return fresh;
+        }
+    }
+
+    // Payload of the JWT, not verified: the server checks the signature on every request
+    static State parse(String token) {
+        if (token == null || token.isEmpty()) {
+            return State.EMPTY;
+        }
+        long expiresAtMs = 0;
+        int staffId = -1;
+        String[] parts = token.split("\\.");
+        if (parts.length >= 2) {
+            try {
+                ByteString decoded = ByteString.decodeBase64(parts[1]);
+                if (decoded != null) {
+                    JsonObject claims = new JsonParser().parse(decoded.utf8()).getAsJsonObject();
+                    expiresAtMs = claimLong(claims, "exp", 0) * 1000;
+                    staffId = (int) claimLong(claims, "StaffId", -1);
+                }
+            } catch (RuntimeException ignored) {
+                // unreadable payload: send the token as is and let the server judge it
+            }
+        }
+        return new State(token, expiresAtMs, staffId);
+    }
+
+    // Numeric claims may arrive as strings ("StaffId": "7" from the .NET token handler)
+    private static long claimLong(JsonObject claims, String name, long fallback) {
+        JsonElement value = claims.get(name);
+        if (value == null || !value.isJsonPrimitive()) {
+            return fallback;
+        }
+        try {
+            return value.getAsLong();
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
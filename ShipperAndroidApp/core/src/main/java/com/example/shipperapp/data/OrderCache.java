@@ -0,0 +1,258 @@
+package com.example.shipperapp.data;
+
+import com.example.shipperapp.models.Order;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of recently seen orders, keyed by order id.
+ *
+ * Holds at most {@code maxEntries} orders (least recently used go first) and treats an entry
+ * as fresh for {@code ttlMs} after it was written. Every order the app receives (list pages,
+ * delta syncs, detail fetches, status update responses) is written through, so opening an
+ * order that was just listed needs no request. Concurrent {@link #load} calls for the same
+ * order share one request.
+ *
+ * Thread-safe; callbacks run on the thread that completes the load (or the caller's, on a hit).
+ */
+public class OrderCache {
+    public interface Clock {
+        long nowMillis();
+    }
+
+    public interface Callback {
+        void onLoaded(Order order);
+
+        void onFailed(Throwable error);
+    }
+
+    public interface Loader {
+        /** Fetches {@code orderId} and reports through {@code callback} exactly once. */
+        void load(int orderId, Callback callback);
+    }
+
+    private static final class Entry {
+        final Order order;
+        final long writtenAt;
+        final long version;
+
+        Entry(Order order, long writtenAt, long version) {
+            this.order = order;
+            this.writtenAt = writtenAt;
+            this.version = version;
+        }
+    }
+
+    private static final class Flight {
+        final long startVersion;
+        final int generation;
+        final List<Callback> waiters = new ArrayList<>(2);
+
+        Flight(long startVersion, int generation) {
+            this.startVersion = startVersion;
+            this.generation = generation;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final Clock clock;
+    private final LinkedHashMap<Integer, Entry> entries;
+    private final Map<Integer, Flight> inFlight = new HashMap<>();
+    // Bumped on every write, so a load that started before a newer write does not overwrite it
+    private long version = 0;
+    // Bumped by clear(): loads started for the previous account are delivered but not cached
+    private int generation = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public OrderCache(int maxEntries, long ttlMs) {
+        this(maxEntries, ttlMs, System::currentTimeMillis);
+    }
+
+    public OrderCache(int maxEntries, long ttlMs, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be > 0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > OrderCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** The cached order if it is still fresh, else null. Counts as a hit or a miss. */
+    public Order getIfFresh(int orderId) {
+        Order order;
+        synchronized (this) {
+            order = freshLocked(orderId);
+        }
+        (order != null ? hits : misses).incrementAndGet();
+        return order;
+    }
+
+    /** Whether a fresh copy is cached, without counting a hit or a miss (for prefetching). */
+    public synchronized boolean isFresh(int orderId) {
+        return freshLocked(orderId) != null;
+    }
+
+    /**
+     * Loads the order through {@code loader} and caches the result. While a load for the same
+     * order is running, further calls wait for it instead of starting another; an order that
+     * became fresh since the caller's {@link #getIfFresh} is delivered right away.
+     */
+    public void load(final int orderId, Loader loader, Callback callback) {
+        final Flight flight;
+        Order cached;
+        synchronized (this) {
+            cached = freshLocked(orderId);
+            if (cached == null) {
+                Flight running = inFlight.get(orderId);
+                if (running != null) {
+                    running.waiters.add(callback);
+                    coalesced.incrementAndGet();
+                    return;
+                }
+                flight = new Flight(version, generation);
+                flight.waiters.add(callback);
+                inFlight.put(orderId, flight);
+            } else {
+                flight = null;
+            }
+        }
+        if (cached != null) {
+            callback.onLoaded(cached);
+            return;
+        }
+        loader.load(orderId, new Callback() {
+            @Override
+            public void onLoaded(Order order) {
+                Order result = order;
+                List<Callback> waiters;
+                synchronized (OrderCache.this) {
+                    inFlight.remove(orderId);
+                    Entry newer = entries.get(orderId);
+                    if (newer != null && newer.version > flight.startVersion) {
+                        result = newer.order; // written through while we were loading
+                    } else if (order != null && flight.generation == generation) {
+                        putLocked(order);
+                    }
+                    waiters = flight.waiters;
+                }
+                for (Callback c : waiters) {
+                    c.onLoaded(result);
+                }
+            }
+
+            @Override
+            public void onFailed(Throwable error) {
+                List<Callback> waiters;
+                synchronized (OrderCache.this) {
+                    inFlight.remove(orderId);
+                    waiters = flight.waiters;
+                }
+                for (Callback c : waiters) {
+                    c.onFailed(error);
+                }
+            }
+        });
+    }
+
+    public synchronized void put(Order order) {
+        if (order != null) {
+            putLocked(order);
+        }
+    }
+
+    public synchronized void putAll(List<Order> orders) {
+        if (orders == null) return;
+        for (Order o : orders) {
+            if (o != null) {
+                putLocked(o);
+            }
+        }
+    }
+
+    /**
+     * A status chosen locally. Updates a copy of the cached order (the cached instance may be
+     * on screen in the list); keeps the entry's age, since the rest of it is no newer.
+     */
+    public synchronized void putStatus(int orderId, String status) {
+        Entry e = entries.get(orderId);
+        if (e == null) return;
+        Order copy = new Order();
+        copy.orderId = e.order.orderId;
+        copy.orderCode = e.order.orderCode;
+        copy.status = status;
+        copy.assignedStaff = e.order.assignedStaff;
+        copy.deliveryLatitude = e.order.deliveryLatitude;
+        copy.deliveryLongitude = e.order.deliveryLongitude;
+        copy.checkpoints = e.order.checkpoints;
+        entries.put(orderId, new Entry(copy, e.writtenAt, ++version));
+    }
+
+    public synchronized void invalidate(int orderId) {
+        entries.remove(orderId);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        generation++;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    /** Calls that joined a load already in flight instead of starting their own. */
+    public long coalescedCount() {
+        return coalesced.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public String stats() {
+        return "size=" + size() + ", hits=" + hits.get() + ", misses=" + misses.get()
+                + ", coalesced=" + coalesced.get() + ", evictions=" + evictions.get();
+    }
+
+    private Order freshLocked(int orderId) {
+        Entry e = entries.get(orderId);
+        if (e == null) return null;
+        if (clock.nowMillis() - e.writtenAt >= ttlMs) {
+            entries.remove(orderId);
+            return null;
+        }
+        return e.order;
+    }
+
+    private void putLocked(Order order) {
+        entries.put(order.orderId, new Entry(order, clock.nowMillis(), ++version));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.shipperapp.models;
+
+public class BatchCheckInResult {
+    public int accepted;
+    public int duplicates; // already stored by an earlier (retried) upload
+    public int rejected;   // unknown order
+}
@@ -0,0 +1,608 @@
+package com.example.shipperapp.models;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written streaming Gson adapters for every class in this package.
+ *
+ * Gson's default binding finds fields by reflection and boxes every value on the way in;
+ * on low-end devices that dominates parsing a page of orders. These adapters switch on the
+ * JSON name and assign fields directly. They follow the reflective rules: unknown names are
+ * skipped, a JSON null keeps a primitive field's default, numbers are accepted for String
+ * fields (the server sends {@code status} as the enum's number), and null fields are left
+ * out on write unless the Gson instance serializes nulls.
+ *
+ * A new field in a model needs a line in its adapter here, or it will not be (de)serialized.
+ */
+public final class ModelTypeAdapters implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == Order.class) return (TypeAdapter<T>) ORDER;
+        if (raw == DeliveryStaff.class) return (TypeAdapter<T>) DELIVERY_STAFF;
+        if (raw == LocationCheckpoint.class) return (TypeAdapter<T>) LOCATION_CHECKPOINT;
+        if (raw == OrderChanges.class) return (TypeAdapter<T>) ORDER_CHANGES;
+        if (raw == OrderPage.class) return (TypeAdapter<T>) ORDER_PAGE;
+        if (raw == OrderBootstrap.class) return (TypeAdapter<T>) ORDER_BOOTSTRAP;
+        if (raw == BatchCheckInResult.class) return (TypeAdapter<T>) BATCH_CHECK_IN_RESULT;
+        if (raw == UpdateOrderStatusDto.class) return (TypeAdapter<T>) UPDATE_ORDER_STATUS_DTO;
+        if (raw == MultiOrderCheckInDto.class) return (TypeAdapter<T>) MULTI_ORDER_CHECK_IN_DTO;
+        if (raw == LoginRequest.class) return (TypeAdapter<T>) LOGIN_REQUEST;
+        if (raw == LoginResponse.class) return (TypeAdapter<T>) LOGIN_RESPONSE;
+        if (raw == LoginResponse.User.class) return (TypeAdapter<T>) LOGIN_USER;
+        return null;
+    }
+
+    static final TypeAdapter<DeliveryStaff> DELIVERY_STAFF = new TypeAdapter<DeliveryStaff>() {
+        @Override
+        public void write(JsonWriter out, DeliveryStaff s) throws IOException {
+            if (s == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("staffId").value(s.staffId);
+            out.name("fullName").value(s.fullName);
+            out.name("phoneNumber").value(s.phoneNumber);
+            out.name("vehicleType").value(s.vehicleType);
+            out.name("vehiclePlate").value(s.vehiclePlate);
+            out.name("isAvailable").value(s.isAvailable);
+            out.endObject();
+        }
+
+        @Override
+        public DeliveryStaff read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            DeliveryStaff s = new DeliveryStaff();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "staffId": s.staffId = readInt(in, s.staffId); break;
+                    case "fullName": s.fullName = readString(in); break;
+                    case "phoneNumber": s.phoneNumber = readString(in); break;
+                    case "vehicleType": s.vehicleType = readString(in); break;
+                    case "vehiclePlate": s.vehiclePlate = readString(in); break;
+                    case "isAvailable": s.isAvailable = readBoolean(in, s.isAvailable); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return s;
+        }
+    };
+
+    static final TypeAdapter<LocationCheckpoint> LOCATION_CHECKPOINT = new TypeAdapter<LocationCheckpoint>() {
+        @Override
+        public void write(JsonWriter out, LocationCheckpoint cp) throws IOException {
+            if (cp == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("checkpointId").value(cp.checkpointId);
+            out.name("orderId").value(cp.orderId);
+            out.name("latitude").value(cp.latitude);
+            out.name("longitude").value(cp.longitude);
+            out.name("locationName").value(cp.locationName);
+            out.name("checkInTime").value(cp.checkInTime);
+            out.name("notes").value(cp.notes);
+            out.endObject();
+        }
+
+        @Override
+        public LocationCheckpoint read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            LocationCheckpoint cp = new LocationCheckpoint();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "checkpointId": cp.checkpointId = readInt(in, cp.checkpointId); break;
+                    case "orderId": cp.orderId = readInt(in, cp.orderId); break;
+                    case "latitude": cp.latitude = readDouble(in, cp.latitude); break;
+                    case "longitude": cp.longitude = readDouble(in, cp.longitude); break;
+                    case "locationName": cp.locationName = readString(in); break;
+                    case "checkInTime": cp.checkInTime = readString(in); break;
+                    case "notes": cp.notes = readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return cp;
+        }
+    };
+
+    static final TypeAdapter<Order> ORDER = new TypeAdapter<Order>() {
+        @Override
+        public void write(JsonWriter out, Order o) throws IOException {
+            if (o == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("orderId").value(o.orderId);
+            out.name("orderCode").value(o.orderCode);
+            out.name("status").value(o.status);
+            out.name("assignedStaff");
+            DELIVERY_STAFF.write(out, o.assignedStaff);
+            out.name("deliveryLatitude").value(o.deliveryLatitude);
+            out.name("deliveryLongitude").value(o.deliveryLongitude);
+            out.name("checkpoints");
+            writeList(out, o.checkpoints, LOCATION_CHECKPOINT);
+            out.endObject();
+        }
+
+        @Override
+        public Order read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Order o = new Order();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "orderId": o.orderId = readInt(in, o.orderId); break;
+                    case "orderCode": o.orderCode = readString(in); break;
+                    case "status": o.status = readString(in); break;
+                    case "assignedStaff": o.assignedStaff = DELIVERY_STAFF.read(in); break;
+                    case "deliveryLatitude": o.deliveryLatitude = readNullableDouble(in); break;
+                    case "deliveryLongitude": o.deliveryLongitude = readNullableDouble(in); break;
+                    case "checkpoints": o.checkpoints = readList(in, LOCATION_CHECKPOINT); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return o;
+        }
+    };
+
+    static final TypeAdapter<OrderChanges> ORDER_CHANGES = new TypeAdapter<OrderChanges>() {
+        @Override
+        public void write(JsonWriter out, OrderChanges c) throws IOException {
+            if (c == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("cursor").value(c.cursor);
+            out.name("fullSnapshot").value(c.fullSnapshot);
+            out.name("changed");
+            writeList(out, c.changed, ORDER);
+            out.name("removed");
+            writeList(out, c.removed, INTEGER);
+            out.name("activeCount").value(c.activeCount);
+            out.name("nextAfterId").value(c.nextAfterId);
+            out.endObject();
+        }
+
+        @Override
+        public OrderChanges read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            OrderChanges c = new OrderChanges();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "cursor": c.cursor = readString(in); break;
+                    case "fullSnapshot": c.fullSnapshot = readBoolean(in, c.fullSnapshot); break;
+                    case "changed": c.changed = readList(in, ORDER); break;
+                    case "removed": c.removed = readList(in, INTEGER); break;
+                    case "activeCount": c.activeCount = readInt(in, c.activeCount); break;
+                    case "nextAfterId": c.nextAfterId = readInteger(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return c;
+        }
+    };
+
+    static final TypeAdapter<OrderPage> ORDER_PAGE = new TypeAdapter<OrderPage>() {
+        @Override
+        public void write(JsonWriter out, OrderPage p) throws IOException {
+            if (p == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("items");
+            writeList(out, p.items, ORDER);
+            out.name("totalCount").value(p.totalCount);
+            out.name("nextAfterId").value(p.nextAfterId);
+            out.endObject();
+        }
+
+        @Override
+        public OrderPage read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            OrderPage p = new OrderPage();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "items": p.items = readList(in, ORDER); break;
+                    case "totalCount": p.totalCount = readInt(in, p.totalCount); break;
+                    case "nextAfterId": p.nextAfterId = readInteger(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return p;
+        }
+    };
+
+    static final TypeAdapter<OrderBootstrap> ORDER_BOOTSTRAP = new TypeAdapter<OrderBootstrap>() {
+        @Override
+        public void write(JsonWriter out, OrderBootstrap b) throws IOException {
+            if (b == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("staff");
+            DELIVERY_STAFF.write(out, b.staff);
+            out.name("orderChanges");
+            ORDER_CHANGES.write(out, b.orderChanges);
+            out.name("myOrders");
+            ORDER_PAGE.write(out, b.myOrders);
+            out.endObject();
+        }
+
+        @Override
+        public OrderBootstrap read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            OrderBootstrap b = new OrderBootstrap();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "staff": b.staff = DELIVERY_STAFF.read(in); break;
+                    case "orderChanges": b.orderChanges = ORDER_CHANGES.read(in); break;
+                    case "myOrders": b.myOrders = ORDER_PAGE.read(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return b;
+        }
+    };
+
+    static final TypeAdapter<BatchCheckInResult> BATCH_CHECK_IN_RESULT = new TypeAdapter<BatchCheckInResult>() {
+        @Override
+        public void write(JsonWriter out, BatchCheckInResult r) throws IOException {
+            if (r == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("accepted").value(r.accepted);
+            out.name("duplicates").value(r.duplicates);
+            out.name("rejected").value(r.rejected);
+            out.endObject();
+        }
+
+        @Override
+        public BatchCheckInResult read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            BatchCheckInResult r = new BatchCheckInResult();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "accepted": r.accepted = readInt(in, r.accepted); break;
+                    case "duplicates": r.duplicates = readInt(in, r.duplicates); break;
+                    case "rejected": r.rejected = readInt(in, r.rejected); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return r;
+        }
+    };
+
+    static final TypeAdapter<UpdateOrderStatusDto> UPDATE_ORDER_STATUS_DTO = new TypeAdapter<UpdateOrderStatusDto>() {
+        @Override
+        public void write(JsonWriter out, UpdateOrderStatusDto d) throws IOException {
+            if (d == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("orderId").value(d.orderId);
+            out.name("staffId").value(d.staffId);
+            out.name("status").value(d.status);
+            out.name("notes").value(d.notes);
+            out.endObject();
+        }
+
+        @Override
+        public UpdateOrderStatusDto read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            UpdateOrderStatusDto d = new UpdateOrderStatusDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "orderId": d.orderId = readString(in); break;
+                    case "staffId": d.staffId = readString(in); break;
+                    case "status": d.status = readInt(in, d.status); break;
+                    case "notes": d.notes = readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return d;
+        }
+    };
+
+    static final TypeAdapter<MultiOrderCheckInDto> MULTI_ORDER_CHECK_IN_DTO = new TypeAdapter<MultiOrderCheckInDto>() {
+        @Override
+        public void write(JsonWriter out, MultiOrderCheckInDto d) throws IOException {
+            if (d == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("orderIds");
+            writeList(out, d.orderIds, INTEGER);
+            out.name("latitude").value(d.latitude);
+            out.name("longitude").value(d.longitude);
+            out.name("checkInTime").value(d.checkInTime);
+            out.name("notes").value(d.notes);
+            out.endObject();
+        }
+
+        @Override
+        public MultiOrderCheckInDto read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            MultiOrderCheckInDto d = new MultiOrderCheckInDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "orderIds": d.orderIds = readList(in, INTEGER); break;
+                    case "latitude": d.latitude = readDouble(in, d.latitude); break;
+                    case "longitude": d.longitude = readDouble(in, d.longitude); break;
+                    case "checkInTime": d.checkInTime = readString(in); break;
+                    case "notes": d.notes = readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return d;
+        }
+    };
+
+    // Element adapter for lists of ids
+    static final TypeAdapter<Integer> INTEGER = new TypeAdapter<Integer>() {
+        @Override
+        public void write(JsonWriter out, Integer value) throws IOException {
+            out.value(value);
+        }
+
+        @Override
+        public Integer read(JsonReader in) throws IOException {
+            return readInteger(in);
+        }
+    };
+
+    static final TypeAdapter<LoginRequest> LOGIN_REQUEST = new TypeAdapter<LoginRequest>() {
+        @Override
+        public void write(JsonWriter out, LoginRequest r) throws IOException {
+            if (r == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("username").value(r.username);
+            out.name("password").value(r.password);
+            out.endObject();
+        }
+
+        @Override
+        public LoginRequest read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            LoginRequest r = new LoginRequest(null, null);
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username": r.username = readString(in); break;
+                    case "password": r.password = readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return r;
+        }
+    };
+
+    static final TypeAdapter<LoginResponse.User> LOGIN_USER = new TypeAdapter<LoginResponse.User>() {
+        @Override
+        public void write(JsonWriter out, LoginResponse.User u) throws IOException {
+            if (u == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("userId").value(u.userId);
+            out.name("username").value(u.username);
+            out.name("fullName").value(u.fullName);
+            out.name("email").value(u.email);
+            out.name("role").value(u.role);
+            out.endObject();
+        }
+
+        @Override
+        public LoginResponse.User read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            LoginResponse.User u = new LoginResponse.User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "userId": u.userId = readInt(in, u.userId); break;
+                    case "username": u.username = readString(in); break;
+                    case "fullName": u.fullName = readString(in); break;
+                    case "email": u.email = readString(in); break;
+                    case "role": u.role = readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return u;
+        }
+    };
+
+    static final TypeAdapter<LoginResponse> LOGIN_RESPONSE = new TypeAdapter<LoginResponse>() {
+        @Override
+        public void write(JsonWriter out, LoginResponse r) throws IOException {
+            if (r == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("token").value(r.token);
+            out.name("user");
+            LOGIN_USER.write(out, r.user);
+            out.endObject();
+        }
+
+        @Override
+        public LoginResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            LoginResponse r = new LoginResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "token": r.token = readString(in); break;
+                    case "user": r.user = LOGIN_USER.read(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return r;
+        }
+    };
+
+    // --- value helpers, matching Gson's built-in adapters ---
+
+    static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    static int readInt(JsonReader in, int fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return in.nextInt();
+    }
+
+    static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    static double readDouble(JsonReader in, double fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return in.nextDouble();
+    }
+
+    static Double readNullableDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    static boolean readBoolean(JsonReader in, boolean fallback) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    static <T> List<T> readList(JsonReader in, TypeAdapter<T> element) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(element.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    static <T> void writeList(JsonWriter out, List<T> list, TypeAdapter<T> element) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T item : list) {
+            element.write(out, item);
+        }
+        out.endArray();
+    }
+}
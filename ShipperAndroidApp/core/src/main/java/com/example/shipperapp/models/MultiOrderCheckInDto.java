@@ -0,0 +1,12 @@
+package com.example.shipperapp.models;
+
+import java.util.List;
+
+/** One location fix checked in for several orders at once (api/tracking/checkin/multi). */
+public class MultiOrderCheckInDto {
+    public List<Integer> orderIds;
+    public double latitude;
+    public double longitude;
+    public String checkInTime = ""; // ISO string
+    public String notes = "";
+}
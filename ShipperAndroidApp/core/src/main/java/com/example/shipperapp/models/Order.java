@@ -0,0 +1,14 @@
+package com.example.shipperapp.models;
+
+import java.util.List;
+
+public class Order {
+    public int orderId;
+    public String orderCode = "";
+    public String status = ""; // OrderStatus number as the server sends it, see OrderStatus.parse
+    public DeliveryStaff assignedStaff;
+    // Delivery point, when the order has one (used for arrival check-in)
+    public Double deliveryLatitude;
+    public Double deliveryLongitude;
+    public List<LocationCheckpoint> checkpoints;
+}
@@ -0,0 +1,7 @@
+package com.example.shipperapp.models;
+
+public class OrderBootstrap {
+    public DeliveryStaff staff;        // null: the user is not a delivery staff member
+    public OrderChanges orderChanges;  // staff: first page of the full snapshot
+    public OrderPage myOrders;         // not staff: first page of "my orders"
+}
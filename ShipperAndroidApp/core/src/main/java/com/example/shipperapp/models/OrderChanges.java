@@ -0,0 +1,12 @@
+package com.example.shipperapp.models;
+
+import java.util.List;
+
+public class OrderChanges {
+    public String cursor;        // pass back as "since" on the next sync
+    public boolean fullSnapshot; // true: changed is the whole list
+    public List<Order> changed;
+    public List<Integer> removed; // ids deleted or unassigned since the cursor; empty on a snapshot
+    public int activeCount;      // orders currently assigned, to check the merged list against
+    public Integer nextAfterId;  // paged snapshot: pass back as "afterId"; null on the last page
+}
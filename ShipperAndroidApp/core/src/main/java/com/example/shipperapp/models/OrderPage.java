@@ -0,0 +1,9 @@
+package com.example.shipperapp.models;
+
+import java.util.List;
+
+public class OrderPage {
+    public List<Order> items;
+    public int totalCount;      // size of the whole list
+    public Integer nextAfterId; // pass back as "afterId" for the next page; null on the last page
+}
@@ -0,0 +1,72 @@
+package com.example.shipperapp.models;
+
+/**
+ * Order lifecycle, mirroring the server's OrderStatus enum (same names; sent and stored as
+ * its number). A shipper moves an order forward one step at a time:
+ * ChuaNhan → DaNhanChuaGiao → DaNhanDangGiao → DaGiao. Anything else is refused here,
+ * before a request is made.
+ */
+public enum OrderStatus {
+    ChuaNhan("Chưa nhận"),
+    DaNhanChuaGiao("Đã nhận - Chưa giao"),
+    DaNhanDangGiao("Đã nhận - Đang giao"),
+    DaGiao("Đã giao");
+
+    private static final OrderStatus[] VALUES = values();
+
+    /** Shown to the shipper. */
+    public final String label;
+
+    OrderStatus(String label) {
+        this.label = label;
+    }
+
+    /** The server's enum value, as in {@link UpdateOrderStatusDto#status}. */
+    public int code() {
+        return ordinal();
+    }
+
+    /** As stored in {@link Order#status}: the number, like the server sends it. */
+    public String stored() {
+        return String.valueOf(ordinal());
+    }
+
+    /** The only status this one can move to, or null once delivered. */
+    public OrderStatus next() {
+        return ordinal() + 1 < VALUES.length ? VALUES[ordinal() + 1] : null;
+    }
+
+    public boolean canMoveTo(OrderStatus target) {
+        return target != null && target == next();
+    }
+
+    public static OrderStatus fromCode(int code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+    }
+
+    /**
+     * {@link Order#status} as the server sends it ("2") or by name ("DaNhanDangGiao", from
+     * older local writes); null when empty or unknown.
+     */
+    public static OrderStatus parse(String value) {
+        if (value == null || value.isEmpty()) return null;
+        char first = value.charAt(0);
+        if (first >= '0' && first <= '9') {
+            try {
+                return fromCode(Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        for (OrderStatus s : VALUES) {
+            if (s.name().equals(value)) return s;
+        }
+        return null;
+    }
+
+    /** Label for a stored status; an unknown value is shown as is. */
+    public static String label(String value) {
+        OrderStatus s = parse(value);
+        return s != null ? s.label : value != null ? value : "";
+    }
+}
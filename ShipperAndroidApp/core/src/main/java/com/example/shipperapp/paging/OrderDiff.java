@@ -0,0 +1,99 @@
+package com.example.shipperapp.paging;
+
+import com.example.shipperapp.models.Order;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Row-by-row comparison of a reloaded page with what its rows showed before. Pages are
+ * positional (row i of the new page replaces row i of the old one), so this is a linear scan,
+ * not a move-detecting diff. {@link #compute} keeps the result to be dispatched later, so the
+ * comparison can run off the main thread.
+ */
+public final class OrderDiff {
+    public interface Callback {
+        /** Row {@code position} must be rebound; {@code statusOnly} when only its status changed. */
+        void onRowChanged(int position, boolean statusOnly);
+    }
+
+    private OrderDiff() {
+    }
+
+    public static boolean sameOrder(Order a, Order b) {
+        return a.orderId == b.orderId;
+    }
+
+    public static boolean sameContents(Order a, Order b) {
+        return same(a.orderCode, b.orderCode) && same(a.status, b.status);
+    }
+
+    /**
+     * Reports every row from {@code start} whose order changed between {@code previous}
+     * (null: placeholders) and {@code items}; rows at or past {@code rowCount} are ignored.
+     * Returns the number of rows reported.
+     */
+    public static int dispatch(int start, int rowCount, List<Order> previous, List<Order> items, Callback callback) {
+        int rows = Math.max(items.size(), previous != null ? previous.size() : 0);
+        int changed = 0;
+        for (int i = 0; i < rows && start + i < rowCount; i++) {
+            Order before = previous != null && i < previous.size() ? previous.get(i) : null;
+            Order after = i < items.size() ? items.get(i) : null;
+            if (before == null && after == null) continue;
+            if (before == null || after == null || !sameOrder(before, after)) {
+                callback.onRowChanged(start + i, false);
+                changed++;
+            } else if (!sameContents(before, after)) {
+                callback.onRowChanged(start + i, same(before.orderCode, after.orderCode));
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Like {@link #dispatch}, without a row limit, but keeps the changed rows instead of
+     * reporting them. Only reads the lists, so it can run on any thread while they are not modified.
+     */
+    public static Result compute(int start, List<Order> previous, List<Order> items) {
+        Result result = new Result();
+        dispatch(start, Integer.MAX_VALUE, previous, items, result);
+        return result;
+    }
+
+    /** Rows found changed by {@link #compute}, in order. */
+    public static final class Result implements Callback {
+        private int[] positions = new int[8];
+        private boolean[] statusOnly = new boolean[8];
+        private int size;
+
+        Result() {
+        }
+
+        @Override
+        public void onRowChanged(int position, boolean statusOnly) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                this.statusOnly = Arrays.copyOf(this.statusOnly, size * 2);
+            }
+            positions[size] = position;
+            this.statusOnly[size] = statusOnly;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /** Reports the rows to {@code callback}, skipping those at or past {@code rowCount}. */
+        public void dispatch(int rowCount, Callback callback) {
+            for (int i = 0; i < size && positions[i] < rowCount; i++) {
+                callback.onRowChanged(positions[i], statusOnly[i]);
+            }
+        }
+    }
+
+    private static boolean same(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
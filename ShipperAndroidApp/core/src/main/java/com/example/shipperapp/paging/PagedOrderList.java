@@ -0,0 +1,204 @@
+package com.example.shipperapp.paging;
+
+import com.example.shipperapp.models.Order;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Windowed, incrementally loaded view of a long order list.
+ *
+ * The list knows its full size but holds at most {@code maxPages} pages of orders; every
+ * other position is a placeholder ({@link #get} returns null). The screen reports what is
+ * visible through {@link #onVisibleRange}; pages within {@code prefetchDistance} rows of it
+ * are requested from the {@link PageSource}, and once the window is full the pages furthest
+ * from the viewport are dropped again. Memory and the time to the first row depend on the
+ * page size, not on the length of the list.
+ *
+ * Not thread-safe: use it, and deliver page results, on the main thread.
+ */
+public class PagedOrderList {
+    public interface PageSource {
+        /**
+         * Loads up to {@code limit} orders starting at {@code offset}. {@code afterId} is the
+         * id of the order just before {@code offset} when it is known (keyset paging), else -1.
+         */
+        void loadPage(int offset, int limit, int afterId, PageCallback callback);
+    }
+
+    public interface PageCallback {
+        void onPage(List<Order> items, int totalCount);
+
+        void onError();
+    }
+
+    /** Row changes, in adapter terms. */
+    public interface Listener {
+        void onCountChanged(int oldCount, int newCount);
+
+        /** Rows from {@code start} now show {@code items}; {@code previous} is what they showed (null: placeholders). */
+        void onPageLoaded(int start, List<Order> previous, List<Order> items);
+
+        /** Rows {@code start .. start + count - 1} are placeholders again; {@code dropped} is what they showed. */
+        void onPageDropped(int start, int count, List<Order> dropped);
+    }
+
+    private final int pageSize;
+    private final int maxPages;
+    private final int prefetchDistance;
+    private final PageSource source;
+    private final Listener listener;
+
+    private final Map<Integer, List<Order>> pages = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private final Set<Integer> stale = new HashSet<>();
+    // Last order id of each page seen so far: the keyset for the page after it
+    private final Map<Integer, Integer> lastIds = new HashMap<>();
+    private int count = 0;
+    private boolean countKnown = false;
+    private int firstVisible = 0;
+    private int lastVisible = 0;
+    // Bumped by invalidate() so results of requests made before it are ignored
+    private int generation = 0;
+
+    public PagedOrderList(int pageSize, int maxPages, int prefetchDistance, PageSource source, Listener listener) {
+        if (pageSize <= 0 || maxPages < 2) {
+            throw new IllegalArgumentException("pageSize must be > 0 and maxPages >= 2");
+        }
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.prefetchDistance = Math.max(0, prefetchDistance);
+        this.source = source;
+        this.listener = listener;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** False until the first page has arrived. */
+    public boolean isCountKnown() {
+        return countKnown;
+    }
+
+    /** The order at {@code position}, or null while its page is not loaded. */
+    public Order get(int position) {
+        if (position < 0 || position >= count) return null;
+        List<Order> page = pages.get(position / pageSize);
+        int index = position % pageSize;
+        return page != null && index < page.size() ? page.get(index) : null;
+    }
+
+    public int loadedPageCount() {
+        return pages.size();
+    }
+
+    /** Rows currently on screen; negative positions (nothing laid out yet) mean the top. */
+    public void onVisibleRange(int first, int last) {
+        firstVisible = Math.max(0, first);
+        lastVisible = Math.max(firstVisible, last);
+        requestAround();
+    }
+
+    /**
+     * The underlying data changed: reloads the pages around the viewport. Rows keep showing
+     * their current contents until the new page arrives, so the screen does not flash
+     * placeholders; pages further away are reloaded when they come back into range.
+     */
+    public void invalidate() {
+        generation++;
+        loading.clear();
+        lastIds.clear();
+        stale.addAll(pages.keySet());
+        requestAround();
+    }
+
+    private void requestAround() {
+        int fromPage = Math.max(0, firstVisible - prefetchDistance) / pageSize;
+        int toPage;
+        if (!countKnown) {
+            toPage = fromPage; // the first page tells how long the list is
+        } else if (count == 0) {
+            toPage = stale.isEmpty() ? -1 : 0; // an empty list can still grow: recheck page 0 after invalidate()
+            fromPage = 0;
+        } else {
+            toPage = Math.min(lastVisible + prefetchDistance, count - 1) / pageSize;
+            fromPage = Math.min(fromPage, toPage);
+        }
+        for (int p = fromPage; p <= toPage; p++) {
+            if ((!pages.containsKey(p) || stale.contains(p)) && !loading.contains(p)) {
+                load(p);
+            }
+        }
+    }
+
+    private void load(final int page) {
+        final int gen = generation;
+        loading.add(page);
+        int afterId = -1;
+        if (page > 0) {
+            Integer id = lastIds.get(page - 1);
+            if (id != null) afterId = id;
+        }
+        source.loadPage(page * pageSize, pageSize, afterId, new PageCallback() {
+            @Override
+            public void onPage(List<Order> items, int totalCount) {
+                if (gen != generation) return;
+                loading.remove(page);
+                stale.remove(page);
+                setCount(totalCount);
+                List<Order> previous = pages.put(page, items);
+                if (!items.isEmpty()) {
+                    lastIds.put(page, items.get(items.size() - 1).orderId);
+                }
+                listener.onPageLoaded(page * pageSize, previous, items);
+                trim();
+                requestAround();
+            }
+
+            @Override
+            public void onError() {
+                if (gen != generation) return;
+                loading.remove(page); // retried on the next scroll or invalidate()
+            }
+        });
+    }
+
+    private void setCount(int total) {
+        total = Math.max(0, total);
+        if (countKnown && total == count) return;
+        int old = count;
+        count = total;
+        countKnown = true;
+        if (old != total) {
+            listener.onCountChanged(old, total);
+        }
+    }
+
+    // Drops the pages furthest from the viewport until the window fits again
+    private void trim() {
+        int firstPage = firstVisible / pageSize;
+        int lastPage = lastVisible / pageSize;
+        while (pages.size() > maxPages) {
+            int victim = -1;
+            int victimDistance = -1;
+            for (int p : pages.keySet()) {
+                int distance = p < firstPage ? firstPage - p : (p > lastPage ? p - lastPage : 0);
+                if (distance > victimDistance) {
+                    victim = p;
+                    victimDistance = distance;
+                }
+            }
+            List<Order> dropped = pages.remove(victim);
+            stale.remove(victim);
+            int start = victim * pageSize;
+            int rows = Math.min(dropped.size(), count - start);
+            if (rows > 0) {
+                listener.onPageDropped(start, rows, dropped);
+            }
+        }
+    }
+}
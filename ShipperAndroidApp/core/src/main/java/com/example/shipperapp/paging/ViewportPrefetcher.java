@@ -0,0 +1,180 @@
+package com.example.shipperapp.paging;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fetches data for the orders on and near the screen ahead of the user opening them.
+ *
+ * The screen passes the ids it wants in priority order (visible rows first, then outward) to
+ * {@link #setWanted}. At most {@code maxConcurrent} fetches run at a time; a fetch whose order
+ * is no longer wanted is cancelled. New fetches only start while the {@link Gate} reports no
+ * user-initiated work, and are retried shortly after it clears. An order fetched recently is
+ * not fetched again until {@code refetchAfterMs} has passed.
+ *
+ * Not thread-safe: call it, and complete fetches, on the main thread.
+ */
+public class ViewportPrefetcher {
+    public interface Fetcher {
+        /** Starts fetching {@code orderId}; {@code done} must be run once it finishes or fails (not after cancel). */
+        Cancellable fetch(int orderId, Runnable done);
+    }
+
+    public interface Cancellable {
+        void cancel();
+    }
+
+    public interface Gate {
+        /** True while user-initiated requests are waiting; {@code ownInFlight} is how many fetches are ours. */
+        boolean shouldYield(int ownInFlight);
+    }
+
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    public interface Clock {
+        long nowMillis();
+    }
+
+    static final long YIELD_RETRY_MS = 300;
+    private static final int MAX_RECENT = 500;
+
+    private final Fetcher fetcher;
+    private final Gate gate;
+    private final Scheduler scheduler;
+    private final Clock clock;
+    private final long refetchAfterMs;
+
+    private final Map<Integer, Cancellable> inFlight = new HashMap<>();
+    private final LinkedHashMap<Integer, Long> recent = new LinkedHashMap<Integer, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+            return size() > MAX_RECENT;
+        }
+    };
+    private List<Integer> wanted = new ArrayList<>();
+    private int maxConcurrent = 2;
+    private boolean paused = false;
+    private boolean retryScheduled = false;
+
+    private long started;
+    private long completed;
+    private long cancelled;
+    private long yielded;
+
+    public ViewportPrefetcher(Fetcher fetcher, Gate gate, Scheduler scheduler, long refetchAfterMs, Clock clock) {
+        this.fetcher = fetcher;
+        this.gate = gate;
+        this.scheduler = scheduler;
+        this.refetchAfterMs = refetchAfterMs;
+        this.clock = clock;
+    }
+
+    /** 0 turns prefetching off (fetches in flight are left to finish). */
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = Math.max(0, maxConcurrent);
+        pump();
+    }
+
+    /** Orders worth fetching, most important first. Fetches for orders not in the list are cancelled. */
+    public void setWanted(List<Integer> orderIds) {
+        wanted = new ArrayList<>(orderIds);
+        Set<Integer> keep = new HashSet<>(orderIds);
+        Iterator<Map.Entry<Integer, Cancellable>> it = inFlight.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Cancellable> e = it.next();
+            if (!keep.contains(e.getKey())) {
+                it.remove();
+                e.getValue().cancel();
+                cancelled++;
+            }
+        }
+        pump();
+    }
+
+    /** Stops starting fetches (e.g. the list is in the background); those in flight finish. */
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+        pump();
+    }
+
+    /** Cancels everything, e.g. when the screen goes away. */
+    public void cancelAll() {
+        for (Cancellable c : inFlight.values()) {
+            c.cancel();
+            cancelled++;
+        }
+        inFlight.clear();
+        wanted = new ArrayList<>();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public String stats() {
+        return "started=" + started + ", completed=" + completed + ", cancelled=" + cancelled + ", yielded=" + yielded;
+    }
+
+    private void pump() {
+        if (paused || maxConcurrent == 0 || inFlight.size() >= maxConcurrent) {
+            return;
+        }
+        long now = clock.nowMillis();
+        for (Integer id : wanted) {
+            if (inFlight.size() >= maxConcurrent) {
+                return;
+            }
+            if (inFlight.containsKey(id)) continue;
+            Long fetchedAt = recent.get(id);
+            if (fetchedAt != null && now - fetchedAt < refetchAfterMs) continue;
+            if (gate.shouldYield(inFlight.size())) {
+                yielded++;
+                scheduleRetry();
+                return;
+            }
+            start(id);
+        }
+    }
+
+    private void start(final int orderId) {
+        started++;
+        final Cancellable[] handle = new Cancellable[1];
+        Runnable done = () -> {
+            // Ignore completions of fetches already cancelled or replaced
+            if (inFlight.get(orderId) != handle[0]) return;
+            inFlight.remove(orderId);
+            recent.put(orderId, clock.nowMillis());
+            completed++;
+            pump();
+        };
+        // A placeholder first, in case the fetcher completes synchronously
+        handle[0] = () -> { };
+        inFlight.put(orderId, handle[0]);
+        Cancellable c = fetcher.fetch(orderId, done);
+        if (inFlight.get(orderId) == handle[0]) {
+            handle[0] = c;
+            inFlight.put(orderId, c);
+        }
+    }
+
+    private void scheduleRetry() {
+        if (retryScheduled) return;
+        retryScheduled = true;
+        scheduler.schedule(() -> {
+            retryScheduled = false;
+            pump();
+        }, YIELD_RETRY_MS);
+    }
+}
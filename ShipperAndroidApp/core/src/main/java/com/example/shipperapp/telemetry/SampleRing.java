@@ -0,0 +1,81 @@
+package com.example.shipperapp.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size ring of (time, value) samples for one measurement. Arrays are allocated up front
+ * and the oldest samples are overwritten, so memory is bounded and recording never allocates:
+ * one atomic increment and two array stores.
+ *
+ * Any thread may record. A snapshot taken while another thread records may miss or repeat
+ * the sample being written; for latency histograms that is acceptable.
+ */
+public final class SampleRing {
+    private final String name;
+    private final String unit;
+    private final int budget;
+    private final long[] times;
+    private final int[] values;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * @param budget value above which a sample counts as slow in the summary (e.g. 16667 us for
+     *               a frame at 60 Hz), or 0 for none
+     * @param capacity samples kept, rounded up to a power of two
+     */
+    public SampleRing(String name, String unit, int budget, int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.name = name;
+        this.unit = unit;
+        this.budget = budget;
+        this.times = new long[size];
+        this.values = new int[size];
+        this.mask = size - 1;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String unit() {
+        return unit;
+    }
+
+    public int budget() {
+        return budget;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    /** Samples recorded since creation, including the ones already overwritten. */
+    public long total() {
+        return next.get();
+    }
+
+    /** Records {@code value} (clamped to 0..Integer.MAX_VALUE) taken at {@code timeMillis}. */
+    public void record(long timeMillis, long value) {
+        int slot = (int) (next.getAndIncrement() & mask);
+        times[slot] = timeMillis;
+        values[slot] = value < 0 ? 0 : value > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) value;
+    }
+
+    /**
+     * Copies the samples still held, oldest first, into arrays of at least {@link #capacity()}.
+     *
+     * @return the number of samples copied
+     */
+    public int snapshot(long[] timesOut, int[] valuesOut) {
+        long end = next.get();
+        int count = (int) Math.min(end, values.length);
+        long start = end - count;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((start + i) & mask);
+            timesOut[i] = times[slot];
+            valuesOut[i] = values[slot];
+        }
+        return count;
+    }
+}
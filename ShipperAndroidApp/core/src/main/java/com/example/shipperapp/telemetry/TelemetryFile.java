@@ -0,0 +1,131 @@
+package com.example.shipperapp.telemetry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Export format of {@link SampleRing}s: a header, then per ring its name, unit, total count
+ * and the samples it still holds, oldest first. Times are delta-encoded and every number is a
+ * varint, so a sample usually takes 2-4 bytes.
+ *
+ * <pre>
+ * "SHPT" version:u8 exportedAt:i64 rings:varint
+ *   { name:utf unit:utf budget:varint total:varint count:varint { timeDelta:zigzag-varint value:varint }* }*
+ * </pre>
+ */
+public final class TelemetryFile {
+    private static final int MAGIC = 0x53485054; // "SHPT"
+    private static final int VERSION = 1;
+
+    /** One ring as read back from a file; see {@link SampleRing} for the fields. */
+    public static final class Channel {
+        public final String name;
+        public final String unit;
+        public final int budget;
+        /** Samples recorded on the device, including the ones overwritten before the export. */
+        public final long total;
+        public final long[] times;
+        public final int[] values;
+
+        Channel(String name, String unit, int budget, long total, long[] times, int[] values) {
+            this.name = name;
+            this.unit = unit;
+            this.budget = budget;
+            this.total = total;
+            this.times = times;
+            this.values = values;
+        }
+    }
+
+    private TelemetryFile() {
+    }
+
+    public static void write(OutputStream out, long exportedAtMillis, List<SampleRing> rings) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(exportedAtMillis);
+        writeVarint(data, rings.size());
+        long[] times = new long[0];
+        int[] values = new int[0];
+        for (SampleRing ring : rings) {
+            if (times.length < ring.capacity()) {
+                times = new long[ring.capacity()];
+                values = new int[ring.capacity()];
+            }
+            int count = ring.snapshot(times, values);
+            data.writeUTF(ring.name());
+            data.writeUTF(ring.unit());
+            writeVarint(data, ring.budget());
+            writeVarint(data, ring.total());
+            writeVarint(data, count);
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                long delta = times[i] - previous;
+                writeVarint(data, (delta << 1) ^ (delta >> 63));
+                writeVarint(data, values[i]);
+                previous = times[i];
+            }
+        }
+        data.flush();
+    }
+
+    public static List<Channel> read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a telemetry export");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported telemetry export version " + version);
+        }
+        data.readLong();
+        int ringCount = (int) readVarint(data);
+        List<Channel> channels = new ArrayList<>(ringCount);
+        for (int r = 0; r < ringCount; r++) {
+            String name = data.readUTF();
+            String unit = data.readUTF();
+            int budget = (int) readVarint(data);
+            long total = readVarint(data);
+            int count = (int) readVarint(data);
+            long[] times = new long[count];
+            int[] values = new int[count];
+            long time = 0;
+            for (int i = 0; i < count; i++) {
+                long zigzag = readVarint(data);
+                time += (zigzag >>> 1) ^ -(zigzag & 1);
+                times[i] = time;
+                values[i] = (int) readVarint(data);
+            }
+            channels.add(new Channel(name, unit, budget, total, times, values));
+        }
+        return channels;
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
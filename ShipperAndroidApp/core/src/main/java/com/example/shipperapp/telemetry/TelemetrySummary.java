@@ -0,0 +1,97 @@
+package com.example.shipperapp.telemetry;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Summarises telemetry exports pulled from devices: per measurement, the sample count and
+ * the p50/p90/p99/max, and how many samples went over the budget. Samples of several files
+ * (devices, or days) are pooled by name.
+ *
+ * <pre>./gradlew :core:telemetrySummary -Pfiles=perf-1.bin,perf-2.bin</pre>
+ */
+public final class TelemetrySummary {
+    private TelemetrySummary() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: TelemetrySummary <export.bin>...");
+            System.exit(2);
+        }
+        List<TelemetryFile.Channel> channels = new ArrayList<>();
+        for (String path : args) {
+            try (InputStream in = new FileInputStream(path)) {
+                channels.addAll(TelemetryFile.read(in));
+            }
+        }
+        System.out.print(summarize(channels));
+    }
+
+    public static String summarize(List<TelemetryFile.Channel> channels) {
+        Map<String, List<TelemetryFile.Channel>> byName = new LinkedHashMap<>();
+        for (TelemetryFile.Channel c : channels) {
+            List<TelemetryFile.Channel> list = byName.get(c.name);
+            if (list == null) {
+                list = new ArrayList<>();
+                byName.put(c.name, list);
+            }
+            list.add(c);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%-24s %-4s %9s %9s %9s %9s %9s %9s  %s%n",
+                "measurement", "unit", "samples", "recorded", "p50", "p90", "p99", "max", "over budget"));
+        for (List<TelemetryFile.Channel> list : byName.values()) {
+            TelemetryFile.Channel first = list.get(0);
+            int count = 0;
+            long recorded = 0;
+            for (TelemetryFile.Channel c : list) {
+                count += c.values.length;
+                recorded += c.total;
+            }
+            int[] values = new int[count];
+            int n = 0;
+            for (TelemetryFile.Channel c : list) {
+                System.arraycopy(c.values, 0, values, n, c.values.length);
+                n += c.values.length;
+            }
+            Arrays.sort(values);
+            String over = "-";
+            if (first.budget > 0 && count > 0) {
+                int above = count - upperBound(values, first.budget);
+                over = String.format(Locale.US, "%d (%.1f%%) > %d", above, 100.0 * above / count, first.budget);
+            }
+            sb.append(String.format(Locale.US, "%-24s %-4s %9d %9d %9s %9s %9s %9s  %s%n",
+                    first.name, first.unit, count, recorded,
+                    percentile(values, 50), percentile(values, 90), percentile(values, 99),
+                    count > 0 ? String.valueOf(values[count - 1]) : "-", over));
+        }
+        return sb.toString();
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static String percentile(int[] sorted, int p) {
+        if (sorted.length == 0) return "-";
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return String.valueOf(sorted[Math.max(0, rank - 1)]);
+    }
+
+    // Index of the first value greater than key
+    private static int upperBound(int[] sorted, int key) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.shipperapp.tracking;
+
+/**
+ * Decides which location fixes are worth uploading and how often to ask for the next one.
+ *
+ * Fixes that are too inaccurate, repeated, or still inside the radius of the last accepted
+ * fix are suppressed. The requested interval follows a smoothed speed estimate: long while
+ * the shipper is parked, short at road speed, so idle periods cost few wakeups and driving
+ * still produces a dense trace. A heartbeat fix is let through now and then while parked
+ * so the dispatcher can see the shipper is still online.
+ */
+public final class AdaptiveSampler {
+    public static final long INTERVAL_STATIONARY_MS = 5 * 60_000;
+    public static final long INTERVAL_SLOW_MS = 60_000;      // walking, stop-and-go traffic
+    public static final long INTERVAL_MODERATE_MS = 30_000;  // city riding
+    public static final long INTERVAL_FAST_MS = 15_000;      // > ~30 km/h
+
+    private static final float SLOW_MPS = 1.0f;
+    private static final float MODERATE_MPS = 4.0f;
+    private static final float FAST_MPS = 8.5f;
+    private static final float SPEED_SMOOTHING = 0.5f;
+    private static final int STATIONARY_FIXES_BEFORE_IDLE = 2;
+
+    private final float maxAccuracyMeters;
+    private final float stationaryRadiusMeters;
+    private final long heartbeatMs;
+
+    private boolean hasLast;
+    private double lastLat;
+    private double lastLng;
+    private long lastTimeMs;
+    private float speedMps;
+    private int stationaryStreak;
+    private long intervalMs = INTERVAL_SLOW_MS;
+
+    private long seen;
+    private long accepted;
+    private long droppedInaccurate;
+    private long droppedStationary;
+    private long droppedDuplicate;
+
+    public AdaptiveSampler() {
+        this(50f, 25f, 15 * 60_000);
+    }
+
+    public AdaptiveSampler(float maxAccuracyMeters, float stationaryRadiusMeters, long heartbeatMs) {
+        this.maxAccuracyMeters = maxAccuracyMeters;
+        this.stationaryRadiusMeters = stationaryRadiusMeters;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    /**
+     * Feeds one fix.
+     *
+     * @param accuracyMeters horizontal accuracy, or a negative value when unknown
+     * @param reportedSpeedMps speed from the GPS chip, or a negative value when unknown
+     * @return true if the fix should be recorded/uploaded
+     */
+    public boolean offer(double lat, double lng, long timeMs, float accuracyMeters, float reportedSpeedMps) {
+        seen++;
+        if (accuracyMeters > maxAccuracyMeters) {
+            droppedInaccurate++;
+            return false;
+        }
+        if (!hasLast) {
+            remember(lat, lng, timeMs);
+            accepted++;
+            return true;
+        }
+        if (timeMs <= lastTimeMs) {
+            droppedDuplicate++;
+            return false;
+        }
+
+        double distance = Geo.distanceMeters(lastLat, lastLng, lat, lng);
+        float observed = reportedSpeedMps >= 0
+                ? reportedSpeedMps
+                : (float) (distance / ((timeMs - lastTimeMs) / 1000.0));
+        speedMps = SPEED_SMOOTHING * observed + (1 - SPEED_SMOOTHING) * speedMps;
+
+        float radius = Math.max(stationaryRadiusMeters, accuracyMeters > 0 ? accuracyMeters : 0);
+        if (distance < radius && timeMs - lastTimeMs < heartbeatMs) {
+            stationaryStreak++;
+            updateInterval();
+            droppedStationary++;
+            return false;
+        }
+
+        stationaryStreak = distance < radius ? stationaryStreak + 1 : 0;
+        remember(lat, lng, timeMs);
+        updateInterval();
+        accepted++;
+        return true;
+    }
+
+    /** Interval to request the next fix at, given the current movement. */
+    public long intervalMs() {
+        return intervalMs;
+    }
+
+    /** Minimum displacement worth a callback; lets the provider skip fixes on its own. */
+    public float minDistanceMeters() {
+        return intervalMs >= INTERVAL_STATIONARY_MS ? stationaryRadiusMeters * 2 : stationaryRadiusMeters;
+    }
+
+    public boolean isStationary() {
+        return intervalMs == INTERVAL_STATIONARY_MS;
+    }
+
+    public long seen() { return seen; }
+    public long accepted() { return accepted; }
+    public long droppedInaccurate() { return droppedInaccurate; }
+    public long droppedStationary() { return droppedStationary; }
+    public long droppedDuplicate() { return droppedDuplicate; }
+
+    private void remember(double lat, double lng, long timeMs) {
+        hasLast = true;
+        lastLat = lat;
+        lastLng = lng;
+        lastTimeMs = timeMs;
+    }
+
+    private void updateInterval() {
+        if (stationaryStreak >= STATIONARY_FIXES_BEFORE_IDLE && speedMps < SLOW_MPS) {
+            intervalMs = INTERVAL_STATIONARY_MS;
+        } else if (speedMps >= FAST_MPS) {
+            intervalMs = INTERVAL_FAST_MS;
+        } else if (speedMps >= MODERATE_MPS) {
+            intervalMs = INTERVAL_MODERATE_MS;
+        } else {
+            intervalMs = INTERVAL_SLOW_MS;
+        }
+    }
+}
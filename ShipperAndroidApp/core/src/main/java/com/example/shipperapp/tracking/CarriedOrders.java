@@ -0,0 +1,144 @@
+package com.example.shipperapp.tracking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The orders a shipper is carrying, as numbered sets, so one spooled fix can stand for all of
+ * them: a {@link CheckpointSpool#FLAG_CARRIED} record stores the id of the set that was
+ * current when it was taken instead of an order id. A new set (and id) is made only when the
+ * orders change, i.e. on pickup or delivery, so a shift has a handful of them.
+ *
+ * Sets are kept in a small file next to the spool, rewritten whole on every change, so fixes
+ * recovered after process death still resolve to their orders. Sets no pending fix refers to
+ * any more are dropped by {@link #retainFrom}. Thread-safe.
+ */
+public final class CarriedOrders {
+    private static final int MAGIC = 0x43415252; // "CARR"
+
+    private final File file;
+    // Set id -> sorted order ids, oldest first
+    private final Map<Integer, int[]> sets = new LinkedHashMap<>();
+    private int nextId;
+    private int current = -1;
+
+    private CarriedOrders(File file) {
+        this.file = file;
+    }
+
+    /** Reads the sets saved at {@code file}; starts empty when there are none or they are unreadable. */
+    public static CarriedOrders open(File file) {
+        CarriedOrders carried = new CarriedOrders(file);
+        // Without the file, ids start past any a lost one can have handed out, so fixes still
+        // spooled against it never resolve to a new set
+        carried.nextId = (int) (System.currentTimeMillis() / 1000);
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == MAGIC) {
+                    carried.nextId = in.readInt();
+                    carried.current = in.readInt();
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        int id = in.readInt();
+                        int[] orderIds = new int[in.readInt()];
+                        for (int j = 0; j < orderIds.length; j++) {
+                            orderIds[j] = in.readInt();
+                        }
+                        carried.sets.put(id, orderIds);
+                    }
+                }
+            } catch (IOException e) {
+                // A torn write loses the sets, not the spool: those fixes are skipped on upload
+                carried.sets.clear();
+                carried.current = -1;
+                carried.nextId = (int) (System.currentTimeMillis() / 1000);
+            }
+        }
+        return carried;
+    }
+
+    /**
+     * Makes {@code orderIds} the current set. Returns false when it already is (in any order),
+     * so nothing needs saving.
+     */
+    public synchronized boolean update(int[] orderIds) {
+        int[] sorted = orderIds.clone();
+        Arrays.sort(sorted);
+        if (sorted.length == 0) {
+            if (current < 0) return false;
+            current = -1;
+            return true;
+        }
+        if (current >= 0 && Arrays.equals(sets.get(current), sorted)) return false;
+        current = nextId++;
+        sets.put(current, sorted);
+        return true;
+    }
+
+    /** Id of the current set, or -1 when no order is being carried. */
+    public synchronized int current() {
+        return current;
+    }
+
+    /** Lowest set id a fix recorded from now on can refer to. */
+    public synchronized int lowestLive() {
+        return current >= 0 ? current : nextId;
+    }
+
+    /** Order ids of set {@code setId}, or null if it is unknown (dropped or lost). */
+    public synchronized int[] get(int setId) {
+        return sets.get(setId);
+    }
+
+    /** Number of orders in the current set. */
+    public synchronized int currentSize() {
+        return current >= 0 ? sets.get(current).length : 0;
+    }
+
+    /**
+     * Drops the sets older than {@code oldestInUse}, the lowest id pending fixes still refer
+     * to (see {@link #lowestLive}), keeping the current one. Returns whether anything was dropped.
+     */
+    public synchronized boolean retainFrom(int oldestInUse) {
+        boolean dropped = false;
+        for (Iterator<Integer> it = sets.keySet().iterator(); it.hasNext(); ) {
+            int id = it.next();
+            if (id < oldestInUse && id != current) {
+                it.remove();
+                dropped = true;
+            }
+        }
+        return dropped;
+    }
+
+    /** Writes the sets to the file (via a temporary file and a rename); a few hundred bytes. */
+    public synchronized void save() throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(nextId);
+            out.writeInt(current);
+            out.writeInt(sets.size());
+            for (Map.Entry<Integer, int[]> e : sets.entrySet()) {
+                out.writeInt(e.getKey());
+                out.writeInt(e.getValue().length);
+                for (int orderId : e.getValue()) {
+                    out.writeInt(orderId);
+                }
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+}
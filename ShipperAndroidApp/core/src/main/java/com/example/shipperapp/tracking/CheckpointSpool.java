@@ -0,0 +1,251 @@
+package com.example.shipperapp.tracking;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only, crash-safe spool of location fixes waiting to be uploaded.
+ *
+ * The spool is a memory-mapped ring of fixed-size records. Every record carries its own
+ * sequence number and ends with a commit word derived from it, written last, so a record
+ * torn by process death is simply ignored on reopen. The header only stores the sequence
+ * of the first record not yet acknowledged by the server; everything from there up to the
+ * first invalid slot is recovered on {@link #open}. Appends write primitives straight into
+ * the mapping and do not allocate (the note bytes are cached while the note is unchanged).
+ *
+ * When the ring is full the oldest pending fix is overwritten and counted in
+ * {@link #droppedCount()}, so disk use stays bounded through long offline stretches.
+ */
+public final class CheckpointSpool implements Closeable {
+    public static final int FLAG_STATUS_CHANGE = 1;  // check-in tied to a status transition, never simplified away
+    public static final int FLAG_MANUAL = 2;         // typed in / tapped by the shipper
+    public static final int FLAG_ARRIVAL = 4;        // entered the delivery point's geofence
+    public static final int FLAG_CARRIED = 8;        // orderId is a CarriedOrders set id: the fix is for every order in it
+
+    private static final int MAGIC = 0x53504f4c; // "SPOL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 128;
+    static final int NOTE_MAX_BYTES = 76;
+
+    // header offsets
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_CAPACITY = 8;
+    private static final int H_ACKED_SEQ = 16;
+
+    // record offsets
+    private static final int R_SEQ = 0;
+    private static final int R_ORDER_ID = 8;
+    private static final int R_FLAGS = 12;
+    private static final int R_LAT = 16;
+    private static final int R_LNG = 24;
+    private static final int R_TIME = 32;
+    private static final int R_ACCURACY = 40;
+    private static final int R_NOTE_LEN = 44;
+    private static final int R_NOTE = 46;
+    private static final int R_COMMIT = RECORD_SIZE - 4;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** A fix read back from the spool for upload. */
+    public static final class Record {
+        public long seq;
+        public int orderId;
+        public int flags;
+        public double latitude;
+        public double longitude;
+        public long timeMillis;
+        public float accuracy;
+        public String note;
+    }
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer map;
+    private final int capacity;
+    private long ackedSeq;   // first sequence not yet acknowledged
+    private long nextSeq;    // sequence the next append gets
+    private long dropped;
+
+    private String lastNote;
+    private byte[] lastNoteBytes = new byte[0];
+
+    private CheckpointSpool(RandomAccessFile file, MappedByteBuffer map, int capacity) {
+        this.file = file;
+        this.map = map;
+        this.capacity = capacity;
+    }
+
+    /** Opens (or creates) the spool file and recovers every committed, unacknowledged record. */
+    public static CheckpointSpool open(File path, int capacity) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(path, "rw");
+        try {
+            long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+            boolean fresh = raf.length() < HEADER_SIZE;
+            if (!fresh) {
+                raf.seek(H_MAGIC);
+                int magic = raf.readInt();
+                raf.seek(H_CAPACITY);
+                int storedCapacity = raf.readInt();
+                // Big-endian reads match the mapping's default byte order
+                fresh = magic != MAGIC || storedCapacity != capacity;
+            }
+            if (fresh) {
+                raf.setLength(0);
+            }
+            raf.setLength(size);
+            MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            CheckpointSpool spool = new CheckpointSpool(raf, map, capacity);
+            if (fresh) {
+                map.putInt(H_MAGIC, MAGIC);
+                map.putInt(H_VERSION, VERSION);
+                map.putInt(H_CAPACITY, capacity);
+                map.putLong(H_ACKED_SEQ, 0);
+            }
+            spool.recover();
+            return spool;
+        } catch (IOException | RuntimeException ex) {
+            raf.close();
+            throw ex;
+        }
+    }
+
+    private void recover() {
+        ackedSeq = map.getLong(H_ACKED_SEQ);
+        long seq = ackedSeq;
+        while (seq - ackedSeq < capacity && isCommitted(seq)) {
+            seq++;
+        }
+        nextSeq = seq;
+    }
+
+    private boolean isCommitted(long seq) {
+        int base = offsetOf(seq);
+        return map.getLong(base + R_SEQ) == seq && map.getInt(base + R_COMMIT) == commitWord(seq);
+    }
+
+    /** Appends one fix and returns its sequence number, which doubles as the upload de-duplication key. */
+    public synchronized long append(int orderId, double latitude, double longitude, long timeMillis,
+                                    float accuracy, int flags, String note) {
+        if (nextSeq - ackedSeq >= capacity) {
+            // Ring full: give up the oldest pending fix rather than growing without bound
+            ackedSeq++;
+            dropped++;
+            map.putLong(H_ACKED_SEQ, ackedSeq);
+        }
+        long seq = nextSeq;
+        int base = offsetOf(seq);
+        map.putLong(base + R_SEQ, seq);
+        map.putInt(base + R_ORDER_ID, orderId);
+        map.putInt(base + R_FLAGS, flags);
+        map.putDouble(base + R_LAT, latitude);
+        map.putDouble(base + R_LNG, longitude);
+        map.putLong(base + R_TIME, timeMillis);
+        map.putFloat(base + R_ACCURACY, accuracy);
+        byte[] noteBytes = noteBytes(note);
+        map.putShort(base + R_NOTE_LEN, (short) noteBytes.length);
+        for (int i = 0; i < noteBytes.length; i++) {
+            map.put(base + R_NOTE + i, noteBytes[i]);
+        }
+        // Commit word goes last: a record torn by a crash never validates on reopen
+        map.putInt(base + R_COMMIT, commitWord(seq));
+        nextSeq = seq + 1;
+        return seq;
+    }
+
+    /** Reads up to {@code max} pending fixes, oldest first, without removing them. */
+    public synchronized List<Record> peek(int max) {
+        int n = (int) Math.min(max, nextSeq - ackedSeq);
+        List<Record> out = new ArrayList<>(n);
+        for (long seq = ackedSeq; seq < ackedSeq + n; seq++) {
+            out.add(read(seq));
+        }
+        return out;
+    }
+
+    /** Marks every fix up to and including {@code seq} as uploaded. */
+    public synchronized void ack(long seq) {
+        long next = Math.min(seq + 1, nextSeq);
+        if (next > ackedSeq) {
+            ackedSeq = next;
+            map.putLong(H_ACKED_SEQ, ackedSeq);
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return (int) (nextSeq - ackedSeq);
+    }
+
+    /** Capture time of the oldest pending fix, or -1 when the spool is empty. */
+    public synchronized long oldestPendingTimeMillis() {
+        return nextSeq == ackedSeq ? -1 : map.getLong(offsetOf(ackedSeq) + R_TIME);
+    }
+
+    /** Fixes overwritten because the ring filled up before they could be uploaded. */
+    public synchronized long droppedCount() {
+        return dropped;
+    }
+
+    /** Flushes the mapping to storage; process death is already safe, this also covers power loss. */
+    public synchronized void sync() {
+        map.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        file.close();
+    }
+
+    private Record read(long seq) {
+        int base = offsetOf(seq);
+        Record r = new Record();
+        r.seq = seq;
+        r.orderId = map.getInt(base + R_ORDER_ID);
+        r.flags = map.getInt(base + R_FLAGS);
+        r.latitude = map.getDouble(base + R_LAT);
+        r.longitude = map.getDouble(base + R_LNG);
+        r.timeMillis = map.getLong(base + R_TIME);
+        r.accuracy = map.getFloat(base + R_ACCURACY);
+        int len = map.getShort(base + R_NOTE_LEN);
+        byte[] note = new byte[len];
+        for (int i = 0; i < len; i++) {
+            note[i] = map.get(base + R_NOTE + i);
+        }
+        r.note = new String(note, UTF8);
+        return r;
+    }
+
+    private byte[] noteBytes(String note) {
+        if (note == null) note = "";
+        if (!note.equals(lastNote)) {
+            byte[] bytes = note.getBytes(UTF8);
+            if (bytes.length > NOTE_MAX_BYTES) {
+                // Cut on a character boundary so the stored prefix is still valid UTF-8
+                int end = NOTE_MAX_BYTES;
+                while (end > 0 && (bytes[end] & 0xC0) == 0x80) end--;
+                byte[] cut = new byte[end];
+                System.arraycopy(bytes, 0, cut, 0, end);
+                bytes = cut;
+            }
+            lastNote = note;
+            lastNoteBytes = bytes;
+        }
+        return lastNoteBytes;
+    }
+
+    private int offsetOf(long seq) {
+        return HEADER_SIZE + (int) (seq % capacity) * RECORD_SIZE;
+    }
+
+    private static int commitWord(long seq) {
+        return (int) (seq ^ (seq >>> 32)) ^ MAGIC;
+    }
+}
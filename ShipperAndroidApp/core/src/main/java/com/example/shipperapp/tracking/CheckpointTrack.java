@@ -0,0 +1,316 @@
+package com.example.shipperapp.tracking;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * The checkpoint history of one order, held as primitive columns for the route viewer.
+ *
+ * Pages from {@code api/tracking/order/{id}} are streamed straight into parallel
+ * {@code double[]} latitude/longitude and {@code long[]} time arrays ({@code checkInTime} is
+ * parsed once, on the way in), so a few thousand points cost ~28 bytes each instead of a
+ * {@code LocationCheckpoint} with its strings.
+ *
+ * After loading, {@link #finish} sorts by time and ranks every point with Douglas–Peucker:
+ * a point's significance is the deviation (metres) at which it would be simplified away.
+ * {@link #decimate} then returns, for any viewport and tolerance, only the points that
+ * matter at that zoom, without rebuilding anything per frame.
+ *
+ * Not thread-safe: fill it on one thread, then hand it over (read-only) once finished.
+ */
+public final class CheckpointTrack {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private double[] lats = new double[INITIAL_CAPACITY];
+    private double[] lngs = new double[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private float[] significance;
+    private int size;
+    private int lastCheckpointId = -1;
+
+    private double minLat = Double.POSITIVE_INFINITY;
+    private double maxLat = Double.NEGATIVE_INFINITY;
+    private double minLng = Double.POSITIVE_INFINITY;
+    private double maxLng = Double.NEGATIVE_INFINITY;
+
+    public void append(double lat, double lng, long timeMillis) {
+        if (significance != null) throw new IllegalStateException("track already finished");
+        if (size == lats.length) {
+            int capacity = size * 2;
+            lats = Arrays.copyOf(lats, capacity);
+            lngs = Arrays.copyOf(lngs, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        lats[size] = lat;
+        lngs[size] = lng;
+        times[size] = timeMillis;
+        size++;
+        if (lat < minLat) minLat = lat;
+        if (lat > maxLat) maxLat = lat;
+        if (lng < minLng) minLng = lng;
+        if (lng > maxLng) maxLng = lng;
+    }
+
+    /**
+     * Reads one page (a JSON array of checkpoints) into the columns. Only the position, the
+     * time and the id are kept; times without an offset are read in {@code localZone}.
+     * Returns the number of checkpoints read.
+     */
+    public int readPage(JsonReader in, TimeZone localZone) throws IOException {
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            double lat = Double.NaN;
+            double lng = Double.NaN;
+            long time = 0;
+            int id = -1;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "latitude": lat = in.nextDouble(); break;
+                    case "longitude": lng = in.nextDouble(); break;
+                    case "checkInTime": time = parseIsoMillis(in.nextString(), localZone); break;
+                    case "checkpointId": id = in.nextInt(); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            count++;
+            if (id > lastCheckpointId) lastCheckpointId = id;
+            // Unparsed positions would be drawn at (0, 0)
+            if (!Double.isNaN(lat) && !Double.isNaN(lng)) {
+                append(lat, lng, time);
+            }
+        }
+        in.endArray();
+        return count;
+    }
+
+    /** Highest checkpoint id read so far, the cursor for the next page; -1 before the first. */
+    public int lastCheckpointId() {
+        return lastCheckpointId;
+    }
+
+    /** Orders the points by time and ranks them for {@link #decimate}; no appends after this. */
+    public void finish() {
+        if (significance != null) return;
+        if (lats.length != size) {
+            lats = Arrays.copyOf(lats, size);
+            lngs = Arrays.copyOf(lngs, size);
+            times = Arrays.copyOf(times, size);
+        }
+        sortByTime();
+        significance = rank();
+    }
+
+    public int size() { return size; }
+    public double latitude(int i) { return lats[i]; }
+    public double longitude(int i) { return lngs[i]; }
+    public long timeMillis(int i) { return times[i]; }
+    public double minLatitude() { return minLat; }
+    public double maxLatitude() { return maxLat; }
+    public double minLongitude() { return minLng; }
+    public double maxLongitude() { return maxLng; }
+
+    /** Length of the whole route in metres. */
+    public double lengthMeters() {
+        double total = 0;
+        for (int i = 1; i < size; i++) {
+            total += Geo.distanceMeters(lats[i - 1], lngs[i - 1], lats[i], lngs[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Writes the points to draw for the viewport into {@code out}: indices of runs of
+     * connected points, runs separated by -1. Only points whose significance is at least
+     * {@code toleranceMeters} are used (the route drawn is within that distance of the full
+     * one), and only segments whose bounds touch the viewport. {@code out} must hold
+     * {@code 2 * size()} entries. Returns the number of entries written.
+     */
+    public int decimate(double south, double west, double north, double east, double toleranceMeters, int[] out) {
+        if (significance == null) throw new IllegalStateException("finish() the track first");
+        int count = 0;
+        int prev = -1;
+        int lastOut = -1;
+        for (int i = 0; i < size; i++) {
+            if (significance[i] < toleranceMeters) continue;
+            if (prev < 0) {
+                if (size == 1 && inside(i, south, west, north, east)) {
+                    out[count++] = i;
+                }
+            } else if (segmentTouches(prev, i, south, west, north, east)) {
+                if (lastOut != prev) {
+                    if (count > 0) out[count++] = -1;
+                    out[count++] = prev;
+                }
+                out[count++] = i;
+                lastOut = i;
+            }
+            prev = i;
+        }
+        return count;
+    }
+
+    private boolean inside(int i, double south, double west, double north, double east) {
+        return lats[i] >= south && lats[i] <= north && lngs[i] >= west && lngs[i] <= east;
+    }
+
+    private boolean segmentTouches(int a, int b, double south, double west, double north, double east) {
+        return Math.max(lats[a], lats[b]) >= south && Math.min(lats[a], lats[b]) <= north
+                && Math.max(lngs[a], lngs[b]) >= west && Math.min(lngs[a], lngs[b]) <= east;
+    }
+
+    // Pages come in id order, which is time order except for late uploads of spooled fixes
+    private void sortByTime() {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = times[i - 1] <= times[i];
+        }
+        if (sorted) return;
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        mergeSort(order, new int[size], 0, size);
+        double[] sortedLats = new double[size];
+        double[] sortedLngs = new double[size];
+        long[] sortedTimes = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedLats[i] = lats[order[i]];
+            sortedLngs[i] = lngs[order[i]];
+            sortedTimes[i] = times[order[i]];
+        }
+        lats = sortedLats;
+        lngs = sortedLngs;
+        times = sortedTimes;
+    }
+
+    // Stable, so points with equal times keep their upload order
+    private void mergeSort(int[] a, int[] tmp, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid);
+        mergeSort(a, tmp, mid, to);
+        if (times[a[mid - 1]] <= times[a[mid]]) return;
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            a[k++] = times[tmp[j]] < times[tmp[i]] ? tmp[j++] : tmp[i++];
+        }
+        while (i < mid) a[k++] = tmp[i++];
+        while (j < to) a[k++] = tmp[j++];
+    }
+
+    // Douglas–Peucker over the whole track, remembering at which deviation each point was
+    // split off; a child never ranks above its parent, so any threshold gives a valid DP result
+    private float[] rank() {
+        float[] sig = new float[size];
+        if (size == 0) return sig;
+        sig[0] = Float.POSITIVE_INFINITY;
+        sig[size - 1] = Float.POSITIVE_INFINITY;
+        // Local equirectangular projection around the track's centre
+        double refLat = (minLat + maxLat) / 2;
+        double ky = Math.toRadians(1) * Geo.EARTH_RADIUS_M;
+        double kx = ky * Math.cos(Math.toRadians(refLat));
+        int[] stack = new int[2 * size + 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        while (top > 0) {
+            int b = stack[--top];
+            int a = stack[--top];
+            if (b - a < 2) continue;
+            double ax = lngs[a] * kx, ay = lats[a] * ky;
+            double ex = lngs[b] * kx - ax, ey = lats[b] * ky - ay;
+            double len2 = ex * ex + ey * ey;
+            double best = -1;
+            int split = a + 1;
+            for (int i = a + 1; i < b; i++) {
+                double px = lngs[i] * kx - ax, py = lats[i] * ky - ay;
+                double t = len2 == 0 ? 0 : (px * ex + py * ey) / len2;
+                if (t < 0) t = 0;
+                else if (t > 1) t = 1;
+                double dx = px - t * ex, dy = py - t * ey;
+                double d2 = dx * dx + dy * dy;
+                if (d2 > best) {
+                    best = d2;
+                    split = i;
+                }
+            }
+            sig[split] = (float) Math.min(Math.sqrt(best), Math.min(sig[a], sig[b]));
+            stack[top++] = a;
+            stack[top++] = split;
+            stack[top++] = split;
+            stack[top++] = b;
+        }
+        return sig;
+    }
+
+    /**
+     * Epoch millis of an ISO-8601 date-time as the API writes it ({@code 2025-10-18T09:00:00},
+     * optional fraction of any length, optional {@code Z} or {@code ±hh:mm}). Without an
+     * offset the time is read in {@code localZone}. Returns 0 if {@code s} is not such a time.
+     */
+    public static long parseIsoMillis(String s, TimeZone localZone) {
+        if (s == null || s.length() < 19) return 0;
+        int year = digits(s, 0, 4), month = digits(s, 5, 2), day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2), minute = digits(s, 14, 2), second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || hour < 0 || minute < 0 || second < 0
+                || s.charAt(4) != '-' || s.charAt(7) != '-' || (s.charAt(10) != 'T' && s.charAt(10) != ' ')
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return 0;
+        }
+        int pos = 19;
+        int millis = 0;
+        if (pos < s.length() && s.charAt(pos) == '.') {
+            pos++;
+            int scale = 100;
+            while (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+                millis += (s.charAt(pos) - '0') * scale;
+                scale /= 10;
+                pos++;
+            }
+        }
+        long local = ((daysFromCivil(year, month, day) * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+        if (pos == s.length()) {
+            return local - localZone.getOffset(local - localZone.getRawOffset());
+        }
+        char sign = s.charAt(pos);
+        if (sign == 'Z') return local;
+        if ((sign != '+' && sign != '-') || s.length() < pos + 5) return 0;
+        int offH = digits(s, pos + 1, 2);
+        int offM = digits(s, s.charAt(pos + 3) == ':' ? pos + 4 : pos + 3, 2);
+        if (offH < 0 || offM < 0) return 0;
+        long offset = (offH * 60L + offM) * 60_000L;
+        return sign == '+' ? local - offset : local + offset;
+    }
+
+    private static int digits(String s, int from, int count) {
+        if (from + count > s.length()) return -1;
+        int v = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar
+    private static long daysFromCivil(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.shipperapp.tracking;
+
+/**
+ * Small spherical-earth helpers shared by the tracking code.
+ */
+public final class Geo {
+    public static final double EARTH_RADIUS_M = 6_371_000.0;
+
+    private Geo() { }
+
+    /** Great-circle (haversine) distance in metres. */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.shipperapp.tracking;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Detects arrival at the delivery points of the orders in progress, from the stream of
+ * location fixes.
+ *
+ * Targets are held in a k-d tree over a local equirectangular projection (metres), so each
+ * fix costs O(log n) plus the targets actually nearby. A target is entered when a fix lands
+ * within {@code radiusMeters}, and left only beyond {@code EXIT_FACTOR} times that, so GPS
+ * jitter at the edge does not flap. Each order gets at most one {@link Listener#onArrive}
+ * and one {@link Listener#onDwell} (after {@code dwellMs} inside) for the engine's
+ * lifetime, also across {@link #setTargets} calls. Fixes less accurate than
+ * {@code maxAccuracyMeters} are ignored.
+ *
+ * Time comes from the fixes, so the engine can be driven by a recorded or synthetic stream.
+ * Not thread-safe: feed it from one thread.
+ */
+public final class GeofenceEngine {
+    public interface Listener {
+        /** First accurate fix inside the order's delivery radius. */
+        void onArrive(int orderId, double lat, double lng, long timeMillis, float accuracy);
+
+        /** Still inside {@code dwellMs} after arriving: the shipper is at the door. */
+        void onDwell(int orderId, double lat, double lng, long timeMillis);
+    }
+
+    static final double EXIT_FACTOR = 1.5;
+
+    private final double radiusMeters;
+    private final long dwellMs;
+    private final float maxAccuracyMeters;
+    private final Listener listener;
+
+    // Targets in k-d tree order: the node of range [lo, hi) is at (lo + hi) / 2
+    private int count;
+    private int[] orderIds = new int[0];
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private double refLat;
+    private double kx;
+    private double ky;
+
+    // Per target (same order): inside since, or -1 when outside
+    private long[] enteredAt = new long[0];
+    // Targets currently inside, checked against the exit radius on every fix
+    private int[] inside = new int[0];
+    private int insideCount;
+    // Orders already reported, kept across setTargets: FALSE = arrival, TRUE = dwell too
+    private final Map<Integer, Boolean> reported = new HashMap<>();
+
+    private long fixes;
+    private long nodesVisited;
+    private long arrivals;
+    private long dwells;
+
+    public GeofenceEngine(double radiusMeters, long dwellMs, float maxAccuracyMeters, Listener listener) {
+        this.radiusMeters = radiusMeters;
+        this.dwellMs = dwellMs;
+        this.maxAccuracyMeters = maxAccuracyMeters;
+        this.listener = listener;
+    }
+
+    /**
+     * Replaces the targets (e.g. after a sync changed which orders are out for delivery).
+     * Orders still present keep their inside/outside state.
+     */
+    public void setTargets(int[] ids, double[] lats, double[] lngs) {
+        int n = ids.length;
+        Map<Integer, Long> previous = new HashMap<>();
+        for (int i = 0; i < insideCount; i++) {
+            previous.put(orderIds[inside[i]], enteredAt[inside[i]]);
+        }
+
+        double sumLat = 0;
+        for (int i = 0; i < n; i++) sumLat += lats[i];
+        refLat = n > 0 ? sumLat / n : 0;
+        ky = Math.toRadians(1) * Geo.EARTH_RADIUS_M;
+        kx = ky * Math.cos(Math.toRadians(refLat));
+
+        count = n;
+        orderIds = new int[n];
+        xs = new double[n];
+        ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            orderIds[i] = ids[i];
+            xs[i] = lngs[i] * kx;
+            ys[i] = lats[i] * ky;
+        }
+        build(0, n, 0);
+
+        enteredAt = new long[n];
+        inside = new int[n];
+        insideCount = 0;
+        for (int i = 0; i < n; i++) {
+            Long since = previous.get(orderIds[i]);
+            enteredAt[i] = since != null ? since : -1;
+            if (since != null) inside[insideCount++] = i;
+        }
+    }
+
+    /** Feeds one fix; {@code accuracy} < 0 means unknown. */
+    public void offer(double lat, double lng, long timeMillis, float accuracy) {
+        if (accuracy > maxAccuracyMeters) return;
+        fixes++;
+        double x = lng * kx;
+        double y = lat * ky;
+
+        // Leave (outside the wider exit radius), or report a dwell
+        double exit2 = radiusMeters * EXIT_FACTOR * radiusMeters * EXIT_FACTOR;
+        for (int i = insideCount - 1; i >= 0; i--) {
+            int t = inside[i];
+            if (dist2(t, x, y) > exit2) {
+                enteredAt[t] = -1;
+                inside[i] = inside[--insideCount];
+            } else if (timeMillis - enteredAt[t] >= dwellMs && Boolean.FALSE.equals(reported.get(orderIds[t]))) {
+                reported.put(orderIds[t], Boolean.TRUE);
+                dwells++;
+                listener.onDwell(orderIds[t], lat, lng, timeMillis);
+            }
+        }
+
+        if (count > 0) {
+            enter(0, count, 0, x, y, lat, lng, timeMillis, accuracy);
+        }
+    }
+
+    public int targetCount() {
+        return count;
+    }
+
+    /** Whether the last fixes put the shipper inside {@code orderId}'s delivery radius. */
+    public boolean isInside(int orderId) {
+        for (int i = 0; i < insideCount; i++) {
+            if (orderIds[inside[i]] == orderId) return true;
+        }
+        return false;
+    }
+
+    public String stats() {
+        return "targets=" + count + ", fixes=" + fixes + ", nodesPerFix="
+                + (fixes == 0 ? 0 : nodesVisited / fixes) + ", arrivals=" + arrivals + ", dwells=" + dwells;
+    }
+
+    // Range search for targets within the entry radius; newly entered ones start their dwell
+    private void enter(int lo, int hi, int depth, double x, double y,
+                       double lat, double lng, long timeMillis, float accuracy) {
+        if (lo >= hi) return;
+        nodesVisited++;
+        int mid = (lo + hi) >>> 1;
+        if (enteredAt[mid] < 0 && dist2(mid, x, y) <= radiusMeters * radiusMeters) {
+            enteredAt[mid] = timeMillis;
+            inside[insideCount++] = mid;
+            Integer id = orderIds[mid];
+            if (!reported.containsKey(id)) {
+                reported.put(id, Boolean.FALSE);
+                arrivals++;
+                listener.onArrive(id, lat, lng, timeMillis, accuracy);
+            }
+        }
+        double delta = (depth & 1) == 0 ? x - xs[mid] : y - ys[mid];
+        if (delta <= radiusMeters) enter(lo, mid, depth + 1, x, y, lat, lng, timeMillis, accuracy);
+        if (delta >= -radiusMeters) enter(mid + 1, hi, depth + 1, x, y, lat, lng, timeMillis, accuracy);
+    }
+
+    private double dist2(int t, double x, double y) {
+        double dx = xs[t] - x;
+        double dy = ys[t] - y;
+        return dx * dx + dy * dy;
+    }
+
+    // Orders [lo, hi) so the median on this depth's axis sits at the middle, recursively
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo < 2) return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, (depth & 1) == 0 ? xs : ys);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    // Quickselect: puts the k-th smallest of keys[lo..hi] at k, smaller left, larger right
+    private void select(int lo, int hi, int k, double[] keys) {
+        while (hi > lo) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = orderIds[a]; orderIds[a] = orderIds[b]; orderIds[b] = id;
+        double x = xs[a]; xs[a] = xs[b]; xs[b] = x;
+        double y = ys[a]; ys[a] = ys[b]; ys[b] = y;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.shipperapp.tracking;
+
+/**
+ * Streaming polyline simplifier for the outgoing tracking fixes.
+ *
+ * Works like an opening-window Douglas–Peucker: the last kept point is the anchor and the
+ * following fixes are held in a small window while every one of them stays within
+ * {@code toleranceMeters} of the straight segment from the anchor to the newest fix. When a
+ * new fix would pull some held point off that segment (a turn), the previous fix becomes a
+ * kept vertex and the new anchor. Every dropped point is therefore within the tolerance of
+ * the uploaded polyline.
+ *
+ * Points are also kept around stops (a time gap longer than {@code stopGapMs}, which is how
+ * a parked shipper shows up after {@link AdaptiveSampler} suppression) and whenever a
+ * flagged fix such as a status-change check-in comes through. The window is a fixed set of
+ * primitive arrays, so memory stays bounded and {@link #offer} does not allocate.
+ */
+public final class TrajectorySimplifier {
+    /** Receives the points that survive simplification, in order. */
+    public interface Sink {
+        void emit(double latitude, double longitude, long timeMillis, float accuracy, int flags);
+    }
+
+    private final Sink sink;
+    private final double toleranceMeters;
+    private final long stopGapMs;
+
+    private boolean hasAnchor;
+    private double anchorLat;
+    private double anchorLng;
+    private long anchorTime;
+
+    // Held fixes after the anchor, oldest first
+    private final double[] lats;
+    private final double[] lngs;
+    private final long[] times;
+    private final float[] accuracies;
+    private int held;
+
+    private long pointsIn;
+    private long pointsOut;
+
+    public TrajectorySimplifier(double toleranceMeters, long stopGapMs, int maxWindow, Sink sink) {
+        if (maxWindow < 1) throw new IllegalArgumentException("maxWindow must be >= 1");
+        this.toleranceMeters = toleranceMeters;
+        this.stopGapMs = stopGapMs;
+        this.sink = sink;
+        lats = new double[maxWindow];
+        lngs = new double[maxWindow];
+        times = new long[maxWindow];
+        accuracies = new float[maxWindow];
+    }
+
+    /**
+     * Feeds one fix. Fixes with non-zero {@code flags} (see {@link CheckpointSpool}) are never
+     * dropped; everything held before them is settled first so the stream stays in order.
+     */
+    public void offer(double lat, double lng, long timeMillis, float accuracy, int flags) {
+        pointsIn++;
+        if (!hasAnchor) {
+            emit(lat, lng, timeMillis, accuracy, flags);
+            return;
+        }
+        if (flags != 0) {
+            flush();
+            emit(lat, lng, timeMillis, accuracy, flags);
+            return;
+        }
+        long lastTime = held > 0 ? times[held - 1] : anchorTime;
+        if (timeMillis - lastTime > stopGapMs) {
+            // Stop: pin where the shipper halted and where they moved off again
+            flush();
+            emit(lat, lng, timeMillis, accuracy, 0);
+            return;
+        }
+        if (held > 0 && !windowFits(lat, lng)) {
+            keepLastHeld();
+        } else if (held == lats.length) {
+            // Window full on a straight run: settle a vertex to keep memory bounded
+            keepLastHeld();
+        }
+        lats[held] = lat;
+        lngs[held] = lng;
+        times[held] = timeMillis;
+        accuracies[held] = accuracy;
+        held++;
+    }
+
+    /** Emits the newest held fix so nothing stays buffered, e.g. when tracking stops. */
+    public void flush() {
+        if (held > 0) {
+            keepLastHeld();
+        }
+    }
+
+    /** Number of fixes currently held back waiting for the segment to be decided. */
+    public int heldCount() {
+        return held;
+    }
+
+    public long pointsIn() { return pointsIn; }
+    public long pointsOut() { return pointsOut; }
+
+    /** Input fixes per emitted point (1.0 = nothing removed). */
+    public double compressionRatio() {
+        return pointsOut == 0 ? 1.0 : (double) pointsIn / pointsOut;
+    }
+
+    private void keepLastHeld() {
+        int last = held - 1;
+        emit(lats[last], lngs[last], times[last], accuracies[last], 0);
+        held = 0;
+    }
+
+    private void emit(double lat, double lng, long timeMillis, float accuracy, int flags) {
+        hasAnchor = true;
+        anchorLat = lat;
+        anchorLng = lng;
+        anchorTime = timeMillis;
+        pointsOut++;
+        sink.emit(lat, lng, timeMillis, accuracy, flags);
+    }
+
+    // True when every held fix lies within tolerance of the segment anchor -> (lat, lng)
+    private boolean windowFits(double lat, double lng) {
+        // Local equirectangular projection around the anchor; exact enough over a few km
+        double mPerDegLat = Math.toRadians(1) * Geo.EARTH_RADIUS_M;
+        double mPerDegLng = mPerDegLat * Math.cos(Math.toRadians(anchorLat));
+        double ex = (lng - anchorLng) * mPerDegLng;
+        double ey = (lat - anchorLat) * mPerDegLat;
+        double len2 = ex * ex + ey * ey;
+        double tol2 = toleranceMeters * toleranceMeters;
+        for (int i = 0; i < held; i++) {
+            double px = (lngs[i] - anchorLng) * mPerDegLng;
+            double py = (lats[i] - anchorLat) * mPerDegLat;
+            double t = len2 == 0 ? 0 : (px * ex + py * ey) / len2;
+            if (t < 0) t = 0;
+            else if (t > 1) t = 1;
+            double dx = px - t * ex;
+            double dy = py - t * ey;
+            if (dx * dx + dy * dy > tol2) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
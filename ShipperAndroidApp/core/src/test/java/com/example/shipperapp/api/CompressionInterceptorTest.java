@@ -0,0 +1,166 @@
+package com.example.shipperapp.api;
+
+import com.example.shipperapp.models.BatchCheckInResult;
+import com.example.shipperapp.models.LocationCheckpoint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Gzip both ways through {@link CompressionInterceptor}, and when a rejected compressed upload
+ * is (and is not) sent again uncompressed.
+ */
+public class CompressionInterceptorTest {
+    private static final String ROUTE = "POST api/tracking/checkin/batch";
+    private static final String RESULT = "{\"accepted\":20,\"duplicates\":0,\"rejected\":0}";
+
+    private final MockWebServer server = new MockWebServer();
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    private ApiService api;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .eventListenerFactory(metrics)
+                .addInterceptor(new CompressionInterceptor(metrics))
+                .build();
+        api = TestApis.create(server, client);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void gzipsLargeUploadAndInflatesGzipResponse() throws Exception {
+        server.enqueue(new MockResponse().setBody(gzip(RESULT)).setHeader("Content-Encoding", "gzip"));
+
+        Response<BatchCheckInResult> response = api.checkInBatch(batch(20)).execute();
+        assertEquals(20, response.body().accepted);
+
+        RecordedRequest sent = server.takeRequest();
+        assertEquals("gzip", sent.getHeader("Content-Encoding"));
+        assertEquals("gzip", sent.getHeader("Accept-Encoding"));
+        Buffer json = gunzip(sent.getBody());
+        long jsonBytes = json.size();
+        assertTrue(json.readUtf8().contains("\"orderId\":19"));
+
+        NetworkMetrics.RouteStats stats = metrics.route(ROUTE);
+        assertEquals(1, stats.gzippedRequests());
+        assertEquals(jsonBytes, stats.requestBodyBytes());
+        assertTrue(sent.getBodySize() < jsonBytes);
+        assertEquals(RESULT.length(), stats.responseBodyBytes());
+    }
+
+    @Test
+    public void smallUploadIsSentPlain() throws Exception {
+        server.enqueue(new MockResponse().setBody(RESULT));
+
+        api.checkInBatch(batch(1)).execute();
+
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+        assertEquals(0, metrics.route(ROUTE).gzippedRequests());
+    }
+
+    @Test
+    public void unsupportedMediaTypeFallsBackToPlainForTheHost() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(415));
+        server.enqueue(new MockResponse().setBody(RESULT));
+        server.enqueue(new MockResponse().setBody(RESULT));
+
+        Response<BatchCheckInResult> response = api.checkInBatch(batch(20)).execute();
+        assertEquals(200, response.code());
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+        RecordedRequest replay = server.takeRequest();
+        assertNull(replay.getHeader("Content-Encoding"));
+        assertTrue(replay.getBody().readUtf8().startsWith("[{"));
+
+        // Plain from now on, without trying gzip first
+        api.checkInBatch(batch(20)).execute();
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+        assertEquals(3, server.getRequestCount());
+        assertEquals(0, metrics.route(ROUTE).gzippedRequests());
+    }
+
+    @Test
+    public void gzipReadAsJsonFallsBackToPlain() throws Exception {
+        // What ASP.NET Core answers when the body reaches the JSON reader still compressed
+        server.enqueue(new MockResponse().setResponseCode(400)
+                .setBody("{\"errors\":{\"$\":[\"'0x1F' is an invalid start of a value. Path: $ | LineNumber: 0 | BytePositionInLine: 0.\"]}}"));
+        server.enqueue(new MockResponse().setBody(RESULT));
+
+        Response<BatchCheckInResult> response = api.checkInBatch(batch(20)).execute();
+
+        assertEquals(200, response.code());
+        assertEquals(2, server.getRequestCount());
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void validationErrorIsNotReplayed() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400)
+                .setBody(gzip("Tối đa 500 vị trí mỗi lần check-in")).setHeader("Content-Encoding", "gzip"));
+        server.enqueue(new MockResponse().setBody(RESULT));
+
+        Response<BatchCheckInResult> rejected = api.checkInBatch(batch(20)).execute();
+        assertEquals(400, rejected.code());
+        assertEquals("Tối đa 500 vị trí mỗi lần check-in", rejected.errorBody().string());
+        assertEquals(1, server.getRequestCount());
+
+        // The host still gets gzip
+        api.checkInBatch(batch(20)).execute();
+        server.takeRequest();
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+    }
+
+    private static List<LocationCheckpoint> batch(int size) {
+        List<LocationCheckpoint> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LocationCheckpoint cp = new LocationCheckpoint();
+            cp.orderId = i;
+            cp.latitude = 10.7769 + i * 0.0001;
+            cp.longitude = 106.7009 + i * 0.0001;
+            cp.checkInTime = "2026-10-18T08:00:" + (10 + i) + ".000";
+            cp.notes = "Tự động";
+            batch.add(cp);
+        }
+        return batch;
+    }
+
+    private static Buffer gzip(String text) throws IOException {
+        Buffer gzipped = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(gzipped))) {
+            sink.writeUtf8(text);
+        }
+        return gzipped;
+    }
+
+    private static Buffer gunzip(Buffer gzipped) throws IOException {
+        Buffer plain = new Buffer();
+        plain.writeAll(new GzipSource(gzipped));
+        return plain;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.shipperapp.api;
+
+import com.example.shipperapp.models.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * ETag revalidation through the HTTP cache, against a server that behaves like the API's
+ * [ETag] filter ("private, no-cache", 304 on a matching If-None-Match), and the
+ * hit/304/miss counters it feeds in {@link NetworkMetrics}.
+ */
+public class HttpCacheTest {
+    private static final String ROUTE = "GET api/orders/{id}";
+    private static final String ORDER_7 = "{\"orderId\":7,\"orderCode\":\"DH007\",\"status\":1}";
+
+    @Rule
+    public final TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    private Cache cache;
+    private ApiService api;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        cache = new Cache(cacheDir.getRoot(), 1024 * 1024);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .cache(cache)
+                .eventListenerFactory(metrics)
+                .addInterceptor(new CompressionInterceptor(metrics))
+                .build();
+        api = TestApis.create(server, client);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+        cache.close();
+    }
+
+    @Test
+    public void revalidatesWithETagAndServesCachedBodyOn304() throws Exception {
+        server.enqueue(revalidated(ORDER_7, "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+
+        Response<Order> first = api.getOrderById(7).execute();
+        assertEquals("DH007", first.body().orderCode);
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+
+        Response<Order> second = api.getOrderById(7).execute();
+        RecordedRequest revalidation = server.takeRequest();
+        assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+        assertEquals(304, second.raw().networkResponse().code());
+        assertNotNull(second.raw().cacheResponse());
+        assertEquals(200, second.code());
+        assertEquals("DH007", second.body().orderCode);
+
+        NetworkMetrics.RouteStats stats = metrics.route(ROUTE);
+        assertEquals(0, stats.cacheHits());
+        assertEquals(1, stats.notModified());
+        assertEquals(1, stats.cacheMisses());
+    }
+
+    @Test
+    public void changedResourceIsFetchedAgainAndReplacesTheCachedCopy() throws Exception {
+        server.enqueue(revalidated(ORDER_7, "\"v1\""));
+        server.enqueue(revalidated("{\"orderId\":7,\"orderCode\":\"DH007\",\"status\":2}", "\"v2\""));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v2\""));
+
+        api.getOrderById(7).execute();
+        server.takeRequest();
+        Response<Order> changed = api.getOrderById(7).execute();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals("2", changed.body().status);
+
+        Response<Order> again = api.getOrderById(7).execute();
+        assertEquals("\"v2\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals("2", again.body().status);
+
+        NetworkMetrics.RouteStats stats = metrics.route(ROUTE);
+        assertEquals(0, stats.cacheHits());
+        assertEquals(1, stats.notModified());
+        assertEquals(2, stats.cacheMisses());
+    }
+
+    @Test
+    public void freshEntryIsServedWithoutTheNetwork() throws Exception {
+        server.enqueue(new MockResponse().setBody(ORDER_7).setHeader("Cache-Control", "private, max-age=60"));
+
+        api.getOrderById(7).execute();
+        Response<Order> cached = api.getOrderById(7).execute();
+
+        assertEquals("DH007", cached.body().orderCode);
+        assertNull(cached.raw().networkResponse());
+        assertEquals(1, server.getRequestCount());
+        NetworkMetrics.RouteStats stats = metrics.route(ROUTE);
+        assertEquals(1, stats.cacheHits());
+        assertEquals(0, stats.notModified());
+        assertEquals(1, stats.cacheMisses());
+    }
+
+    // What the [ETag] filter sends with a 200
+    private static MockResponse revalidated(String body, String etag) {
+        return new MockResponse()
+                .setBody(body)
+                .setHeader("ETag", etag)
+                .setHeader("Cache-Control", "private, no-cache");
+    }
+}
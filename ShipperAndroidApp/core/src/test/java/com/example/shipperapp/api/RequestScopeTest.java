@@ -0,0 +1,235 @@
+package com.example.shipperapp.api;
+
+import com.example.shipperapp.models.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Call;
+import retrofit2.HttpException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link RequestScope} and {@link Task} against a mock API. Callbacks go to a queue that the
+ * test drains itself, standing in for the main thread.
+ */
+public class RequestScopeTest {
+    private static final String ORDER_1 = "{\"orderId\":1,\"orderCode\":\"DH001\",\"status\":1}";
+
+    private final MockWebServer server = new MockWebServer();
+    private final BlockingQueue<Runnable> mainThread = new LinkedBlockingQueue<>();
+    private final Executor mainExecutor = mainThread::add;
+    private OkHttpClient client;
+    private ApiService api;
+    private RequestScope scope;
+
+    @Before
+    public void setUp() throws IOException {
+        // Order 1 answers at once, order 404 with a 500; any other order never answers
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if (path.endsWith("/orders/1")) return new MockResponse().setBody(ORDER_1);
+                if (path.endsWith("/orders/404")) return new MockResponse().setResponseCode(500);
+                return new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE);
+            }
+        });
+        server.start();
+        client = new OkHttpClient();
+        api = TestApis.create(server, client);
+        scope = new RequestScope(mainExecutor);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        scope.cancel();
+        server.shutdown();
+    }
+
+    @Test
+    public void deliversResultOnTheScopeExecutor() throws Exception {
+        Recorder<String> recorder = new Recorder<>();
+        scope.fetch(api.getOrderById(1)).map(order -> order.orderCode).observe(recorder);
+
+        runNextCallback();
+        assertEquals("DH001", recorder.value);
+        assertEquals(0, scope.pendingCount());
+    }
+
+    @Test
+    public void cancelAbortsCallsInFlight() throws Exception {
+        Call<Order> call = api.getOrderById(2);
+        Recorder<Order> recorder = new Recorder<>();
+        Task<Order> task = scope.fetch(call).observe(recorder);
+        server.takeRequest(5, TimeUnit.SECONDS); // sent, waiting for an answer
+
+        scope.cancel();
+
+        assertTrue(task.isCancelled());
+        assertTrue(call.isCanceled());
+        awaitIdle();
+        assertNull(mainThread.poll(200, TimeUnit.MILLISECONDS));
+        assertTrue(recorder.isEmpty());
+        assertEquals("sent=1, cancelledInFlight=1", scope.stats());
+    }
+
+    @Test
+    public void callsOfACancelledScopeAreNeverSent() throws Exception {
+        scope.cancel();
+        Call<Order> call = api.getOrderById(1);
+
+        Task<Order> task = scope.fetch(call);
+
+        assertTrue(task.isCancelled());
+        assertFalse(call.isExecuted());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void cancellingAParentCancelsItsChildren() throws Exception {
+        Call<Order> call = api.getOrderById(2);
+        RequestScope refresh = scope.child();
+        Task<Order> task = refresh.fetch(call);
+        server.takeRequest(5, TimeUnit.SECONDS);
+
+        scope.cancel();
+
+        assertTrue(refresh.isCancelled());
+        assertTrue(task.isCancelled());
+        assertTrue(call.isCanceled());
+    }
+
+    @Test
+    public void callbackQueuedBeforeCancelIsDropped() throws Exception {
+        Recorder<Order> recorder = new Recorder<>();
+        scope.fetch(api.getOrderById(1)).observe(recorder);
+
+        // The response is in and its callback posted, but the screen closes before it runs
+        Runnable posted = mainThread.poll(5, TimeUnit.SECONDS);
+        assertNotNull(posted);
+        scope.cancel();
+        posted.run();
+
+        assertTrue(recorder.isEmpty());
+    }
+
+    @Test
+    public void observingAfterCancelNeverCallsBack() throws Exception {
+        Task<Order> task = scope.fetch(api.getOrderById(1));
+        awaitDone(task);
+        scope.cancel();
+
+        Recorder<Order> recorder = new Recorder<>();
+        task.observe(recorder);
+        drainMainThread();
+
+        assertTrue(recorder.isEmpty());
+    }
+
+    @Test
+    public void allFailsOnTheFirstFailureAndCancelsTheRest() throws Exception {
+        List<Call<Order>> calls = Arrays.asList(api.getOrderById(2), api.getOrderById(404), api.getOrderById(3));
+        List<Task<Order>> tasks = new ArrayList<>();
+        for (Call<Order> call : calls) tasks.add(scope.fetch(call));
+        Recorder<List<Order>> recorder = new Recorder<>();
+
+        long start = System.nanoTime();
+        scope.all(tasks).observe(recorder);
+        runNextCallback();
+
+        // Well before orders 2 and 3 could answer (they never do)
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertTrue(recorder.error instanceof HttpException);
+        assertEquals(500, ((HttpException) recorder.error).code());
+        assertTrue(tasks.get(0).isCancelled());
+        assertTrue(tasks.get(2).isCancelled());
+        assertTrue(calls.get(0).isCanceled());
+        assertTrue(calls.get(2).isCanceled());
+        assertEquals("sent=3, cancelledInFlight=2", scope.stats());
+    }
+
+    @Test
+    public void allGivesValuesInTaskOrder() throws Exception {
+        List<Task<Order>> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) tasks.add(scope.fetch(api.getOrderById(1)));
+        Recorder<List<Order>> recorder = new Recorder<>();
+
+        scope.all(tasks).observe(recorder);
+        runNextCallback();
+
+        assertNull(recorder.error);
+        assertEquals(3, recorder.value.size());
+        assertEquals("DH001", recorder.value.get(2).orderCode);
+    }
+
+    private void runNextCallback() throws InterruptedException {
+        Runnable callback = mainThread.poll(5, TimeUnit.SECONDS);
+        if (callback == null) fail("No callback within 5 s");
+        callback.run();
+    }
+
+    private void drainMainThread() {
+        Runnable callback;
+        while ((callback = mainThread.poll()) != null) callback.run();
+    }
+
+    // Until OkHttp has finished with every call, cancelled ones included
+    private void awaitIdle() throws InterruptedException {
+        for (int i = 0; i < 100 && client.dispatcher().runningCallsCount() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, client.dispatcher().runningCallsCount());
+    }
+
+    private static void awaitDone(Task<?> task) throws InterruptedException {
+        for (int i = 0; i < 250 && !task.isDone(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(task.isDone());
+    }
+
+    private static final class Recorder<T> implements Task.Callback<T> {
+        T value;
+        Throwable error;
+        int calls;
+
+        @Override
+        public void onSuccess(T value) {
+            this.value = value;
+            calls++;
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+            this.error = error;
+            calls++;
+        }
+
+        boolean isEmpty() {
+            return calls == 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.shipperapp.api;
+
+import com.example.shipperapp.models.ModelTypeAdapters;
+import com.google.gson.GsonBuilder;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/** {@link ApiService} against a mock server, parsed with the app's model adapters. */
+final class TestApis {
+    private TestApis() {
+    }
+
+    static ApiService create(MockWebServer server, OkHttpClient client) {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(
+                        new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create()))
+                .client(client)
+                .build()
+                .create(ApiService.class);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.shipperapp.models;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * {@link ModelTypeAdapters} against Gson's reflective binding, which the adapters replace:
+ * every model read from the same JSON must come out the same, and written the same.
+ */
+public class ModelTypeAdaptersTest {
+    private static final String STAFF = "{\"staffId\":3,\"fullName\":\"Nguyễn Văn A\",\"phoneNumber\":\"0901234567\","
+            + "\"vehicleType\":\"Xe máy\",\"vehiclePlate\":\"59X1-12345\",\"isAvailable\":true}";
+    private static final String CHECKPOINT = "{\"checkpointId\":11,\"orderId\":7,\"latitude\":10.7769,"
+            + "\"longitude\":106.7009,\"locationName\":\"Quận 1\",\"checkInTime\":\"2026-10-18T08:00:00\",\"notes\":\"Tự động\"}";
+    private static final String ORDER = "{\"orderId\":7,\"orderCode\":\"DH007\",\"status\":2,\"assignedStaff\":" + STAFF
+            + ",\"deliveryLatitude\":10.78,\"deliveryLongitude\":106.7,\"checkpoints\":[" + CHECKPOINT + "," + CHECKPOINT + "]}";
+    private static final String CHANGES = "{\"cursor\":\"c-42\",\"fullSnapshot\":false,\"changed\":[" + ORDER + "],"
+            + "\"removed\":[4,5],\"activeCount\":12,\"nextAfterId\":7}";
+    private static final String PAGE = "{\"items\":[" + ORDER + "],\"totalCount\":40,\"nextAfterId\":null}";
+
+    private static final Map<Class<?>, String> SAMPLES = new LinkedHashMap<>();
+
+    static {
+        SAMPLES.put(DeliveryStaff.class, STAFF);
+        SAMPLES.put(LocationCheckpoint.class, CHECKPOINT);
+        SAMPLES.put(Order.class, ORDER);
+        SAMPLES.put(OrderChanges.class, CHANGES);
+        SAMPLES.put(OrderPage.class, PAGE);
+        SAMPLES.put(OrderBootstrap.class, "{\"staff\":" + STAFF + ",\"orderChanges\":" + CHANGES + ",\"myOrders\":" + PAGE + "}");
+        SAMPLES.put(BatchCheckInResult.class, "{\"accepted\":18,\"duplicates\":2,\"rejected\":1}");
+        SAMPLES.put(UpdateOrderStatusDto.class, "{\"orderId\":\"7\",\"staffId\":\"3\",\"status\":2,\"notes\":\"Đã lấy hàng\"}");
+        SAMPLES.put(MultiOrderCheckInDto.class, "{\"orderIds\":[7,8,9],\"latitude\":10.7769,\"longitude\":106.7009,"
+                + "\"checkInTime\":\"2026-10-18T08:00:00\",\"notes\":\"Tự động\"}");
+        SAMPLES.put(LoginRequest.class, "{\"username\":\"shipper1\",\"password\":\"mật khẩu\"}");
+        SAMPLES.put(LoginResponse.class, "{\"token\":\"eyJ\",\"user\":{\"userId\":5,\"username\":\"shipper1\","
+                + "\"fullName\":\"Nguyễn Văn A\",\"email\":\"a@example.com\",\"role\":\"Shipper\"}}");
+        SAMPLES.put(LoginResponse.User.class, "{\"userId\":5,\"username\":\"shipper1\",\"fullName\":null,\"email\":null,\"role\":\"Shipper\"}");
+    }
+
+    private final Gson reflective = new Gson();
+    private final Gson adapters = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+    private final Gson reflectiveWithNulls = new GsonBuilder().serializeNulls().create();
+    private final Gson adaptersWithNulls = new GsonBuilder().serializeNulls()
+            .registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+
+    @Test
+    public void everyModelHasAnAdapter() {
+        ModelTypeAdapters factory = new ModelTypeAdapters();
+        for (Class<?> type : SAMPLES.keySet()) {
+            assertNotNull(type.getName(), factory.create(adapters, TypeToken.get(type)));
+        }
+    }
+
+    @Test
+    public void everyModelReadsLikeReflection() {
+        for (Map.Entry<Class<?>, String> e : SAMPLES.entrySet()) {
+            assertSameRead(e.getKey(), e.getValue());
+        }
+    }
+
+    @Test
+    public void everyModelWritesLikeReflection() {
+        for (Map.Entry<Class<?>, String> e : SAMPLES.entrySet()) {
+            assertSameWrite(reflective.fromJson(e.getValue(), e.getKey()));
+        }
+    }
+
+    @Test
+    public void numericStatusIsReadAsString() {
+        Order order = adapters.fromJson("{\"orderId\":1,\"status\":3}", Order.class);
+        assertEquals("3", order.status);
+        assertSameRead(Order.class, "{\"orderId\":1,\"status\":3}");
+        assertSameRead(Order.class, "{\"orderId\":1,\"status\":\"DaGiao\"}");
+        // Numbers sent as strings, and booleans as strings, are accepted the same way
+        assertSameRead(DeliveryStaff.class, "{\"staffId\":\"3\",\"isAvailable\":\"true\"}");
+        assertSameRead(LocationCheckpoint.class, "{\"latitude\":\"10.5\",\"longitude\":106}");
+    }
+
+    @Test
+    public void explicitNullsKeepPrimitiveDefaultsAndClearTheRest() {
+        String json = "{\"orderId\":null,\"orderCode\":null,\"status\":null,\"assignedStaff\":null,"
+                + "\"deliveryLatitude\":null,\"deliveryLongitude\":null,\"checkpoints\":null}";
+        Order order = adapters.fromJson(json, Order.class);
+        assertEquals(0, order.orderId);
+        assertNull(order.orderCode);
+        assertNull(order.deliveryLatitude);
+        assertSameRead(Order.class, json);
+        assertSameRead(DeliveryStaff.class, "{\"staffId\":null,\"fullName\":null,\"isAvailable\":null}");
+        assertSameRead(LocationCheckpoint.class, "{\"checkpointId\":null,\"latitude\":null,\"notes\":null}");
+        assertSameRead(OrderChanges.class, "{\"cursor\":null,\"fullSnapshot\":null,\"changed\":null,"
+                + "\"removed\":[1,null,3],\"activeCount\":null,\"nextAfterId\":null}");
+        assertSameRead(OrderPage.class, "{\"items\":[null],\"totalCount\":null,\"nextAfterId\":null}");
+        assertSameRead(UpdateOrderStatusDto.class, "{\"orderId\":null,\"status\":null}");
+        assertSameRead(MultiOrderCheckInDto.class, "{\"orderIds\":null,\"latitude\":null}");
+        assertSameRead(LoginResponse.class, "{\"token\":null,\"user\":null}");
+    }
+
+    @Test
+    public void unknownFieldsAreSkipped() {
+        String json = "{\"orderId\":7,\"createdAt\":\"2026-10-18\",\"customer\":{\"name\":\"B\",\"tags\":[1,{\"x\":[]}]},"
+                + "\"status\":1,\"weights\":[1.5,2],\"fragile\":true,\"extra\":null,\"checkpoints\":[{\"orderId\":7,\"speed\":3.2}]}";
+        Order order = adapters.fromJson(json, Order.class);
+        assertEquals(7, order.orderId);
+        assertEquals("1", order.status);
+        assertSameRead(Order.class, json);
+        assertSameRead(OrderBootstrap.class, "{\"serverTime\":123,\"staff\":{\"staffId\":3,\"rating\":4.5},"
+                + "\"orderChanges\":{\"changed\":[],\"removed\":[],\"hint\":{}}}");
+        assertSameRead(BatchCheckInResult.class, "{\"accepted\":1,\"errors\":[\"x\"]}");
+    }
+
+    @Test
+    public void nullFieldsAreLeftOutOnWrite() {
+        Order order = new Order();
+        order.orderId = 7;
+        order.orderCode = null;
+        order.status = "2";
+        String json = adapters.toJson(order);
+        assertEquals("{\"orderId\":7,\"status\":\"2\"}", json);
+        assertSameWrite(order);
+
+        OrderChanges changes = new OrderChanges();
+        changes.changed = Arrays.asList(order, null);
+        changes.removed = Arrays.asList(4, null);
+        assertSameWrite(changes);
+        assertSameWrite(new LoginRequest("shipper1", null));
+        assertSameWrite(new LoginResponse());
+        assertSameWrite(new OrderBootstrap());
+    }
+
+    @Test
+    public void nestedListsRoundTrip() {
+        String bootstrap = SAMPLES.get(OrderBootstrap.class);
+        OrderBootstrap b = adapters.fromJson(bootstrap, OrderBootstrap.class);
+        assertEquals(2, b.orderChanges.changed.get(0).checkpoints.size());
+        assertEquals(Arrays.asList(4, 5), b.orderChanges.removed);
+        assertEquals(11, b.myOrders.items.get(0).checkpoints.get(1).checkpointId);
+
+        assertSameWrite(b);
+        assertSameRead(OrderBootstrap.class, adapters.toJson(b));
+        assertSameRead(OrderPage.class, "{\"items\":[{\"orderId\":1,\"checkpoints\":[]},{\"orderId\":2,\"checkpoints\":null}]}");
+    }
+
+    // Both bindings read json into objects that reflection then writes identically, nulls included
+    private void assertSameRead(Class<?> type, String json) {
+        Object expected = reflective.fromJson(json, type);
+        Object actual = adapters.fromJson(json, type);
+        assertEquals(json, reflectiveWithNulls.toJson(expected), reflectiveWithNulls.toJson(actual));
+    }
+
+    private void assertSameWrite(Object value) {
+        assertEquals(reflective.toJson(value), adapters.toJson(value));
+        assertEquals(reflectiveWithNulls.toJson(value), adaptersWithNulls.toJson(value));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.shipperapp.tracking;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link CheckpointSpool} over a real file: what survives a reopen, a torn record, and a full
+ * ring.
+ */
+public class CheckpointSpoolTest {
+    private static final int CAPACITY = 8;
+    private static final int HEADER_SIZE = 32;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File path;
+    private CheckpointSpool spool;
+
+    @Before
+    public void setUp() throws IOException {
+        path = new File(folder.getRoot(), "checkpoints.spool");
+        spool = CheckpointSpool.open(path, CAPACITY);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        spool.close();
+    }
+
+    @Test
+    public void committedRecordsSurviveReopen() throws IOException {
+        for (int i = 0; i < 3; i++) append(i);
+
+        reopen();
+
+        List<CheckpointSpool.Record> records = spool.peek(10);
+        assertEquals(3, records.size());
+        CheckpointSpool.Record r = records.get(2);
+        assertEquals(2, r.seq);
+        assertEquals(102, r.orderId);
+        assertEquals(CheckpointSpool.FLAG_MANUAL, r.flags);
+        assertEquals(10.7769 + 2 * 0.001, r.latitude, 0);
+        assertEquals(1_000_002, r.timeMillis);
+        assertEquals(8f, r.accuracy, 0);
+        assertEquals("điểm 2", r.note);
+        assertEquals(3, spool.append(103, 10.78, 106.7, 1_000_003, 8f, 0, null));
+    }
+
+    @Test
+    public void tornRecordIsDroppedOnReopen() throws IOException {
+        for (int i = 0; i < 4; i++) append(i);
+        reopen();
+        assertEquals(4, spool.pendingCount());
+        spool.close();
+
+        // As if the process died while writing record 3: its commit word never made it
+        try (RandomAccessFile raf = new RandomAccessFile(path, "rw")) {
+            raf.seek(HEADER_SIZE + 3L * CheckpointSpool.RECORD_SIZE + CheckpointSpool.RECORD_SIZE - 4);
+            raf.writeInt(0);
+        }
+        spool = CheckpointSpool.open(path, CAPACITY);
+
+        // The records before it are intact, and the next append takes its place
+        assertEquals(3, spool.pendingCount());
+        assertEquals("điểm 2", spool.peek(10).get(2).note);
+        assertEquals(3, append(9));
+        reopen();
+        assertEquals(4, spool.pendingCount());
+        assertEquals(109, spool.peek(10).get(3).orderId);
+    }
+
+    @Test
+    public void ackedSequenceSurvivesReopen() throws IOException {
+        for (int i = 0; i < 5; i++) append(i);
+        spool.ack(2);
+        assertEquals(2, spool.pendingCount());
+
+        reopen();
+
+        assertEquals(2, spool.pendingCount());
+        assertEquals(3, spool.peek(1).get(0).seq);
+        assertEquals(1_000_003, spool.oldestPendingTimeMillis());
+        spool.ack(10); // beyond the last append: acks what there is
+        reopen();
+        assertEquals(0, spool.pendingCount());
+        assertEquals(-1, spool.oldestPendingTimeMillis());
+        assertEquals(5, append(5));
+    }
+
+    @Test
+    public void fullRingOverwritesTheOldest() throws IOException {
+        for (int i = 0; i < CAPACITY + 3; i++) append(i);
+
+        assertEquals(CAPACITY, spool.pendingCount());
+        assertEquals(3, spool.droppedCount());
+        List<CheckpointSpool.Record> records = spool.peek(CAPACITY);
+        assertEquals(3, records.get(0).seq);
+        assertEquals(CAPACITY + 2, records.get(CAPACITY - 1).seq);
+
+        reopen();
+        records = spool.peek(CAPACITY);
+        assertEquals(CAPACITY, records.size());
+        assertEquals(103, records.get(0).orderId);
+        assertEquals("điểm " + (CAPACITY + 2), records.get(CAPACITY - 1).note);
+    }
+
+    @Test
+    public void longNoteIsCutOnACharacterBoundary() throws IOException {
+        // "ệ" is three bytes, so byte NOTE_MAX_BYTES falls inside one
+        StringBuilder note = new StringBuilder("ab");
+        for (int i = 0; i < 30; i++) note.append('ệ');
+        spool.append(1, 10.7769, 106.7009, 1_000_000, 5f, CheckpointSpool.FLAG_MANUAL, note.toString());
+
+        reopen();
+
+        String stored = spool.peek(1).get(0).note;
+        assertTrue(note.toString().startsWith(stored));
+        assertEquals(note.length() - 6, stored.length());
+        assertTrue(stored.getBytes(StandardCharsets.UTF_8).length <= CheckpointSpool.NOTE_MAX_BYTES);
+        assertFalse(stored.contains("\uFFFD"));
+    }
+
+    private long append(int i) {
+        return spool.append(100 + i, 10.7769 + i * 0.001, 106.7009, 1_000_000 + i, 8f,
+                CheckpointSpool.FLAG_MANUAL, "điểm " + i);
+    }
+
+    private void reopen() throws IOException {
+        spool.close();
+        spool = CheckpointSpool.open(path, CAPACITY);
+    }
+}
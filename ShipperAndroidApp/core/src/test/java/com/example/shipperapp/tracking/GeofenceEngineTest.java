@@ -0,0 +1,145 @@
+package com.example.shipperapp.tracking;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link GeofenceEngine} driven by synthetic fixes walking north towards and away from
+ * delivery points in Ho Chi Minh City.
+ */
+public class GeofenceEngineTest {
+    private static final double RADIUS_M = 75;
+    private static final long DWELL_MS = 120_000;
+    private static final float MAX_ACCURACY_M = 50f;
+
+    private static final int ORDER = 7;
+    private static final double LAT = 10.7769;
+    private static final double LNG = 106.7009;
+
+    private final List<String> events = new ArrayList<>();
+    private GeofenceEngine engine;
+    private long now = 1_000_000;
+
+    @Before
+    public void setUp() {
+        engine = new GeofenceEngine(RADIUS_M, DWELL_MS, MAX_ACCURACY_M, new GeofenceEngine.Listener() {
+            @Override
+            public void onArrive(int orderId, double lat, double lng, long timeMillis, float accuracy) {
+                events.add("arrive " + orderId);
+            }
+
+            @Override
+            public void onDwell(int orderId, double lat, double lng, long timeMillis) {
+                events.add("dwell " + orderId);
+            }
+        });
+        engine.setTargets(new int[]{ORDER, 8, 9},
+                new double[]{LAT, LAT + 0.05, LAT - 0.05},
+                new double[]{LNG, LNG + 0.05, LNG - 0.05});
+    }
+
+    @Test
+    public void arrivalFiresOnceWhileInside() {
+        fixAt(500, 10);
+        fixAt(200, 10);
+        assertTrue(events.isEmpty());
+
+        fixAt(60, 10);
+        fixAt(30, 10);
+        fixAt(0, 10);
+        fixAt(-40, 10);
+
+        assertEquals(Arrays.asList("arrive 7"), events);
+        assertTrue(engine.isInside(ORDER));
+    }
+
+    @Test
+    public void dwellNeedsDwellMsInside() {
+        fixAt(50, 10);
+        fixAt(20, 10, DWELL_MS / 2);
+        fixAt(10, 10, DWELL_MS / 2 - 1);
+        assertEquals(Arrays.asList("arrive 7"), events);
+
+        fixAt(0, 10, 1);
+        assertEquals(Arrays.asList("arrive 7", "dwell 7"), events);
+        fixAt(0, 10, DWELL_MS);
+        assertEquals(Arrays.asList("arrive 7", "dwell 7"), events);
+    }
+
+    @Test
+    public void stayingBetweenEntryAndExitRadiusDoesNotLeave() {
+        fixAt(50, 10);
+        // Jitter beyond the entry radius but within EXIT_FACTOR times it
+        fixAt(RADIUS_M * 1.2, 10, DWELL_MS / 2);
+        fixAt(RADIUS_M * GeofenceEngine.EXIT_FACTOR - 5, 10, DWELL_MS / 2);
+
+        assertTrue(engine.isInside(ORDER));
+        assertEquals(Arrays.asList("arrive 7", "dwell 7"), events);
+    }
+
+    @Test
+    public void leavingBeyondExitRadiusRestartsTheDwellButNotTheArrival() {
+        fixAt(50, 10);
+        fixAt(RADIUS_M * GeofenceEngine.EXIT_FACTOR + 10, 10, DWELL_MS - 1000);
+        assertFalse(engine.isInside(ORDER));
+
+        // Back inside: no second arrival, and the dwell counts from the re-entry
+        fixAt(40, 10, 2000);
+        assertTrue(engine.isInside(ORDER));
+        fixAt(40, 10, DWELL_MS - 1);
+        assertEquals(Arrays.asList("arrive 7"), events);
+        fixAt(40, 10, 1);
+        assertEquals(Arrays.asList("arrive 7", "dwell 7"), events);
+
+        // Every report is once per order for the engine's lifetime
+        fixAt(500, 10, 1000);
+        fixAt(0, 10, 1000);
+        fixAt(0, 10, DWELL_MS);
+        assertEquals(Arrays.asList("arrive 7", "dwell 7"), events);
+    }
+
+    @Test
+    public void inaccurateFixesAreDropped() {
+        fixAt(0, MAX_ACCURACY_M + 1);
+        fixAt(0, 200);
+        assertTrue(events.isEmpty());
+        assertFalse(engine.isInside(ORDER));
+
+        // Nor can one take the shipper out again
+        fixAt(0, MAX_ACCURACY_M);
+        fixAt(1000, 500, DWELL_MS);
+        assertTrue(engine.isInside(ORDER));
+        fixAt(0, -1f, 1);
+        assertEquals(Arrays.asList("arrive 7", "dwell 7"), events);
+        assertTrue(engine.stats().contains("fixes=2"));
+    }
+
+    @Test
+    public void stateSurvivesNewTargets() {
+        fixAt(0, 10);
+        engine.setTargets(new int[]{9, ORDER}, new double[]{LAT - 0.05, LAT}, new double[]{LNG - 0.05, LNG});
+        assertTrue(engine.isInside(ORDER));
+
+        fixAt(0, 10, DWELL_MS);
+        assertEquals(Arrays.asList("arrive 7", "dwell 7"), events);
+    }
+
+    // A fix metresNorth of the order's delivery point, at the current time
+    private void fixAt(double metresNorth, float accuracy) {
+        fixAt(metresNorth, accuracy, 0);
+    }
+
+    // Same, after advancing the clock by elapsedMs
+    private void fixAt(double metresNorth, float accuracy, long elapsedMs) {
+        now += elapsedMs;
+        engine.offer(LAT + Math.toDegrees(metresNorth / Geo.EARTH_RADIUS_M), LNG, now, accuracy);
+    }
+}